@@ -0,0 +1,136 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Todo lo que hace el extractor de facturas ALREDEDOR de la llamada a la IA, sin red.
+ *
+ * - objectMapper:      parseo de la respuesta completa a FacturaDTO (referencia)
+ * - streamingParser:   FacturaJsonStreamParser alimentado en trozos de 7 caracteres
+ * - extractor:         ExtractorFacturasService completo con un StreamingChatModel local
+ *                      (sin cache: cada llamada usa un texto distinto)
+ * - plantillaHit/Miss: coste de la etapa de plantillas cuando el formato es/no es conocido
+ *
+ * La limpieza de bloques ```json``` que hacia el servicio ya no existe (la salida llega con
+ * JSON Schema), asi que el parseo de FacturaDTO es lo que queda por medir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FacturaParsingBenchmark {
+
+    static final String RESPUESTA = "{\"cliente\": \"Juan Pérez\", \"fecha\": \"2024-01-15\", \"total\": 1250.0, "
+            + "\"productos\": [\"Laptop Dell XPS\", \"Mouse Logitech\", \"Teclado mecánico\", \"Monitor 27\"]}";
+
+    private static final String FACTURA_CONOCIDA = """
+            Factura #123 emitida a Juan Pérez el 15 de enero de 2024.
+            Productos adquiridos: Laptop Dell XPS $1200, Mouse Logitech $50.
+            Total a pagar: $1250.00
+            """;
+
+    private static final String FACTURA_LIBRE = "Juan Pérez compró una laptop Dell XPS y un mouse Logitech "
+            + "el 15/01/2024 por un total de 1250 dólares.";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExtractorFacturasService extractor;
+    private ExtraccionPorPlantillas plantillas;
+    private long contador;
+
+    @Setup
+    public void setup() {
+        plantillas = new ExtraccionPorPlantillas(List.of(new ExtractorFacturasConfig().plantillaFacturaEmitida()), 1.0);
+        extractor = new ExtractorFacturasService(new StubStreamingChatModel(RESPUESTA, 7),
+                new FacturaCache(new FacturaCache.Config(1, Duration.ofMinutes(1), null)),
+                new ExtraccionPorPlantillas(List.of(), 1.0));
+    }
+
+    @Benchmark
+    public FacturaDTO objectMapper() throws JsonProcessingException {
+        return objectMapper.readValue(RESPUESTA, FacturaDTO.class);
+    }
+
+    @Benchmark
+    public FacturaDTO streamingParser() {
+        FacturaJsonStreamParser parser = new FacturaJsonStreamParser(objectMapper);
+        for (int i = 0; i < RESPUESTA.length() && !parser.isComplete(); i += 7) {
+            parser.feed(RESPUESTA.substring(i, Math.min(RESPUESTA.length(), i + 7)));
+        }
+        return parser.finish();
+    }
+
+    @Benchmark
+    public FacturaDTO extractor() {
+        return extractor.analizarTexto(FACTURA_LIBRE + " #" + contador++);
+    }
+
+    @Benchmark
+    public FacturaDTO plantillaHit() {
+        return plantillas.extraer(FACTURA_CONOCIDA);
+    }
+
+    @Benchmark
+    public FacturaDTO plantillaMiss() {
+        return plantillas.extraer(FACTURA_LIBRE);
+    }
+
+    /** Modelo local: responde siempre lo mismo, en trozos, en el mismo hilo y sin red. */
+    static final class StubStreamingChatModel implements StreamingChatModel {
+
+        private final String respuesta;
+        private final int tamanoTrozo;
+
+        StubStreamingChatModel(String respuesta, int tamanoTrozo) {
+            this.respuesta = respuesta;
+            this.tamanoTrozo = tamanoTrozo;
+        }
+
+        @Override
+        public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+            boolean[] cancelado = new boolean[1];
+            StreamingHandle handle = new StreamingHandle() {
+                @Override
+                public void cancel() {
+                    cancelado[0] = true;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return cancelado[0];
+                }
+            };
+            for (int i = 0; i < respuesta.length() && !cancelado[0]; i += tamanoTrozo) {
+                handler.onPartialResponse(new PartialResponse(respuesta.substring(i, Math.min(respuesta.length(), i + tamanoTrozo))),
+                        new PartialResponseContext(handle));
+            }
+            if (!cancelado[0]) {
+                handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(respuesta)).build());
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding de la PREGUNTA del usuario (el primer paso de cada /api/rag/ask).
+ *
+ * - onnx: inferencia real de all-minilm-l6-v2, configurado como en RagConfig.
+ * - cache: la misma pregunta a traves de CachingEmbeddingModel (acierto de cache).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingBenchmark {
+
+    private static final String[] PREGUNTAS = {
+            "¿Quién es el CEO de la empresa?",
+            "¿Cuál es el horario de atención al cliente?",
+            "¿Qué productos vende la empresa y cuánto cuestan?",
+            "¿Dónde están ubicadas las oficinas principales?"
+    };
+
+    private EmbeddingModel onnx;
+    private CachingEmbeddingModel cache;
+    private int siguiente;
+
+    @Setup
+    public void setup() {
+        onnx = new AllMiniLmL6V2EmbeddingModel(Runnable::run);
+        cache = new CachingEmbeddingModel(onnx, 10_000);
+        for (String pregunta : PREGUNTAS) {
+            cache.embed(pregunta);
+        }
+    }
+
+    @Benchmark
+    public Embedding onnx() {
+        return onnx.embed(siguientePregunta()).content();
+    }
+
+    @Benchmark
+    public Embedding cache() {
+        return cache.embed(siguientePregunta()).content();
+    }
+
+    private String siguientePregunta() {
+        siguiente = (siguiente + 1) % PREGUNTAS.length;
+        return PREGUNTAS[siguiente];
+    }
+}
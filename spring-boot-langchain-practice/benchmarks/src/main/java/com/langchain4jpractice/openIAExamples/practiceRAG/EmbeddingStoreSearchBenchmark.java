@@ -0,0 +1,128 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busqueda top-k sobre el EmbeddingStore a 10k, 100k y 1M vectores.
+ *
+ * index:
+ * - exact:  MappedEmbeddingStore sin indice (escaneo completo, rag.store.index=exact)
+ * - hnsw:   MappedEmbeddingStore con HNSW y los parametros por defecto de RagConfig
+ * - memory: InMemoryEmbeddingStore de LangChain4j (la referencia original)
+ *
+ * shards > 1 (solo exact / hnsw): ShardedEmbeddingStore con ese numero de shards particionados
+ * por hash y un hilo por shard. La ganancia depende de los nucleos de la maquina:
+ *   java -jar target/benchmarks.jar EmbeddingStoreSearch -p index=exact -p shards=1,4
+ *
+ * Construir HNSW con 1M vectores tarda bastante; para una pasada rapida:
+ *   java -jar target/benchmarks.jar EmbeddingStoreSearch -p size=10000,100000
+ * 1M vectores en memoria necesitan heap: -jvmArgs -Xmx4g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class EmbeddingStoreSearchBenchmark {
+
+    private static final int CONSULTAS = 256;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"exact", "hnsw", "memory"})
+    public String index;
+
+    @Param({"10"})
+    public int k;
+
+    @Param({"1"})
+    public int shards;
+
+    private Path directorio;
+    private EmbeddingStore<TextSegment> store;
+    private final List<Embedding> consultas = new ArrayList<>();
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SyntheticVectors vectores = new SyntheticVectors(7);
+        HnswIndex.Config hnsw = switch (index) {
+            case "memory", "exact" -> null;
+            case "hnsw" -> HnswIndex.Config.defaults();
+            default -> throw new IllegalArgumentException("index desconocido: " + index);
+        };
+        if (index.equals("memory")) {
+            store = new InMemoryEmbeddingStore<>();
+        } else if (shards > 1) {
+            store = new ShardedEmbeddingStore(directorio = Files.createTempDirectory("bench-store"),
+                    new ShardedEmbeddingStore.Config(shards, ShardedEmbeddingStore.Particion.HASH, null, shards),
+                    shard -> new MappedEmbeddingStore(shard, hnsw));
+        } else {
+            store = new MappedEmbeddingStore(directorio = Files.createTempDirectory("bench-store"), hnsw);
+        }
+
+        int lote = 10_000;
+        for (int inicio = 0; inicio < size; inicio += lote) {
+            int fin = Math.min(size, inicio + lote);
+            List<String> ids = new ArrayList<>(fin - inicio);
+            List<Embedding> embeddings = new ArrayList<>(fin - inicio);
+            List<TextSegment> segmentos = new ArrayList<>(fin - inicio);
+            for (int i = inicio; i < fin; i++) {
+                ids.add("seg-" + i);
+                embeddings.add(Embedding.from(vectores.siguiente()));
+                segmentos.add(TextSegment.from("segmento " + i));
+            }
+            store.addAll(ids, embeddings, segmentos);
+        }
+        for (int i = 0; i < CONSULTAS; i++) {
+            consultas.add(Embedding.from(vectores.siguiente()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof LexicalEmbeddingStore mapped) {
+            mapped.close();
+        }
+        if (directorio != null) {
+            FileSystemUtils.deleteRecursively(directorio);
+        }
+    }
+
+    @Benchmark
+    public EmbeddingSearchResult<TextSegment> search() {
+        siguiente = (siguiente + 1) % CONSULTAS;
+        return store.search(EmbeddingSearchRequest.builder()
+                .queryEmbedding(consultas.get(siguiente))
+                .maxResults(k)
+                .build());
+    }
+}
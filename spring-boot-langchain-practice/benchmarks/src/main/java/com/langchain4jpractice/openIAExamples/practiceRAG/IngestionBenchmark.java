@@ -0,0 +1,94 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingesta de punta a punta: split -> embed (ONNX real) -> MappedEmbeddingStore + manifiesto,
+ * con la misma configuracion que RagConfig (IncrementalIngestor + EmbeddingPipeline).
+ *
+ * Cada medicion parte de un store vacio, asi que se embeddean todos los segmentos.
+ * El documento es datos_empresa.txt repetido 'copias' veces (numerado para que los
+ * segmentos no se dedupliquen por hash). Segmentos/s = segmentos del log / tiempo medido.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({"50"})
+    public int copias;
+
+    @Param({"0"})
+    public int workers;
+
+    private AllMiniLmL6V2EmbeddingModel embeddingModel;
+    private Document documento;
+    private Path directorio;
+    private MappedEmbeddingStore store;
+    private IncrementalIngestor ingestor;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        embeddingModel = new AllMiniLmL6V2EmbeddingModel(Runnable::run);
+        String base;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("datos_empresa.txt")) {
+            if (in == null) {
+                throw new IllegalStateException("datos_empresa.txt no esta en el classpath");
+            }
+            base = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < copias; i++) {
+            texto.append("Copia ").append(i).append(".\n").append(base).append("\n\n");
+        }
+        documento = Document.from(texto.toString());
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        directorio = Files.createTempDirectory("bench-ingest");
+        store = new MappedEmbeddingStore(directorio, HnswIndex.Config.defaults());
+        int hilos = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(embeddingModel, store, new EmbeddingPipeline.Config(hilos, 32, 16));
+        ingestor = new IncrementalIngestor(pipeline, store, DocumentSplitters.recursive(300, 0),
+                directorio.resolve("ingest-manifest.json"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() throws IOException {
+        ingestor.close();
+        store.close();
+        FileSystemUtils.deleteRecursively(directorio);
+    }
+
+    @Benchmark
+    public IncrementalIngestor.Resultado ingest() {
+        return ingestor.ingest("bench:datos_empresa.txt", documento);
+    }
+}
@@ -0,0 +1,126 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nucleos de similitud aislados del resto de la busqueda: una consulta contra 'count' vectores
+ * de 384 dims guardados como en el store (float32 little-endian en un ByteBuffer directo).
+ *
+ * kernel:
+ * - legacy: el bucle de antes (FloatBuffer.get elemento a elemento, acumulador double)
+ * - scalar: ScalarSimilarityKernel (el fallback sin --add-modules)
+ * - simd:   el nucleo que elige SimilarityKernels (Vector API; el fork arranca con el modulo)
+ *
+ * Benchmarks: batch (float32 del ByteBuffer), int8 (codigos de QuantizedIndex) y heap
+ * (float[] contra float[]).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimilarityKernelBenchmark {
+
+    private static final int DIMENSION = SyntheticVectors.DIMENSIONES;
+
+    @Param({"10000"})
+    public int count;
+
+    @Param({"legacy", "scalar", "simd"})
+    public String kernel;
+
+    private SimilarityKernel nucleo;
+    private float[] query;
+    private float[][] heap;
+    private ByteBuffer vectores;
+    private FloatBuffer floats;
+    private byte[] codes;
+    private float[] scores;
+
+    @Setup
+    public void setup() {
+        if (kernel.equals("simd") && SimilarityKernels.actual() == SimilarityKernels.scalar()) {
+            throw new IllegalStateException("La Vector API no esta disponible en el fork");
+        }
+        nucleo = kernel.equals("simd") ? SimilarityKernels.actual() : SimilarityKernels.scalar();
+
+        SyntheticVectors sinteticos = new SyntheticVectors(7);
+        query = HnswIndex.normalize(sinteticos.siguiente());
+        heap = new float[count][];
+        vectores = ByteBuffer.allocateDirect(count * DIMENSION * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        codes = new byte[count * DIMENSION];
+        for (int v = 0; v < count; v++) {
+            heap[v] = HnswIndex.normalize(sinteticos.siguiente());
+            float maximo = 0;
+            for (float x : heap[v]) {
+                maximo = Math.max(maximo, Math.abs(x));
+            }
+            for (int i = 0; i < DIMENSION; i++) {
+                vectores.putFloat((v * DIMENSION + i) * Float.BYTES, heap[v][i]);
+                codes[v * DIMENSION + i] = (byte) Math.round(heap[v][i] / maximo * 127);
+            }
+        }
+        floats = vectores.asFloatBuffer();
+        scores = new float[count];
+    }
+
+    @Benchmark
+    public float[] batch() {
+        if (kernel.equals("legacy")) {
+            for (int v = 0; v < count; v++) {
+                int base = v * DIMENSION;
+                double dot = 0;
+                for (int i = 0; i < DIMENSION; i++) {
+                    dot += query[i] * floats.get(base + i);
+                }
+                scores[v] = (float) dot;
+            }
+            return scores;
+        }
+        nucleo.dotBatch(query, vectores, 0, count, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public float[] int8() {
+        if (kernel.equals("legacy")) {
+            for (int v = 0; v < count; v++) {
+                int base = v * DIMENSION;
+                float dot = 0;
+                for (int i = 0; i < DIMENSION; i++) {
+                    dot += query[i] * codes[base + i];
+                }
+                scores[v] = dot;
+            }
+            return scores;
+        }
+        for (int v = 0; v < count; v++) {
+            scores[v] = nucleo.dotInt8(query, codes, v * DIMENSION);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public float[] heap() {
+        for (int v = 0; v < count; v++) {
+            scores[v] = nucleo.dot(query, heap[v]);
+        }
+        return scores;
+    }
+}
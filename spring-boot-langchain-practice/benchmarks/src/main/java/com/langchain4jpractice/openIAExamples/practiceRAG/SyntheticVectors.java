@@ -0,0 +1,41 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Vectores sinteticos de 384 dimensiones (como all-minilm-l6-v2) agrupados en clusters,
+ * igual que HnswRecallReport: se parecen mas a embeddings reales que el ruido uniforme.
+ */
+final class SyntheticVectors {
+
+    static final int DIMENSIONES = 384;
+
+    private final Random random;
+    private final List<float[]> centros = new ArrayList<>();
+
+    SyntheticVectors(long semilla) {
+        this.random = new Random(semilla);
+        for (int i = 0; i < 64; i++) {
+            centros.add(ruido(1f));
+        }
+    }
+
+    float[] siguiente() {
+        float[] centro = centros.get(random.nextInt(centros.size()));
+        float[] ruido = ruido(0.3f);
+        for (int i = 0; i < DIMENSIONES; i++) {
+            ruido[i] += centro[i];
+        }
+        return ruido;
+    }
+
+    private float[] ruido(float escala) {
+        float[] v = new float[DIMENSIONES];
+        for (int i = 0; i < DIMENSIONES; i++) {
+            v[i] = (float) random.nextGaussian() * escala;
+        }
+        return v;
+    }
+}
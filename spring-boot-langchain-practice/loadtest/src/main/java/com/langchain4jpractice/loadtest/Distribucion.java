@@ -0,0 +1,46 @@
+package com.langchain4jpractice.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribucion de la que se sacan latencias (ms) o cantidades de tokens.
+ *
+ * Formatos:
+ * - fixed:200                 siempre 200
+ * - uniform:100:500           uniforme entre 100 y 500
+ * - lognormal:800:0.5         lognormal con mediana 800 y sigma 0.5 (cola larga, como un LLM real)
+ */
+public interface Distribucion {
+
+    double muestra();
+
+    default long muestraEntera() {
+        return Math.max(0, Math.round(muestra()));
+    }
+
+    static Distribucion parse(String definicion) {
+        String[] partes = definicion.split(":");
+        try {
+            return switch (partes[0]) {
+                case "fixed" -> {
+                    double valor = Double.parseDouble(partes[1]);
+                    yield () -> valor;
+                }
+                case "uniform" -> {
+                    double min = Double.parseDouble(partes[1]);
+                    double max = Double.parseDouble(partes[2]);
+                    yield () -> min + ThreadLocalRandom.current().nextDouble() * (max - min);
+                }
+                case "lognormal" -> {
+                    double mu = Math.log(Double.parseDouble(partes[1]));
+                    double sigma = Double.parseDouble(partes[2]);
+                    yield () -> Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian());
+                }
+                default -> throw new IllegalArgumentException("Distribucion desconocida: " + definicion);
+            };
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Distribucion invalida '" + definicion
+                    + "': usa fixed:V, uniform:MIN:MAX o lognormal:MEDIANA:SIGMA", e);
+        }
+    }
+}
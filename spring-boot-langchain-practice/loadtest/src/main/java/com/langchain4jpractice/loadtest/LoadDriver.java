@@ -0,0 +1,214 @@
+package com.langchain4jpractice.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga: N clientes concurrentes en bucle cerrado (cada uno manda la siguiente
+ * peticion cuando recibe la respuesta anterior) contra uno o varios endpoints.
+ *
+ * Por cada escalon de concurrencia informa, por endpoint: peticiones, 429, errores,
+ * throughput y latencia p50 / p99 / p999 / max. Con varios escalones (--concurrency=8,16,32,64)
+ * se ve el PUNTO DE SATURACION: el throughput deja de crecer y la p99 se dispara.
+ *
+ * Opciones:
+ * --base-url=http://localhost:8080
+ * --endpoint=nombre=[METODO ]/ruta?query     (repetible; {n} se sustituye por un contador
+ *                                            para esquivar caches, p. ej. la de facturas)
+ * --concurrency=8,16,32   --duration=30 (s por escalon)   --warmup=5 (s, no se mide)
+ * --timeout=120 (s por peticion)
+ *
+ * Las respuestas SSE se leen completas: la latencia es hasta el ultimo token.
+ */
+public class LoadDriver {
+
+    private record Endpoint(String nombre, String metodo, String ruta) {
+    }
+
+    /** Resultados de un endpoint en un escalon. */
+    private static final class Registro {
+        private long[] latencias = new long[1024];
+        private int cuenta;
+        private long ok;
+        private long rateLimited;
+        private long errores;
+
+        synchronized void exito(long nanos) {
+            if (cuenta == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cuenta * 2);
+            }
+            latencias[cuenta++] = nanos;
+            ok++;
+        }
+
+        synchronized void rateLimited() {
+            rateLimited++;
+        }
+
+        synchronized void error() {
+            errores++;
+        }
+    }
+
+    private static final Map<String, String> ENDPOINTS_POR_DEFECTO = new LinkedHashMap<>();
+
+    static {
+        ENDPOINTS_POR_DEFECTO.put("rag.ask", "/api/rag/ask?query=Quien%20es%20el%20CEO");
+        ENDPOINTS_POR_DEFECTO.put("rag.ask.stream", "/api/rag/ask/stream?query=Quien%20es%20el%20CEO");
+        ENDPOINTS_POR_DEFECTO.put("facturas.extraer",
+                "/api/v1/facturas/extraer?factura=Juan%20compro%20un%20mouse%20por%2050%20dolares%20{n}");
+        ENDPOINTS_POR_DEFECTO.put("manual.explain", "/api/v1/manual/explain?topic=java");
+    }
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Endpoint> endpoints;
+    private final Duration timeout;
+    private final AtomicLong contador = new AtomicLong();
+
+    LoadDriver(String baseUrl, List<Endpoint> endpoints, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.endpoints = endpoints;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Opciones opciones = new Opciones(args);
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String definicion : opciones.todos("endpoint")) {
+            int igual = definicion.indexOf('=');
+            endpoints.add(endpoint(definicion.substring(0, igual), definicion.substring(igual + 1)));
+        }
+        if (endpoints.isEmpty()) {
+            ENDPOINTS_POR_DEFECTO.forEach((nombre, ruta) -> endpoints.add(endpoint(nombre, ruta)));
+        }
+
+        LoadDriver driver = new LoadDriver(opciones.texto("base-url", "http://localhost:8080"), endpoints,
+                Duration.ofSeconds(opciones.entero("timeout", 120)));
+        Duration duracion = Duration.ofSeconds(opciones.entero("duration", 30));
+        Duration calentamiento = Duration.ofSeconds(opciones.entero("warmup", 5));
+
+        double throughputAnterior = 0;
+        for (String escalon : opciones.texto("concurrency", "8,16,32").split(",")) {
+            int clientes = Integer.parseInt(escalon.trim());
+            double throughput = driver.escalon(clientes, calentamiento, duracion);
+            if (throughputAnterior > 0 && throughput < throughputAnterior * 1.05) {
+                System.out.printf("-> El throughput casi no crecio (%.1f -> %.1f req/s): saturacion probable con %d clientes%n",
+                        throughputAnterior, throughput, clientes);
+            }
+            throughputAnterior = throughput;
+        }
+    }
+
+    private static Endpoint endpoint(String nombre, String definicion) {
+        String[] partes = definicion.trim().split("\\s+", 2);
+        return partes.length == 2 ? new Endpoint(nombre, partes[0], partes[1]) : new Endpoint(nombre, "GET", partes[0]);
+    }
+
+    /** Corre un escalon y devuelve el throughput total (req/s con respuesta 2xx). */
+    private double escalon(int clientes, Duration calentamiento, Duration duracion) throws InterruptedException {
+        Map<Endpoint, Registro> registros = new LinkedHashMap<>();
+        endpoints.forEach(e -> registros.put(e, new Registro()));
+
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + calentamiento.toNanos();
+        long fin = inicioMedicion + duracion.toNanos();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+
+        for (int c = 0; c < clientes; c++) {
+            int cliente = c;
+            Thread hilo = new Thread(() -> {
+                try {
+                    for (int i = cliente; System.nanoTime() < fin; i++) {
+                        Endpoint endpoint = endpoints.get(i % endpoints.size());
+                        peticion(endpoint, System.nanoTime() >= inicioMedicion ? registros.get(endpoint) : null);
+                    }
+                } finally {
+                    terminados.countDown();
+                }
+            }, "load-client-" + c);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        terminados.await();
+
+        double segundos = duracion.toNanos() / 1e9;
+        System.out.printf("%n== %d clientes, %d s (+%d s de calentamiento) ==%n",
+                clientes, duracion.toSeconds(), calentamiento.toSeconds());
+        System.out.printf("%-20s %8s %6s %6s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "429", "error", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        long totalOk = 0;
+        for (Map.Entry<Endpoint, Registro> entrada : registros.entrySet()) {
+            Registro r = entrada.getValue();
+            long[] latencias = Arrays.copyOf(r.latencias, r.cuenta);
+            Arrays.sort(latencias);
+            totalOk += r.ok;
+            System.out.printf("%-20s %8d %6d %6d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entrada.getKey().nombre(), r.ok, r.rateLimited, r.errores, r.ok / segundos,
+                    percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 0.999),
+                    latencias.length == 0 ? 0 : latencias[latencias.length - 1] / 1e6);
+        }
+        double throughput = totalOk / segundos;
+        System.out.printf("%-20s %8d %6s %6s %9.1f%n", "TOTAL", totalOk, "", "", throughput);
+        return throughput;
+    }
+
+    // registro == null durante el calentamiento
+    private void peticion(Endpoint endpoint, Registro registro) {
+        String ruta = endpoint.ruta().replace("{n}", String.valueOf(contador.incrementAndGet()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ruta))
+                .timeout(timeout)
+                .method(endpoint.metodo(), HttpRequest.BodyPublishers.noBody())
+                .build();
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<InputStream> respuesta = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream cuerpo = respuesta.body()) {
+                cuerpo.transferTo(OutputStream.nullOutputStream());
+            }
+            long nanos = System.nanoTime() - inicio;
+            if (registro == null) {
+                return;
+            }
+            int estado = respuesta.statusCode();
+            if (estado / 100 == 2) {
+                registro.exito(nanos);
+            } else if (estado == 429) {
+                registro.rateLimited();
+            } else {
+                registro.error();
+            }
+        } catch (IOException e) {
+            if (registro != null) {
+                registro.error();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+}
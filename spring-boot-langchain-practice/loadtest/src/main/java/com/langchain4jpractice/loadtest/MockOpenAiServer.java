@@ -0,0 +1,302 @@
+package com.langchain4jpractice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor que habla el protocolo chat-completions de OpenAI (con y sin streaming) para hacer
+ * pruebas de carga sin gastar API. Se apunta la app con:
+ *   langchain4j.open-ai.chat-model.base-url=http://localhost:8090/v1
+ *
+ * SIMULA:
+ * - Latencia: --latency (respuesta completa), --ttft y --token-interval (streaming), en ms.
+ * - Tokens de salida: --output-tokens. Si el request pide JSON Schema (response_format), la
+ *   respuesta es un JSON generado a partir del esquema (el extractor de facturas lo acepta).
+ * - Fallos: --error-rate (500), --rate-limit-rate (429 + Retry-After) y --max-concurrent
+ *   (429 cuando hay mas requests en vuelo, como el limite de un proveedor real).
+ *
+ * Distribuciones: fixed:V, uniform:MIN:MAX, lognormal:MEDIANA:SIGMA (ver Distribucion).
+ *
+ * Uso: java -cp target/loadtest.jar com.langchain4jpractice.loadtest.MockOpenAiServer --port=8090
+ */
+public class MockOpenAiServer {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Distribucion latencia;
+    private final Distribucion ttft;
+    private final Distribucion intervaloToken;
+    private final Distribucion tokensSalida;
+    private final double tasaError;
+    private final double tasaRateLimit;
+    private final Semaphore enVuelo;
+
+    private final AtomicLong atendidas = new AtomicLong();
+    private final AtomicLong rechazadas429 = new AtomicLong();
+    private final AtomicLong errores500 = new AtomicLong();
+    private final AtomicInteger activas = new AtomicInteger();
+
+    MockOpenAiServer(Opciones opciones) {
+        this.latencia = Distribucion.parse(opciones.texto("latency", "lognormal:800:0.4"));
+        this.ttft = Distribucion.parse(opciones.texto("ttft", "lognormal:300:0.4"));
+        this.intervaloToken = Distribucion.parse(opciones.texto("token-interval", "fixed:15"));
+        this.tokensSalida = Distribucion.parse(opciones.texto("output-tokens", "uniform:20:120"));
+        this.tasaError = opciones.decimal("error-rate", 0);
+        this.tasaRateLimit = opciones.decimal("rate-limit-rate", 0);
+        int maxConcurrentes = opciones.entero("max-concurrent", 0);
+        this.enVuelo = maxConcurrentes > 0 ? new Semaphore(maxConcurrentes) : null;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Opciones opciones = new Opciones(args);
+        int puerto = opciones.entero("port", 8090);
+        MockOpenAiServer mock = new MockOpenAiServer(opciones);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(puerto), 1024);
+        server.createContext("/v1/chat/completions", mock::atender);
+        server.createContext("/chat/completions", mock::atender);
+        AtomicInteger hilos = new AtomicInteger();
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread hilo = new Thread(r, "mock-openai-" + hilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }));
+        server.start();
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> System.out.printf(
+                "[mock] atendidas=%d activas=%d 429=%d 500=%d%n",
+                mock.atendidas.get(), mock.activas.get(), mock.rechazadas429.get(), mock.errores500.get()),
+                10, 10, TimeUnit.SECONDS);
+        System.out.printf("Mock OpenAI escuchando en http://localhost:%d/v1%n", puerto);
+    }
+
+    private void atender(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                responder(exchange, 405, error("Metodo no soportado", "invalid_request_error", null));
+                return;
+            }
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < tasaRateLimit) {
+                rechazar429(exchange);
+                return;
+            }
+            if (enVuelo != null && !enVuelo.tryAcquire()) {
+                rechazar429(exchange);
+                return;
+            }
+            activas.incrementAndGet();
+            try {
+                if (random.nextDouble() < tasaError) {
+                    errores500.incrementAndGet();
+                    dormir(latencia.muestraEntera());
+                    responder(exchange, 500, error("Error simulado del servidor", "server_error", null));
+                    return;
+                }
+                String modelo = request.path("model").asText("gpt-4o-mini");
+                String contenido = contenido(request);
+                int tokensEntrada = estimarTokens(request.path("messages").toString());
+                if (request.path("stream").asBoolean(false)) {
+                    stream(exchange, modelo, contenido, tokensEntrada);
+                } else {
+                    dormir(latencia.muestraEntera());
+                    responder(exchange, 200, completa(modelo, contenido, tokensEntrada));
+                }
+                atendidas.incrementAndGet();
+            } finally {
+                activas.decrementAndGet();
+                if (enVuelo != null) {
+                    enVuelo.release();
+                }
+            }
+        } catch (IOException e) {
+            // El cliente corto la conexion (p. ej. cancelo el stream): no es un error del mock
+        }
+    }
+
+    // ============================================
+    // RESPUESTAS
+    // ============================================
+
+    private ObjectNode completa(String modelo, String contenido, int tokensEntrada) {
+        ObjectNode respuesta = cabecera("chat.completion", modelo);
+        ObjectNode choice = respuesta.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", contenido);
+        choice.put("finish_reason", "stop");
+        uso(respuesta, tokensEntrada, estimarTokens(contenido));
+        return respuesta;
+    }
+
+    private void stream(HttpExchange exchange, String modelo, String contenido, int tokensEntrada) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String id = "chatcmpl-mock-" + UUID.randomUUID();
+
+        dormir(ttft.muestraEntera());
+        int tokens = 0;
+        // Trozos de ~4 caracteres: lo que suele ocupar un token
+        for (int i = 0; i < contenido.length(); i += 4) {
+            if (tokens++ > 0) {
+                dormir(intervaloToken.muestraEntera());
+            }
+            ObjectNode chunk = cabecera("chat.completion.chunk", modelo).put("id", id);
+            ObjectNode choice = chunk.putArray("choices").addObject();
+            choice.put("index", 0);
+            ObjectNode delta = choice.putObject("delta");
+            if (i == 0) {
+                delta.put("role", "assistant");
+            }
+            delta.put("content", contenido.substring(i, Math.min(contenido.length(), i + 4)));
+            choice.putNull("finish_reason");
+            evento(out, chunk.toString());
+        }
+
+        ObjectNode fin = cabecera("chat.completion.chunk", modelo).put("id", id);
+        ObjectNode choice = fin.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("delta");
+        choice.put("finish_reason", "stop");
+        evento(out, fin.toString());
+
+        ObjectNode uso = cabecera("chat.completion.chunk", modelo).put("id", id);
+        uso.putArray("choices");
+        uso(uso, tokensEntrada, tokens);
+        evento(out, uso.toString());
+        evento(out, "[DONE]");
+    }
+
+    private void rechazar429(HttpExchange exchange) throws IOException {
+        rechazadas429.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        responder(exchange, 429, error("Rate limit simulado", "requests", "rate_limit_exceeded"));
+    }
+
+    private ObjectNode cabecera(String tipo, String modelo) {
+        ObjectNode nodo = objectMapper.createObjectNode();
+        nodo.put("id", "chatcmpl-mock-" + UUID.randomUUID());
+        nodo.put("object", tipo);
+        nodo.put("created", System.currentTimeMillis() / 1000);
+        nodo.put("model", modelo);
+        return nodo;
+    }
+
+    private static void uso(ObjectNode nodo, int entrada, int salida) {
+        nodo.putObject("usage")
+                .put("prompt_tokens", entrada)
+                .put("completion_tokens", salida)
+                .put("total_tokens", entrada + salida);
+    }
+
+    private ObjectNode error(String mensaje, String tipo, String codigo) {
+        ObjectNode nodo = objectMapper.createObjectNode();
+        ObjectNode error = nodo.putObject("error");
+        error.put("message", mensaje);
+        error.put("type", tipo);
+        if (codigo != null) {
+            error.put("code", codigo);
+        }
+        return nodo;
+    }
+
+    // ============================================
+    // CONTENIDO
+    // ============================================
+
+    // Con JSON Schema: un JSON valido para el esquema. Sin esquema: 'n' palabras de relleno.
+    private String contenido(JsonNode request) {
+        JsonNode esquema = request.path("response_format").path("json_schema").path("schema");
+        if (!esquema.isMissingNode()) {
+            return valorPara(esquema).toString();
+        }
+        long tokens = tokensSalida.muestraEntera();
+        StringBuilder texto = new StringBuilder();
+        for (long i = 0; i < tokens; i++) {
+            texto.append(i == 0 ? "Lorem" : " ipsum");
+        }
+        return texto.toString();
+    }
+
+    private JsonNode valorPara(JsonNode esquema) {
+        return switch (tipo(esquema.path("type"))) {
+            case "object" -> {
+                ObjectNode objeto = objectMapper.createObjectNode();
+                Iterator<Map.Entry<String, JsonNode>> propiedades = esquema.path("properties").fields();
+                while (propiedades.hasNext()) {
+                    Map.Entry<String, JsonNode> propiedad = propiedades.next();
+                    objeto.set(propiedad.getKey(), valorPara(propiedad.getValue()));
+                }
+                yield objeto;
+            }
+            case "array" -> {
+                ArrayNode lista = objectMapper.createArrayNode();
+                lista.add(valorPara(esquema.path("items")));
+                yield lista;
+            }
+            case "number" -> objectMapper.getNodeFactory().numberNode(99.5);
+            case "integer" -> objectMapper.getNodeFactory().numberNode(1);
+            case "boolean" -> objectMapper.getNodeFactory().booleanNode(true);
+            default -> objectMapper.getNodeFactory().textNode("mock");
+        };
+    }
+
+    // "type" puede ser un texto o una lista con "null" (campos opcionales en modo strict)
+    private static String tipo(JsonNode tipo) {
+        if (tipo.isArray()) {
+            for (JsonNode opcion : tipo) {
+                if (!"null".equals(opcion.asText())) {
+                    return opcion.asText();
+                }
+            }
+        }
+        return tipo.asText("string");
+    }
+
+    private static int estimarTokens(String texto) {
+        return Math.max(1, texto.length() / 4);
+    }
+
+    // ============================================
+    // E/S
+    // ============================================
+
+    private void responder(HttpExchange exchange, int estado, JsonNode cuerpo) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(cuerpo);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(estado, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void evento(OutputStream out, String datos) throws IOException {
+        out.write(("data: " + datos + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
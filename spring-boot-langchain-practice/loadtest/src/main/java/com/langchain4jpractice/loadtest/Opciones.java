@@ -0,0 +1,39 @@
+package com.langchain4jpractice.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Argumentos de linea de comandos con la forma --clave=valor (una clave puede repetirse). */
+final class Opciones {
+
+    private final Map<String, List<String>> valores = new HashMap<>();
+
+    Opciones(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Argumento invalido '" + arg + "': usa --clave=valor");
+            }
+            int igual = arg.indexOf('=');
+            valores.computeIfAbsent(arg.substring(2, igual), k -> new ArrayList<>()).add(arg.substring(igual + 1));
+        }
+    }
+
+    String texto(String clave, String porDefecto) {
+        List<String> lista = valores.get(clave);
+        return lista == null ? porDefecto : lista.get(lista.size() - 1);
+    }
+
+    List<String> todos(String clave) {
+        return valores.getOrDefault(clave, List.of());
+    }
+
+    int entero(String clave, int porDefecto) {
+        return Integer.parseInt(texto(clave, String.valueOf(porDefecto)));
+    }
+
+    double decimal(String clave, double porDefecto) {
+        return Double.parseDouble(texto(clave, String.valueOf(porDefecto)));
+    }
+}
@@ -3,6 +3,7 @@ package com.langchain4jpractice.geminiExamples.config;
 /*import com.langchain4jpractice.geminiExamples.service.Assistant;
 import com.langchain4jpractice.geminiExamples.tools.CalculadoraTools;
 import com.langchain4jpractice.geminiExamples.tools.TrelloTools;
+import com.langchain4jpractice.llm.ParallelToolExecutor;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
@@ -18,7 +19,8 @@ public class AiConfig {
   /*  @Bean
     public Assistant assistant(@Value("${langchain4j.google-ai-gemini.chat-model.api-key}") String apiKey,
                                CalculadoraTools calculadoraTools,
-                               TrelloTools trelloTools) {
+                               TrelloTools trelloTools,
+                               ParallelToolExecutor parallelToolExecutor) {
         ChatModel gemini = GoogleAiGeminiChatModel.builder()
                 .apiKey(apiKey)
                 .modelName("gemini-3-pro-preview")
@@ -35,7 +37,9 @@ public class AiConfig {
         return AiServices.builder(Assistant.class)
                 .chatModel(gemini)
                 .chatMemory(memory)
-                .tools(calculadoraTools, trelloTools)
+                // Varias tools en una misma respuesta se ejecutan a la vez (timeout y métricas por tool)
+                .tools(parallelToolExecutor.herramientas(calculadoraTools, trelloTools))
+                .executeToolsConcurrently(parallelToolExecutor.executor())
                 .build();
     }*/
 }
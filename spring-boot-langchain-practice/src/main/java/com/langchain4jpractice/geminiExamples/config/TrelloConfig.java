@@ -0,0 +1,37 @@
+package com.langchain4jpractice.geminiExamples.config;
+
+import com.langchain4jpractice.geminiExamples.tools.TrelloClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cliente HTTP de Trello que usan las TrelloTools.
+ *
+ * Propiedades:
+ * - trello.base-url             (https://api.trello.com/1)
+ * - trello.http.connect-timeout (PT2S)  tiempo maximo para abrir la conexion
+ * - trello.http.read-timeout    (PT10S) tiempo maximo de cada peticion
+ * - trello.lists.ttl            (PT5M)  vida de la cache de listas del tablero
+ */
+@Slf4j
+@Configuration
+public class TrelloConfig {
+
+    @Bean
+    TrelloClient trelloClient(@Value("${trello.base-url:https://api.trello.com/1}") String baseUrl,
+                              @Value("${trello.api-key}") String apiKey,
+                              @Value("${trello.token}") String token,
+                              @Value("${trello.board-id}") String boardId,
+                              @Value("${trello.http.connect-timeout:PT2S}") Duration connectTimeout,
+                              @Value("${trello.http.read-timeout:PT10S}") Duration readTimeout,
+                              @Value("${trello.lists.ttl:PT5M}") Duration listsTtl) {
+        TrelloClient.Config config = new TrelloClient.Config(baseUrl, apiKey, token, boardId,
+                connectTimeout, readTimeout, listsTtl);
+        log.info("Cliente de Trello: {} (connect {}, read {}, listas TTL {})", baseUrl, connectTimeout, readTimeout, listsTtl);
+        return new TrelloClient(config);
+    }
+}
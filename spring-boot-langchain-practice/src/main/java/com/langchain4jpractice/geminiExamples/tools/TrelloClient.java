@@ -0,0 +1,172 @@
+package com.langchain4jpractice.geminiExamples.tools;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cliente HTTP de Trello compartido por las tools.
+ *
+ * POR QUE: cada tool que tarda suma su latencia al turno completo del agente. Antes se usaba un
+ * 'new RestTemplate()' (una conexion nueva por llamada, sin timeouts) y las listas del tablero
+ * se descargaban enteras en cada invocacion.
+ *
+ * IDEA:
+ * - UN HttpClient de la JDK para toda la app: mantiene las conexiones abiertas (keep-alive) y las
+ *   reutiliza, con timeout de conexion y de lectura (por request).
+ * - Listas del tablero en cache con TTL. Al expirar se revalidan con una peticion CONDICIONAL
+ *   (If-None-Match / If-Modified-Since): si Trello responde 304 no se baja el JSON otra vez.
+ * - Crear tarjetas es asincrono (sendAsync): varias tarjetas del mismo turno viajan a la vez.
+ */
+@Slf4j
+public class TrelloClient {
+
+    public record Config(String baseUrl, String apiKey, String token, String boardId,
+                         Duration connectTimeout, Duration readTimeout, Duration listsTtl) {
+    }
+
+    // Respuesta de /boards/{id}/lists + validadores para la peticion condicional
+    private record ListasCacheadas(String json, String etag, String lastModified, long fetchedAtMillis) {
+    }
+
+    private final Config config;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Object lockListas = new Object();
+    private volatile ListasCacheadas listas;
+
+    public TrelloClient(Config config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.connectTimeout())
+                .build();
+    }
+
+    /**
+     * JSON con las listas del tablero. Dentro del TTL no hay red; despues, revalidacion condicional.
+     */
+    public String obtenerListas() {
+        ListasCacheadas actual = listas;
+        if (vigente(actual)) {
+            return actual.json();
+        }
+        // Un solo hilo revalida; los demas esperan y reutilizan su resultado
+        synchronized (lockListas) {
+            actual = listas;
+            if (vigente(actual)) {
+                return actual.json();
+            }
+            listas = descargarListas(actual);
+            return listas.json();
+        }
+    }
+
+    /**
+     * Crea una tarjeta sin bloquear: el future se completa con el JSON de la tarjeta creada.
+     */
+    public CompletableFuture<String> crearTarjeta(String idLista, String titulo, String descripcion) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("idList", idLista);
+        body.put("name", titulo);
+        body.put("desc", descripcion);
+        body.put("pos", "top"); // Para que aparezca arriba de la lista
+
+        HttpRequest request = request("/cards")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new TrelloException(response.statusCode(), response.body());
+                    }
+                    return response.body();
+                });
+    }
+
+    public Duration readTimeout() {
+        return config.readTimeout();
+    }
+
+    // ============================================
+    // PETICION CONDICIONAL DE LISTAS
+    // ============================================
+
+    private ListasCacheadas descargarListas(ListasCacheadas anterior) {
+        HttpRequest.Builder builder = request("/boards/" + config.boardId() + "/lists").GET();
+        if (anterior != null && anterior.etag() != null) {
+            builder.header("If-None-Match", anterior.etag());
+        }
+        if (anterior != null && anterior.lastModified() != null) {
+            builder.header("If-Modified-Since", anterior.lastModified());
+        }
+
+        HttpResponse<String> response = enviar(builder.build());
+        long ahora = System.currentTimeMillis();
+        if (response.statusCode() == 304 && anterior != null) {
+            log.debug("Listas de Trello sin cambios (304), se renueva el TTL");
+            return new ListasCacheadas(anterior.json(), anterior.etag(), anterior.lastModified(), ahora);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new TrelloException(response.statusCode(), response.body());
+        }
+        return new ListasCacheadas(response.body(),
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null),
+                ahora);
+    }
+
+    private boolean vigente(ListasCacheadas cacheadas) {
+        return cacheadas != null
+                && System.currentTimeMillis() - cacheadas.fetchedAtMillis() < config.listsTtl().toMillis();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error de red con Trello: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando a Trello", e);
+        }
+    }
+
+    // key y token van en la query, como pide la API de Trello
+    private HttpRequest.Builder request(String path) {
+        String url = config.baseUrl() + path
+                + "?key=" + URLEncoder.encode(config.apiKey(), StandardCharsets.UTF_8)
+                + "&token=" + URLEncoder.encode(config.token(), StandardCharsets.UTF_8);
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(config.readTimeout())
+                .header("Accept", "application/json");
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el cuerpo para Trello", e);
+        }
+    }
+
+    /** Trello respondio con un codigo de error. */
+    public static class TrelloException extends RuntimeException {
+        public TrelloException(int status, String body) {
+            super("Trello respondio " + status + ": " + body);
+        }
+    }
+}
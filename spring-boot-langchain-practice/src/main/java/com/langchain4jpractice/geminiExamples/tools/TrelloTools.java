@@ -1,28 +1,30 @@
 package com.langchain4jpractice.geminiExamples.tools;
 
+import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class TrelloTools {
 
-    @Value("${trello.api-key}")
-    private String apiKey;
-
-    @Value("${trello.token}")
-    private String token;
+    /** Una tarjeta a crear (para la tool de varias tarjetas). */
+    public record TarjetaTrello(String idLista, String titulo, String descripcion) {
+    }
 
-    @Value("${trello.board-id}")
-    private String boardID;
+    // Cliente HTTP compartido (pool keep-alive, timeouts, cache de listas): ver TrelloConfig
+    private final TrelloClient trelloClient;
 
-    // Cliente HTTP de Spring
-    private final RestTemplate restTemplate = new RestTemplate();
+    public TrelloTools(TrelloClient trelloClient) {
+        this.trelloClient = trelloClient;
+    }
 
     @Tool("Crea una nueva tarjeta (card) en Trello en una lista específica")
     public String crearTarjeta(String idLista, String titulo, String descripcion) {
@@ -30,28 +32,8 @@ public class TrelloTools {
         System.out.println("   📝 Título: " + titulo);
         System.out.println("   📍 ID Lista: " + idLista);
 
-        // 1. Construimos la URL segura con parámetros
-        String url = UriComponentsBuilder.fromHttpUrl("https://api.trello.com/1/cards")
-                .queryParam("idList", idLista)
-                .queryParam("key", apiKey)
-                .queryParam("token", token)
-                .queryParam("name", titulo)
-                .queryParam("desc", descripcion)
-                .toUriString();
-
-        // 2. Creamos el "Cuerpo" del mensaje (El JSON)
-        // Usamos un Map para no crear una clase extra
-        Map<String, String> requestBody = new HashMap<>();
-        requestBody.put("name", titulo);
-        requestBody.put("desc", descripcion);
-        requestBody.put("pos", "top"); // Opcional: Para que aparezca arriba de la lista
-
-
         try {
-            // 2. Hacemos la petición POST
-            // Trello devuelve un JSON con la tarjeta creada, lo convertimos a String
-            String respuesta = restTemplate.postForObject(url, requestBody, String.class);
-
+            esperar(trelloClient.crearTarjeta(idLista, titulo, descripcion));
             return "¡Éxito! Tarjeta creada correctamente en Trello.";
 
         } catch (Exception e) {
@@ -60,20 +42,41 @@ public class TrelloTools {
         }
     }
 
+    /*
+     * Varias tarjetas en UNA invocacion: las peticiones salen todas a la vez y se espera a la
+     * mas lenta, en lugar de sumar la latencia de cada una al turno del agente.
+     */
+    @Tool("Crea varias tarjetas en Trello a la vez. Úsala en lugar de llamar crearTarjeta repetidas veces")
+    public String crearTarjetas(@P("Tarjetas a crear, cada una con idLista, titulo y descripcion") List<TarjetaTrello> tarjetas) {
+        System.out.println("🤖 IA: Creando " + tarjetas.size() + " tarjetas en Trello en paralelo...");
+
+        List<CompletableFuture<String>> envios = new ArrayList<>();
+        for (TarjetaTrello tarjeta : tarjetas) {
+            envios.add(trelloClient.crearTarjeta(tarjeta.idLista(), tarjeta.titulo(), tarjeta.descripcion()));
+        }
+
+        List<String> resultados = new ArrayList<>();
+        int creadas = 0;
+        for (int i = 0; i < envios.size(); i++) {
+            try {
+                esperar(envios.get(i));
+                creadas++;
+                resultados.add("✔ " + tarjetas.get(i).titulo());
+            } catch (Exception e) {
+                resultados.add("✘ " + tarjetas.get(i).titulo() + ": " + e.getMessage());
+            }
+        }
+        return "Tarjetas creadas: " + creadas + " de " + tarjetas.size() + "\n" + String.join("\n", resultados);
+    }
+
     @Tool("Obtiene todas las listas disponibles en el tablero actual con sus IDs")
     public String obtenerListasDelTablero() {
         System.out.println("🤖 IA: Buscando listas en el tablero...");
 
-        String url = UriComponentsBuilder
-                .fromHttpUrl("https://api.trello.com/1/boards/" + boardID + "/lists")
-                .queryParam("key", apiKey)
-                .queryParam("token", token)
-                .toUriString();
-
         try {
-            // Esto devuelve un JSON grande con todas las listas:
+            // JSON con todas las listas (cacheado con TTL en TrelloClient):
             // [{"id":"123", "name":"Pendientes"}, {"id":"456", "name":"Hecho"}]
-            String jsonRespuesta = restTemplate.getForObject(url, String.class);
+            String jsonRespuesta = trelloClient.obtenerListas();
 
             return "Aquí están las listas y sus IDs: " + jsonRespuesta;
 
@@ -81,4 +84,16 @@ public class TrelloTools {
             return "Error al leer las listas: " + e.getMessage();
         }
     }
-}
\ No newline at end of file
+
+    // El read-timeout ya corta cada peticion; este limite es una red de seguridad
+    private String esperar(CompletableFuture<String> envio) throws Exception {
+        try {
+            return envio.get(trelloClient.readTimeout().toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        } catch (TimeoutException e) {
+            envio.cancel(true);
+            throw new TimeoutException("Trello no respondio a tiempo");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.langchain4jpractice.llm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Permisos de un bulkhead: 'maxConcurrent' en vuelo, 'maxQueue' esperando como maximo
+ * 'maxWait'. Lo comparten ChatModelBulkhead y StreamingChatModelBulkhead.
+ *
+ * FLUJO de acquire():
+ * 1. Si hay permiso libre -> sigue enseguida.
+ * 2. Si no, entra a la cola de espera, salvo que ya haya maxQueue esperando -> rechazo inmediato.
+ * 3. Si pasa maxWait sin conseguir permiso -> rechazo.
+ * Un rechazo es una BulkheadFullException (HTTP 429): fallar rapido es mejor que acumular.
+ */
+@Slf4j
+public class Bulkhead {
+
+    public record Config(int maxConcurrent, int maxQueue, Duration maxWait, Duration retryAfter) {
+        public Config {
+            if (maxConcurrent < 1 || maxQueue < 0) {
+                throw new IllegalArgumentException("maxConcurrent debe ser >= 1 y maxQueue >= 0");
+            }
+        }
+    }
+
+    public record Stats(String name, int maxConcurrent, int active, int waiting, long rejected) {
+    }
+
+    private final String name;
+    private final Config config;
+    private final Semaphore permisos;
+    private final AtomicInteger esperando = new AtomicInteger();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    public Bulkhead(String name, Config config) {
+        this.name = name;
+        this.config = config;
+        this.permisos = new Semaphore(config.maxConcurrent(), true);
+    }
+
+    public void acquire() {
+        if (permisos.tryAcquire()) {
+            return;
+        }
+        if (esperando.incrementAndGet() > config.maxQueue()) {
+            esperando.decrementAndGet();
+            throw rechazar("cola de espera llena (" + config.maxQueue() + ")");
+        }
+        try {
+            if (!permisos.tryAcquire(config.maxWait().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw rechazar("sin permiso tras " + config.maxWait().toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rechazar("espera interrumpida");
+        } finally {
+            esperando.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permisos.release();
+    }
+
+    private BulkheadFullException rechazar(String motivo) {
+        rechazados.incrementAndGet();
+        log.debug("Bulkhead '{}' rechaza una llamada: {}", name, motivo);
+        return new BulkheadFullException(name, config.retryAfter(), motivo);
+    }
+
+    public Stats stats() {
+        return new Stats(name, config.maxConcurrent(), config.maxConcurrent() - permisos.availablePermits(),
+                esperando.get(), rechazados.get());
+    }
+}
@@ -0,0 +1,27 @@
+package com.langchain4jpractice.llm;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Traduce un bulkhead lleno a HTTP 429 Too Many Requests con Retry-After,
+ * para todos los controladores que llaman a un ChatModel.
+ */
+@RestControllerAdvice
+public class BulkheadExceptionHandler {
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, String>> bulkheadLleno(BulkheadFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(Map.of(
+                        "error", "Demasiadas solicitudes al modelo, intenta de nuevo en unos segundos",
+                        "model", e.getModelName()
+                ));
+    }
+}
@@ -0,0 +1,27 @@
+package com.langchain4jpractice.llm;
+
+import java.time.Duration;
+
+/**
+ * El bulkhead de un ChatModel esta lleno (todas las llamadas en curso y la cola de espera
+ * completa, o se agoto el tiempo de espera). BulkheadExceptionHandler la traduce a HTTP 429.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final String modelName;
+    private final Duration retryAfter;
+
+    public BulkheadFullException(String modelName, Duration retryAfter, String detalle) {
+        super("ChatModel '" + modelName + "' saturado: " + detalle);
+        this.modelName = modelName;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
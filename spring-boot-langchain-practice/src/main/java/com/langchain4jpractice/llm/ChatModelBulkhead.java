@@ -0,0 +1,69 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulkhead (mamparo) alrededor de un ChatModel: limita cuantas llamadas a la IA hay en vuelo.
+ *
+ * POR QUE: sin limite, los requests lentos llegarian a OpenAI a la vez (rate limits, memoria,
+ * costos) y ocuparian todos los hilos de Tomcat, incluso los de endpoints que no usan la IA.
+ * El bulkhead pone el limite donde importa: en el modelo, no en el servidor HTTP.
+ *
+ * La espera por un permiso (ver Bulkhead) bloquea el hilo del request; por eso max-wait es
+ * corto por defecto (PT0.5S) y lo que no entra recibe un 429 enseguida.
+ */
+public class ChatModelBulkhead implements ChatModel {
+
+    private final ChatModel delegate;
+    private final Bulkhead bulkhead;
+
+    public ChatModelBulkhead(ChatModel delegate, String name, Bulkhead.Config config) {
+        this.delegate = delegate;
+        this.bulkhead = new Bulkhead(name, config);
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        bulkhead.acquire();
+        try {
+            return delegate.chat(chatRequest);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public Bulkhead.Stats stats() {
+        return bulkhead.stats();
+    }
+
+    // El resto se delega tal cual: AiServices consulta parametros y capacidades del modelo real
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
@@ -0,0 +1,125 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatModelListener que convierte cada llamada a la IA en metricas Micrometer.
+ *
+ * METRICAS (todas con tags 'model' y 'endpoint'):
+ * - llm.requests              Timer con histograma de latencia (+ tag 'outcome': success/error)
+ * - llm.tokens                Counter de tokens (+ tag 'type': input/output)
+ * - llm.cost                  Counter del costo estimado en USD (ver LlmPriceTable)
+ * - llm.time.to.first.token   Timer de streaming (lo registra StreamingChatModelFirstTokenTimer)
+ *
+ * ENDPOINT: onRequest corre en el hilo que llamo al modelo, asi que se toma el patron del
+ * endpoint HTTP en curso (p. ej. /api/rag/ask). Las llamadas fuera de un request (lotes,
+ * ingesta) llevan endpoint="background".
+ */
+public class ChatModelMetricsListener implements ChatModelListener {
+
+    static final String SIN_ENDPOINT = "background";
+
+    private static final String INICIO = "llm.metrics.start";
+    private static final String ENDPOINT = "llm.metrics.endpoint";
+
+    private final MeterRegistry registry;
+    private final LlmPriceTable precios;
+
+    public ChatModelMetricsListener(MeterRegistry registry, LlmPriceTable precios) {
+        this.registry = registry;
+        this.precios = precios;
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext context) {
+        context.attributes().put(INICIO, System.nanoTime());
+        context.attributes().put(ENDPOINT, endpointActual());
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext context) {
+        String modelo = modelo(context.chatRequest());
+        String endpoint = endpoint(context.attributes().get(ENDPOINT));
+        registrarLatencia(context.attributes().get(INICIO), modelo, endpoint, "success");
+
+        TokenUsage uso = context.chatResponse().tokenUsage();
+        if (uso != null) {
+            contarTokens(modelo, endpoint, "input", uso.inputTokenCount());
+            contarTokens(modelo, endpoint, "output", uso.outputTokenCount());
+            Counter.builder("llm.cost")
+                    .description("Costo estimado de las llamadas a la IA")
+                    .baseUnit("usd")
+                    .tag("model", modelo)
+                    .tag("endpoint", endpoint)
+                    .register(registry)
+                    .increment(precios.cost(modelo, uso));
+        }
+    }
+
+    @Override
+    public void onError(ChatModelErrorContext context) {
+        registrarLatencia(context.attributes().get(INICIO), modelo(context.chatRequest()),
+                endpoint(context.attributes().get(ENDPOINT)), "error");
+    }
+
+    private void registrarLatencia(Object inicio, String modelo, String endpoint, String resultado) {
+        if (!(inicio instanceof Long nanos)) {
+            return;
+        }
+        Timer.builder("llm.requests")
+                .description("Latencia de las llamadas a la IA")
+                .publishPercentileHistogram()
+                .tag("model", modelo)
+                .tag("endpoint", endpoint)
+                .tag("outcome", resultado)
+                .register(registry)
+                .record(System.nanoTime() - nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void contarTokens(String modelo, String endpoint, String tipo, Integer cuenta) {
+        if (cuenta == null) {
+            return;
+        }
+        Counter.builder("llm.tokens")
+                .description("Tokens consumidos por las llamadas a la IA")
+                .tag("model", modelo)
+                .tag("endpoint", endpoint)
+                .tag("type", tipo)
+                .register(registry)
+                .increment(cuenta);
+    }
+
+    static String modelo(ChatRequest request) {
+        String modelo = request == null ? null : request.modelName();
+        return modelo == null ? "unknown" : modelo;
+    }
+
+    /** Patron del endpoint HTTP que esta atendiendo este hilo, o "background". */
+    static String endpointActual() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos instanceof ServletRequestAttributes servlet) {
+            Object patron = servlet.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            // Sin patron (p. ej. un 404) no usamos la URI: cada URL distinta seria una serie nueva
+            return patron != null ? patron.toString() : "unmatched";
+        }
+        return SIN_ENDPOINT;
+    }
+
+    private static String endpoint(Object valor) {
+        return valor == null ? SIN_ENDPOINT : valor.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Single-flight alrededor de un ChatModel: si llegan a la vez varias peticiones IDENTICAS
+ * (misma clave), solo la primera ("lider") llama al proveedor y las demas esperan su respuesta.
+ *
+ * POR QUE: en un pico, cientos de usuarios piden /api/v1/manual/explain?topic=Java a la vez.
+ * Sin esto son cientos de llamadas iguales contra un upstream con rate limit; con esto, una.
+ * No es una cache: en cuanto la llamada termina, la siguiente peticion vuelve al proveedor.
+ *
+ * CLAVE: la decide 'clave' (ver Config.key en LlmExecutionConfig). Por defecto, el ChatRequest
+ * completo (mensajes + parametros).
+ *
+ * TEMPERATURA: con temperatura alta cada respuesta es distinta a proposito. Las peticiones con
+ * temperatura efectiva mayor que 'maxTemperature' no se agrupan.
+ *
+ * METRICA: llm.coalescing.requests{model, result=leader|coalesced|bypassed}.
+ */
+public class CoalescingChatModel implements ChatModel {
+
+    public record Stats(String name, long leaders, long coalesced, long bypassed) {
+    }
+
+    private final ChatModel delegate;
+    private final String name;
+    private final Function<ChatRequest, Object> clave;
+    private final double maxTemperature;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final ConcurrentHashMap<Object, CompletableFuture<ChatResponse>> enVuelo = new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    public CoalescingChatModel(ChatModel delegate, String name, Function<ChatRequest, Object> clave,
+                               double maxTemperature, ObjectProvider<MeterRegistry> registry) {
+        this.delegate = delegate;
+        this.name = name;
+        this.clave = clave;
+        this.maxTemperature = maxTemperature;
+        this.registry = registry;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        if (temperatura(chatRequest) > maxTemperature) {
+            contar(bypassed, "bypassed");
+            return delegate.chat(chatRequest);
+        }
+
+        Object key = clave.apply(chatRequest);
+        CompletableFuture<ChatResponse> nuevo = new CompletableFuture<>();
+        CompletableFuture<ChatResponse> existente = enVuelo.putIfAbsent(key, nuevo);
+        if (existente != null) {
+            contar(coalesced, "coalesced");
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                // Mismo error que recibio el lider (p. ej. BulkheadFullException -> 429)
+                if (e.getCause() instanceof RuntimeException causa) {
+                    throw causa;
+                }
+                throw e;
+            }
+        }
+
+        contar(leaders, "leader");
+        try {
+            ChatResponse respuesta = delegate.chat(chatRequest);
+            nuevo.complete(respuesta);
+            return respuesta;
+        } catch (RuntimeException e) {
+            nuevo.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(key, nuevo);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(name, leaders.sum(), coalesced.sum(), bypassed.sum());
+    }
+
+    // Temperatura del request o, si no trae, la por defecto del modelo (sin ninguna: 0)
+    private double temperatura(ChatRequest chatRequest) {
+        Double temperatura = chatRequest.temperature();
+        if (temperatura == null && delegate.defaultRequestParameters() != null) {
+            temperatura = delegate.defaultRequestParameters().temperature();
+        }
+        return temperatura == null ? 0 : temperatura;
+    }
+
+    private void contar(LongAdder contador, String resultado) {
+        contador.increment();
+        MeterRegistry meterRegistry = registry.getIfAvailable();
+        if (meterRegistry != null) {
+            Counter.builder("llm.coalescing.requests")
+                    .description("Peticiones al modelo por resultado del single-flight")
+                    .tag("model", name)
+                    .tag("result", resultado)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+}
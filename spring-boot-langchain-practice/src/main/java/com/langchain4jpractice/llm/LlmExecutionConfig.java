@@ -0,0 +1,174 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ejecucion de las llamadas a la IA: un bulkhead por cada bean ChatModel.
+ *
+ * HILOS: el proyecto compila y corre sobre Java 17, asi que Tomcat atiende con su pool de hilos
+ * de plataforma (spring.threads.virtual.enabled no tiene efecto; executionModeReport lo avisa).
+ *
+ * BULKHEAD: para que unas pocas respuestas lentas de OpenAI no se lleven todo el pool, cada
+ * ChatModel se envuelve en un ChatModelBulkhead (y cada StreamingChatModel en un
+ * StreamingChatModelBulkhead). Propiedades (globales o por nombre de bean, p. ej. llm.bulkhead.chatModel.*):
+ * - llm.bulkhead.enabled          (true)
+ * - llm.bulkhead.max-concurrent   (64)    llamadas en vuelo
+ * - llm.bulkhead.max-queue        (256)   requests esperando permiso
+ * - llm.bulkhead.max-wait         (PT0.5S) espera maxima antes de rechazar: corta, porque el
+ *                                          request espera bloqueando un hilo de Tomcat
+ * - llm.bulkhead.retry-after      (PT1S)  valor del header Retry-After del 429
+ *
+ * ORDEN DE LOS DECORADORES: este BeanPostProcessor es Ordered (ORDEN_BULKHEAD) y corre antes
+ * que el del time-to-first-token (LlmMetricsConfig.ORDEN_PRIMER_TOKEN), asi que un streaming
+ * queda FirstTokenTimer -> Bulkhead -> modelo: la metrica incluye la espera en la cola del
+ * bulkhead, que es lo que ve el cliente.
+ *
+ * SINGLE-FLIGHT: por fuera del bulkhead, cada ChatModel se envuelve ademas en un
+ * CoalescingChatModel (las peticiones identicas en vuelo esperan a la primera y no ocupan
+ * permisos). Propiedades (globales o llm.coalescing.<bean>.*):
+ * - llm.coalescing.enabled         (true)
+ * - llm.coalescing.key             (full)  full = mensajes + parametros; messages = mensajes + modelo
+ * - llm.coalescing.max-temperature (0.0)   por encima no se agrupa (respuestas distintas a proposito)
+ * Con ese default el single-flight esta INACTIVO en este repo: todos los ChatModel corren con
+ * temperatura > 0. Se activa por bean, p. ej. llm.coalescing.chatModel.max-temperature=1.0.
+ *
+ * TOOLS: ParallelToolExecutor ejecuta a la vez las tools que el modelo pide en una misma respuesta.
+ * - llm.tools.max-concurrent (16)    tools ejecutandose a la vez
+ * - llm.tools.timeout        (PT30S) timeout por defecto de cada tool
+ * - llm.tools.timeouts       ()      por tool: "crearTarjeta:PT10S,sumar:PT1S"
+ */
+@Slf4j
+@Configuration
+public class LlmExecutionConfig {
+
+    private static final String PREFIJO = "llm.bulkhead.";
+    private static final String PREFIJO_COALESCING = "llm.coalescing.";
+
+    /** Menor = envuelve primero = queda mas cerca del modelo. */
+    static final int ORDEN_BULKHEAD = Ordered.LOWEST_PRECEDENCE - 100;
+
+    // static: un BeanPostProcessor debe crearse antes que el resto de beans de la configuracion.
+    // El tipo de retorno es el concreto: Spring decide si es Ordered mirando la firma del @Bean
+    @Bean
+    static BulkheadPostProcessor chatModelBulkheadPostProcessor(Environment environment,
+                                                            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BulkheadPostProcessor(environment, meterRegistry);
+    }
+
+    record BulkheadPostProcessor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            boolean esModelo = bean instanceof ChatModel || bean instanceof StreamingChatModel;
+            if (!esModelo || bean instanceof ChatModelBulkhead || bean instanceof StreamingChatModelBulkhead
+                    || bean instanceof CoalescingChatModel) {
+                return bean;
+            }
+            Object modelo = conBulkhead(environment, bean, beanName);
+            // Orden: Coalescing -> Bulkhead -> modelo. Los que esperan al lider no toman permiso
+            return modelo instanceof ChatModel chatModel
+                    ? conCoalescing(environment, meterRegistry, chatModel, beanName)
+                    : modelo;
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDEN_BULKHEAD;
+        }
+    }
+
+    private static Object conBulkhead(Environment environment, Object bean, String beanName) {
+        if (!propiedad(environment, PREFIJO, beanName, "enabled", Boolean.class, true)) {
+            return bean;
+        }
+        Bulkhead.Config config = new Bulkhead.Config(
+                propiedad(environment, PREFIJO, beanName, "max-concurrent", Integer.class, 64),
+                propiedad(environment, PREFIJO, beanName, "max-queue", Integer.class, 256),
+                propiedad(environment, PREFIJO, beanName, "max-wait", Duration.class, Duration.ofMillis(500)),
+                propiedad(environment, PREFIJO, beanName, "retry-after", Duration.class, Duration.ofSeconds(1)));
+        log.info("Bulkhead para el modelo '{}': {}", beanName, config);
+        return bean instanceof ChatModel chatModel
+                ? new ChatModelBulkhead(chatModel, beanName, config)
+                : new StreamingChatModelBulkhead((StreamingChatModel) bean, beanName, config);
+    }
+
+    private static ChatModel conCoalescing(Environment environment, ObjectProvider<MeterRegistry> meterRegistry,
+                                           ChatModel chatModel, String beanName) {
+        if (!propiedad(environment, PREFIJO_COALESCING, beanName, "enabled", Boolean.class, true)) {
+            return chatModel;
+        }
+        String key = propiedad(environment, PREFIJO_COALESCING, beanName, "key", String.class, "full");
+        // Default 0.0: solo se agrupan peticiones deterministas. Con temperatura > 0 cada usuario
+        // espera SU respuesta aleatoria; compartirla es opt-in por bean (max-temperature mas alto)
+        double maxTemperature = propiedad(environment, PREFIJO_COALESCING, beanName, "max-temperature", Double.class, 0.0);
+        log.info("Single-flight para el modelo '{}': key={}, max-temperature={}", beanName, key, maxTemperature);
+        return new CoalescingChatModel(chatModel, beanName, clave(key), maxTemperature, meterRegistry);
+    }
+
+    // full: ChatRequest.equals (mensajes + todos los parametros). messages: solo mensajes + modelo
+    static Function<ChatRequest, Object> clave(String key) {
+        return switch (key) {
+            case "full" -> request -> request;
+            case "messages" -> request -> List.of(request.messages(), String.valueOf(request.modelName()));
+            default -> throw new IllegalArgumentException("llm.coalescing.key desconocida: " + key + " (full | messages)");
+        };
+    }
+
+    // Primero <prefijo><bean>.<clave>, luego <prefijo><clave>, luego el default
+    private static <T> T propiedad(Environment environment, String prefijo, String beanName, String clave,
+                                   Class<T> tipo, T porDefecto) {
+        T especifica = environment.getProperty(prefijo + beanName + "." + clave, tipo);
+        return especifica != null ? especifica : environment.getProperty(prefijo + clave, tipo, porDefecto);
+    }
+
+    @Bean
+    ParallelToolExecutor parallelToolExecutor(@Value("${llm.tools.max-concurrent:16}") int maxConcurrent,
+                                              @Value("${llm.tools.timeout:PT30S}") Duration timeout,
+                                              @Value("${llm.tools.timeouts:}") String timeouts,
+                                              ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Duration> porTool = new LinkedHashMap<>();
+        for (String entrada : timeouts.split(",")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            String[] partes = entrada.trim().split(":");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("llm.tools.timeouts mal formado (tool:PT10S): " + entrada);
+            }
+            porTool.put(partes[0].trim(), Duration.parse(partes[1].trim()));
+        }
+        log.info("Tools en paralelo: max {} a la vez, timeout {} (por tool: {})", maxConcurrent, timeout, porTool);
+        return new ParallelToolExecutor(new ParallelToolExecutor.Config(maxConcurrent, timeout, porTool), meterRegistry);
+    }
+
+    @Bean
+    ApplicationRunner executionModeReport(@Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales) {
+        return args -> {
+            int java = Runtime.version().feature();
+            if (hilosVirtuales && java < 21) {
+                log.warn("spring.threads.virtual.enabled=true pero la JVM es Java {}: se usan hilos de plataforma", java);
+            } else {
+                log.info("Requests atendidos con hilos {} (Java {})", hilosVirtuales ? "virtuales" : "de plataforma", java);
+            }
+        };
+    }
+}
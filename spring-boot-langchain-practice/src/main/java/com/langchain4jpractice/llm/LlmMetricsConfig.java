@@ -0,0 +1,69 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.Ordered;
+
+/**
+ * Metricas de las llamadas a la IA, exportadas por Actuator en /actuator/prometheus.
+ *
+ * - ChatModelMetricsListener: latencia, tokens y costo. Se registra en el builder de cada
+ *   modelo con .listeners(List.of(chatModelMetricsListener)).
+ * - StreamingChatModelFirstTokenTimer: time-to-first-token, envuelve cada StreamingChatModel.
+ *   Su BeanPostProcessor corre DESPUES del de los bulkheads (ORDEN_PRIMER_TOKEN), asi que queda
+ *   por fuera: la metrica incluye la espera por un permiso del bulkhead.
+ * - LlmPriceTable: precios por modelo (llm.metrics.prices, USD por 1M tokens).
+ *
+ * llm-metrics.properties expone los endpoints de Actuator; application.properties puede
+ * sobrescribirlo.
+ */
+@Slf4j
+@Configuration
+@PropertySource("classpath:llm-metrics.properties")
+public class LlmMetricsConfig {
+
+    static final int ORDEN_PRIMER_TOKEN = LlmExecutionConfig.ORDEN_BULKHEAD + 1;
+
+    @Bean
+    public LlmPriceTable llmPriceTable(@Value("${llm.metrics.prices:gpt-4o-mini:0.15:0.60,gpt-4o:2.50:10.00}") String precios) {
+        LlmPriceTable tabla = LlmPriceTable.parse(precios);
+        log.info("Tabla de precios de la IA (USD / 1M tokens): {}", precios);
+        return tabla;
+    }
+
+    @Bean
+    public ChatModelMetricsListener chatModelMetricsListener(MeterRegistry registry, LlmPriceTable llmPriceTable) {
+        return new ChatModelMetricsListener(registry, llmPriceTable);
+    }
+
+    // static: igual que el de los bulkheads, debe existir antes que los modelos (y con el tipo
+    // concreto como retorno, para que Spring vea el Ordered)
+    @Bean
+    static FirstTokenTimerPostProcessor firstTokenTimerPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new FirstTokenTimerPostProcessor(registry);
+    }
+
+    record FirstTokenTimerPostProcessor(ObjectProvider<MeterRegistry> registry)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof StreamingChatModel modelo && !(bean instanceof StreamingChatModelFirstTokenTimer)) {
+                return new StreamingChatModelFirstTokenTimer(modelo, registry);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDEN_PRIMER_TOKEN;
+        }
+    }
+}
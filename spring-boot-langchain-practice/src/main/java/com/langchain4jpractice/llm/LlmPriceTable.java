@@ -0,0 +1,74 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tabla de precios por modelo, en USD por 1M de tokens (entrada y salida).
+ *
+ * Se configura con una sola propiedad, p. ej.:
+ *   llm.metrics.prices=gpt-4o-mini:0.15:0.60,gpt-4o:2.50:10.00
+ *
+ * El modelo se busca por el prefijo MAS LARGO: "gpt-4o-mini-2024-07-18" usa el precio de
+ * "gpt-4o-mini" y no el de "gpt-4o". Un modelo sin precio cuesta 0 (y se ve en las metricas).
+ */
+public class LlmPriceTable {
+
+    public record Price(double inputPerMillion, double outputPerMillion) {
+    }
+
+    private final Map<String, Price> precios;
+
+    public LlmPriceTable(Map<String, Price> precios) {
+        // Ordenados de prefijo mas largo a mas corto para que gane el mas especifico
+        Map<String, Price> ordenados = new LinkedHashMap<>();
+        precios.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, Price> e) -> e.getKey().length()).reversed())
+                .forEach(e -> ordenados.put(e.getKey(), e.getValue()));
+        this.precios = ordenados;
+    }
+
+    public static LlmPriceTable parse(String definicion) {
+        Map<String, Price> precios = new LinkedHashMap<>();
+        for (String entrada : definicion.split(",")) {
+            if (entrada.isBlank()) {
+                continue;
+            }
+            String[] partes = entrada.trim().split(":");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Precio invalido '" + entrada + "': se espera modelo:entrada:salida");
+            }
+            precios.put(partes[0], new Price(Double.parseDouble(partes[1]), Double.parseDouble(partes[2])));
+        }
+        return new LlmPriceTable(precios);
+    }
+
+    /** Costo estimado en USD de una llamada; 0 si el modelo no tiene precio o no hay uso. */
+    public double cost(String modelName, TokenUsage usage) {
+        if (modelName == null || usage == null) {
+            return 0;
+        }
+        Price precio = priceOf(modelName);
+        if (precio == null) {
+            return 0;
+        }
+        return tokens(usage.inputTokenCount()) * precio.inputPerMillion() / 1_000_000
+                + tokens(usage.outputTokenCount()) * precio.outputPerMillion() / 1_000_000;
+    }
+
+    public Price priceOf(String modelName) {
+        for (Map.Entry<String, Price> entrada : precios.entrySet()) {
+            if (modelName.startsWith(entrada.getKey())) {
+                return entrada.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static long tokens(Integer cuenta) {
+        return cuenta == null ? 0 : cuenta;
+    }
+}
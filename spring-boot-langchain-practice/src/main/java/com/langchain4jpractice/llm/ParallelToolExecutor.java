@@ -0,0 +1,187 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.invocation.InvocationContext;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutionResult;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecucion de tools en paralelo: cuando el modelo pide varias tools en UNA respuesta
+ * (dos 'sumar', tres 'crearTarjeta'...), se ejecutan a la vez y el turno del agente tarda
+ * lo que la tool mas lenta, no la suma de todas.
+ *
+ * FLUJO (con AiServices):
+ *   .tools(parallelToolExecutor.herramientas(calculadoraTools, trelloTools))
+ *   .executeToolsConcurrently(parallelToolExecutor.executor())
+ *
+ * - executor(): una tarea por tool en hilos virtuales (Java 21+; en 17, hilos de plataforma),
+ *   con un maximo de 'maxConcurrent' tools ejecutandose a la vez.
+ * - herramientas(): envuelve cada metodo @Tool con su timeout y su metrica
+ *   llm.tool.duration{tool, outcome=ok|error|timeout}.
+ * - ORDEN: AiServices devuelve los resultados al modelo en el orden de las peticiones,
+ *   aunque terminen en otro orden.
+ */
+@Slf4j
+public class ParallelToolExecutor implements AutoCloseable {
+
+    /**
+     * @param timeouts timeout por nombre de tool; las que no esten usan 'timeout'
+     */
+    public record Config(int maxConcurrent, Duration timeout, Map<String, Duration> timeouts) {
+    }
+
+    /** La tool no respondio dentro de su timeout (el modelo recibe este mensaje como resultado). */
+    public static class ToolTimeoutException extends RuntimeException {
+        public ToolTimeoutException(String tool, Duration timeout) {
+            super("La herramienta '" + tool + "' no respondio en " + timeout.toMillis() + " ms");
+        }
+    }
+
+    private final Config config;
+    private final ObjectProvider<MeterRegistry> registry;
+    private final ExecutorService hilos = hilosVirtualesOPlataforma();
+    private final Semaphore permisos;
+
+    public ParallelToolExecutor(Config config, ObjectProvider<MeterRegistry> registry) {
+        this.config = config;
+        this.registry = registry;
+        this.permisos = new Semaphore(config.maxConcurrent());
+    }
+
+    /** Executor para AiServices.executeToolsConcurrently: el permiso se espera dentro del hilo. */
+    public Executor executor() {
+        return tarea -> hilos.execute(() -> {
+            permisos.acquireUninterruptibly();
+            try {
+                tarea.run();
+            } finally {
+                permisos.release();
+            }
+        });
+    }
+
+    /** Especificacion + ejecutor (con timeout y metrica) de cada metodo @Tool de los objetos. */
+    public Map<ToolSpecification, ToolExecutor> herramientas(Object... objetosConTools) {
+        Map<ToolSpecification, ToolExecutor> herramientas = new LinkedHashMap<>();
+        for (Object objeto : objetosConTools) {
+            for (Method metodo : objeto.getClass().getDeclaredMethods()) {
+                if (metodo.isAnnotationPresent(Tool.class)) {
+                    ToolSpecification especificacion = ToolSpecifications.toolSpecificationFrom(metodo);
+                    herramientas.put(especificacion, new ConLimites(especificacion.name(),
+                            new DefaultToolExecutor(objeto, metodo)));
+                }
+            }
+        }
+        return herramientas;
+    }
+
+    Duration timeout(String tool) {
+        return config.timeouts().getOrDefault(tool, config.timeout());
+    }
+
+    @Override
+    public void close() {
+        hilos.shutdownNow();
+    }
+
+    // ============================================
+    // DECORADOR: TIMEOUT + METRICA POR TOOL
+    // ============================================
+
+    private class ConLimites implements ToolExecutor {
+
+        private final String nombre;
+        private final ToolExecutor delegate;
+
+        ConLimites(String nombre, ToolExecutor delegate) {
+            this.nombre = nombre;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String execute(ToolExecutionRequest request, Object memoryId) {
+            return conLimites(() -> delegate.execute(request, memoryId));
+        }
+
+        @Override
+        public ToolExecutionResult executeWithContext(ToolExecutionRequest request, InvocationContext context) {
+            return conLimites(() -> delegate.executeWithContext(request, context));
+        }
+
+        // La tool corre en su propio hilo para poder cortarla (interrupt) al vencer el timeout
+        private <T> T conLimites(Supplier<T> llamada) {
+            Duration timeout = timeout(nombre);
+            long inicio = System.nanoTime();
+            String outcome = "error";
+            Future<T> ejecucion = hilos.submit(llamada::get);
+            try {
+                T resultado = ejecucion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                outcome = "ok";
+                return resultado;
+            } catch (TimeoutException e) {
+                outcome = "timeout";
+                ejecucion.cancel(true);
+                log.warn("Tool '{}' cancelada tras {} ms", nombre, timeout.toMillis());
+                throw new ToolTimeoutException(nombre, timeout);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException causa ? causa : new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                ejecucion.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrumpido esperando la tool " + nombre, e);
+            } finally {
+                registrar(outcome, System.nanoTime() - inicio);
+            }
+        }
+
+        private void registrar(String outcome, long nanos) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            if (meterRegistry != null) {
+                Timer.builder("llm.tool.duration")
+                        .description("Duracion de cada ejecucion de una tool")
+                        .tag("tool", nombre)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Hilos virtuales si la JVM los tiene (21+); el proyecto compila para 17, de ahi la reflexion
+    private static ExecutorService hilosVirtualesOPlataforma() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newCachedThreadPool(tarea -> {
+                Thread hilo = new Thread(tarea, "tool-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulkhead para un StreamingChatModel: igual que ChatModelBulkhead, pero el permiso no se
+ * devuelve al retornar chat() (el stream sigue en otro hilo) sino cuando el stream termina:
+ * respuesta completa, error o cancelacion desde el handler.
+ */
+public class StreamingChatModelBulkhead implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final Bulkhead bulkhead;
+
+    public StreamingChatModelBulkhead(StreamingChatModel delegate, String name, Bulkhead.Config config) {
+        this.delegate = delegate;
+        this.bulkhead = new Bulkhead(name, config);
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        bulkhead.acquire();
+        AtomicBoolean liberado = new AtomicBoolean();
+        Runnable liberar = () -> {
+            if (liberado.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        };
+        try {
+            delegate.chat(chatRequest, new LiberarAlTerminar(handler, liberar));
+        } catch (RuntimeException e) {
+            liberar.run();
+            throw e;
+        }
+    }
+
+    public Bulkhead.Stats stats() {
+        return bulkhead.stats();
+    }
+
+    StreamingChatModel delegate() {
+        return delegate;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    // Reenvia todo al handler original y devuelve el permiso al terminar o cancelar
+    private record LiberarAlTerminar(StreamingChatResponseHandler handler, Runnable liberar)
+            implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+            handler.onPartialResponse(partialResponse, new PartialResponseContext(envolver(context.streamingHandle())));
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking, PartialThinkingContext context) {
+            handler.onPartialThinking(partialThinking, new PartialThinkingContext(envolver(context.streamingHandle())));
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall, PartialToolCallContext context) {
+            handler.onPartialToolCall(partialToolCall, new PartialToolCallContext(envolver(context.streamingHandle())));
+        }
+
+        @Override
+        public void onCompleteToolCall(CompleteToolCall completeToolCall) {
+            handler.onCompleteToolCall(completeToolCall);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            liberar.run();
+            handler.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            liberar.run();
+            handler.onError(error);
+        }
+
+        private StreamingHandle envolver(StreamingHandle original) {
+            return new StreamingHandle() {
+                @Override
+                public void cancel() {
+                    original.cancel();
+                    liberar.run();
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return original.isCancelled();
+                }
+            };
+        }
+    }
+}
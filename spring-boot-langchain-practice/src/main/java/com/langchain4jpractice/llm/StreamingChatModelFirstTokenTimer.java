@@ -0,0 +1,125 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mide el time-to-first-token (llm.time.to.first.token) de un StreamingChatModel.
+ *
+ * Un ChatModelListener solo ve el request y la respuesta completa; el primer token solo lo ve
+ * el handler. Por eso este decorador envuelve el handler y registra el tiempo desde chat()
+ * hasta el primer fragmento (texto, razonamiento o tool call). Mismos tags que
+ * ChatModelMetricsListener: 'model' y 'endpoint'.
+ */
+public class StreamingChatModelFirstTokenTimer implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    // El registry se resuelve en la primera llamada: los BeanPostProcessor se crean antes que él
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public StreamingChatModelFirstTokenTimer(StreamingChatModel delegate, ObjectProvider<MeterRegistry> registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        String modelo = chatRequest.modelName() != null ? chatRequest.modelName()
+                : delegate.defaultRequestParameters().modelName();
+        Timer timer = Timer.builder("llm.time.to.first.token")
+                .description("Tiempo hasta el primer token de una respuesta en streaming")
+                .publishPercentileHistogram()
+                .tag("model", modelo == null ? "unknown" : modelo)
+                .tag("endpoint", ChatModelMetricsListener.endpointActual())
+                .register(registry.getObject());
+        delegate.chat(chatRequest, new MedirPrimerToken(handler, timer, System.nanoTime(), new AtomicBoolean()));
+    }
+
+    StreamingChatModel delegate() {
+        return delegate;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private record MedirPrimerToken(StreamingChatResponseHandler handler, Timer timer, long inicio, AtomicBoolean medido)
+            implements StreamingChatResponseHandler {
+
+        @Override
+        public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+            primerToken();
+            handler.onPartialResponse(partialResponse, context);
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking, PartialThinkingContext context) {
+            primerToken();
+            handler.onPartialThinking(partialThinking, context);
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall, PartialToolCallContext context) {
+            primerToken();
+            handler.onPartialToolCall(partialToolCall, context);
+        }
+
+        @Override
+        public void onCompleteToolCall(CompleteToolCall completeToolCall) {
+            handler.onCompleteToolCall(completeToolCall);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse completeResponse) {
+            handler.onCompleteResponse(completeResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            handler.onError(error);
+        }
+
+        private void primerToken() {
+            if (medido.compareAndSet(false, true)) {
+                timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
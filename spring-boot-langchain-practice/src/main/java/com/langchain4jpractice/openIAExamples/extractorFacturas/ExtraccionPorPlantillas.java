@@ -0,0 +1,80 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Etapa previa a la IA: prueba las plantillas registradas y se queda con la de mayor confianza.
+ *
+ * POR QUE: muchas facturas vienen de unos pocos proveedores con formato fijo. Para esas, una
+ * regex tarda microsegundos y no cuesta tokens; la IA solo se usa cuando ninguna plantilla
+ * alcanza el 'umbral' de confianza.
+ *
+ * Lleva contadores de intentos y aciertos (en total y por plantilla) para medir el hit rate.
+ */
+@Slf4j
+public class ExtraccionPorPlantillas {
+
+    public record Stats(long intentos, long aciertos, double umbral, Map<String, Long> aciertosPorPlantilla) {
+        public double hitRate() {
+            return intentos == 0 ? 0 : (double) aciertos / intentos;
+        }
+    }
+
+    private final List<PlantillaFactura> plantillas;
+    private final double umbral;
+    private final LongAdder intentos = new LongAdder();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder[] aciertosPorPlantilla;
+
+    public ExtraccionPorPlantillas(List<PlantillaFactura> plantillas, double umbral) {
+        this.plantillas = List.copyOf(plantillas);
+        this.umbral = umbral;
+        this.aciertosPorPlantilla = new LongAdder[this.plantillas.size()];
+        for (int i = 0; i < aciertosPorPlantilla.length; i++) {
+            aciertosPorPlantilla[i] = new LongAdder();
+        }
+        log.info("Plantillas de factura registradas: {} (umbral {})",
+                this.plantillas.stream().map(PlantillaFactura::nombre).toList(), umbral);
+    }
+
+    /**
+     * @return la factura de la mejor plantilla si supera el umbral; null para usar la IA
+     */
+    public FacturaDTO extraer(String texto) {
+        if (plantillas.isEmpty()) {
+            return null;
+        }
+        intentos.increment();
+
+        PlantillaFactura.Coincidencia mejor = null;
+        int indiceMejor = -1;
+        for (int i = 0; i < plantillas.size(); i++) {
+            PlantillaFactura.Coincidencia coincidencia = plantillas.get(i).extraer(texto);
+            if (coincidencia != null && (mejor == null || coincidencia.confianza() > mejor.confianza())) {
+                mejor = coincidencia;
+                indiceMejor = i;
+            }
+        }
+
+        if (mejor == null || mejor.confianza() < umbral) {
+            return null;
+        }
+        aciertos.increment();
+        aciertosPorPlantilla[indiceMejor].increment();
+        log.debug("Factura extraida con la plantilla '{}' (confianza {})", plantillas.get(indiceMejor).nombre(), mejor.confianza());
+        return mejor.factura();
+    }
+
+    public Stats stats() {
+        Map<String, Long> porPlantilla = new LinkedHashMap<>();
+        for (int i = 0; i < plantillas.size(); i++) {
+            porPlantilla.put(plantillas.get(i).nombre(), aciertosPorPlantilla[i].sum());
+        }
+        return new Stats(intentos.sum(), aciertos.sum(), umbral, porPlantilla);
+    }
+}
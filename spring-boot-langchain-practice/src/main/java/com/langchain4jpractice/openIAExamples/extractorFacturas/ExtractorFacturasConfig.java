@@ -1,20 +1,36 @@
 package com.langchain4jpractice.openIAExamples.extractorFacturas;
 
+import com.langchain4jpractice.llm.ChatModelMetricsListener;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 @Configuration
 public class ExtractorFacturasConfig {
 
     @Value("${langchain4j.open-ai.chat-model.api-key}")
     private String TOKEN_API;
 
+    // Apuntar a otro servidor compatible con OpenAI, p. ej. el mock de loadtest/ (http://localhost:8090/v1)
+    @Value("${langchain4j.open-ai.chat-model.base-url:https://api.openai.com/v1}")
+    private String BASE_URL;
+
+    // Ambos modelos llevan el listener de metricas (latencia, tokens y costo en /actuator/prometheus)
     @Bean
-    public ChatModel chatModel() {
+    public ChatModel chatModel(ChatModelMetricsListener chatModelMetricsListener) {
 
         ChatRequestParameters defaultParameters = ChatRequestParameters.builder()
                 .modelName("gpt-4o-mini")
@@ -24,11 +40,80 @@ public class ExtractorFacturasConfig {
 
         return OpenAiChatModel.builder()
                 .apiKey(TOKEN_API)
+                .baseUrl(BASE_URL)
                 .defaultRequestParameters(defaultParameters)
                 .maxTokens(500)
                 .temperature(1.2)
                 .logRequests(true)
+                .listeners(List.of(chatModelMetricsListener))
+                .build();
+    }
+
+    // Misma configuracion que chatModel(), pero entrega la respuesta token a token.
+    // La usan los endpoints SSE (/api/rag/ask/stream y /api/v1/manual/explain/stream)
+    // y ExtractorFacturasService, que pide salida con JSON Schema estricto (strictJsonSchema).
+    @Bean
+    public StreamingChatModel streamingChatModel(ChatModelMetricsListener chatModelMetricsListener) {
+
+        ChatRequestParameters defaultParameters = ChatRequestParameters.builder()
+                .modelName("gpt-4o-mini")
+                .temperature(0.7)
+                .maxOutputTokens(100)
+                .build();
+
+        return OpenAiStreamingChatModel.builder()
+                .apiKey(TOKEN_API)
+                .baseUrl(BASE_URL)
+                .defaultRequestParameters(defaultParameters)
+                .maxTokens(500)
+                .temperature(1.2)
+                .strictJsonSchema(true)
+                .logRequests(true)
+                .listeners(List.of(chatModelMetricsListener))
                 .build();
     }
-}
 
+    // Cache de FacturaDTO por hash del texto normalizado (ver FacturaCache).
+    // Con 'directory' vacio solo hay nivel en memoria; con un directorio sobrevive reinicios.
+    @Bean
+    public FacturaCache facturaCache(@Value("${facturas.cache.max-entries:10000}") int maxEntries,
+                                     @Value("${facturas.cache.ttl:PT24H}") Duration ttl,
+                                     @Value("${facturas.cache.directory:}") String directorio) {
+        return new FacturaCache(new FacturaCache.Config(maxEntries, ttl,
+                directorio.isBlank() ? null : Paths.get(directorio)));
+    }
+
+    // Plantilla del formato "Factura #N emitida a X el 15 de enero de 2024. Productos adquiridos: ...
+    // Total a pagar: $...". Cada proveedor con formato fijo se anade como otro bean PlantillaFactura.
+    @Bean
+    public PlantillaFactura plantillaFacturaEmitida() {
+        return new PlantillaRegex("factura-emitida", "emitida a",
+                Pattern.compile("Factura\\s*#?\\S*\\s+emitida a (?<cliente>[^\\n]+?) el (?<fecha>\\d{1,2} de \\p{L}+ de \\d{4})\\."
+                        + "\\s*Productos adquiridos:\\s*(?<productos>[^\\n]+?)\\.\\s*"
+                        + "Total a pagar:\\s*\\$?\\s*(?<total>[\\d.,]+)"),
+                new DateTimeFormatterBuilder().parseCaseInsensitive()
+                        .appendPattern("d 'de' MMMM 'de' yyyy")
+                        // es-MX: meses en espanol e importes con punto decimal ("$1250.00"),
+                        // como los escribe este formato. El Locale tambien decide como leer el total
+                        .toFormatter(Locale.forLanguageTag("es-MX")));
+    }
+
+    // Etapa previa a la IA: si una plantilla alcanza 'umbral' de confianza no se llama al modelo
+    @Bean
+    public ExtraccionPorPlantillas extraccionPorPlantillas(ObjectProvider<PlantillaFactura> plantillas,
+                                                           @Value("${facturas.plantillas.enabled:true}") boolean enabled,
+                                                           @Value("${facturas.plantillas.umbral:1.0}") double umbral) {
+        return new ExtraccionPorPlantillas(enabled ? plantillas.orderedStream().toList() : List.of(), umbral);
+    }
+
+    // Extraccion masiva (POST /api/v1/facturas/batch): 'parallelism' facturas a la vez,
+    // resultados de cada job guardados en 'directory' para poder reanudarlo.
+    @Bean(destroyMethod = "close")
+    public FacturasBatchService facturasBatchService(ExtractorFacturasService extractorFacturasService,
+                                                     @Value("${facturas.batch.parallelism:8}") int parallelism,
+                                                     @Value("${facturas.batch.max-attempts:3}") int maxAttempts,
+                                                     @Value("${facturas.batch.directory:data/facturas-jobs}") String directorio) {
+        return new FacturasBatchService(extractorFacturasService,
+                new FacturasBatchService.Config(parallelism, maxAttempts, Paths.get(directorio)));
+    }
+}
@@ -1,57 +1,188 @@
 package com.langchain4jpractice.openIAExamples.extractorFacturas;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.langchain4jpractice.openIAExamples.extractorFacturas.FacturaJsonStreamParser.FacturaMalformadaException;
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import dev.langchain4j.service.output.JsonSchemas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Extrae una FacturaDTO de texto libre.
+ *
+ * 1. SALIDA ESTRUCTURADA: el request lleva un JSON Schema derivado de FacturaDTO
+ *    (ResponseFormat JSON). El proveedor garantiza un JSON con esa forma: sin prosa,
+ *    sin bloques ```json``` que limpiar.
+ * 2. STREAMING + PARSEO INCREMENTAL: la respuesta llega token a token y FacturaJsonStreamParser
+ *    la valida sobre la marcha. Si se desvia del esquema, se cancela el stream enseguida
+ *    (no se pagan los tokens restantes) y se reintenta una vez.
+ *
+ * 0. PLANTILLAS: antes de todo se prueban las plantillas deterministas de proveedores
+ *    conocidos (ExtraccionPorPlantillas). Si una alcanza el umbral, no se llama a la IA.
+ * 3. CACHE: el resultado se guarda en FacturaCache por el hash del texto normalizado. La
+ *    misma factura pedida desde /extraer, /detalles, /resumen o un lote no vuelve a la IA,
+ *    y las peticiones simultaneas con el mismo texto comparten una sola llamada.
+ *
+ * Si tras los reintentos la salida sigue siendo invalida, retorna null (como antes).
+ */
+@Slf4j
 @Service
 public class ExtractorFacturasService {
 
-    private final ChatModel chatModel;
+    private static final JsonSchema ESQUEMA_FACTURA = JsonSchemas.jsonSchemaFrom(FacturaDTO.class)
+            .orElseThrow(() -> new IllegalStateException("No se pudo derivar el JSON Schema de FacturaDTO"));
+
+    private static final ResponseFormat FORMATO_FACTURA = ResponseFormat.builder()
+            .type(ResponseFormatType.JSON)
+            .jsonSchema(ESQUEMA_FACTURA)
+            .build();
+
+    private static final int MAX_INTENTOS = 2;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private final StreamingChatModel streamingChatModel;
+    private final FacturaCache facturaCache;
+    private final ExtraccionPorPlantillas plantillas;
     private final ObjectMapper objectMapper;
+    private final Duration timeout;
 
 
-    public ExtractorFacturasService(ChatModel chatModel) {
-        this.chatModel = chatModel;
+    @Autowired
+    public ExtractorFacturasService(StreamingChatModel streamingChatModel, FacturaCache facturaCache,
+                                    ExtraccionPorPlantillas plantillas) {
+        this(streamingChatModel, facturaCache, plantillas, TIMEOUT);
+    }
+
+    ExtractorFacturasService(StreamingChatModel streamingChatModel, FacturaCache facturaCache,
+                             ExtraccionPorPlantillas plantillas, Duration timeout) {
+        this.streamingChatModel = streamingChatModel;
+        this.facturaCache = facturaCache;
+        this.plantillas = plantillas;
         this.objectMapper = new ObjectMapper();
+        this.timeout = timeout;
     }
 
 
     public FacturaDTO analizarTexto(String textoSucio) {
-        // Construir el prompt para la IA
+        // Camino rapido: microsegundos y sin tokens si el formato es conocido
+        FacturaDTO porPlantilla = plantillas.extraer(textoSucio);
+        if (porPlantilla != null) {
+            return porPlantilla;
+        }
+        return facturaCache.get(textoSucio, () -> analizarConIA(textoSucio));
+    }
+
+    private FacturaDTO analizarConIA(String textoSucio) {
+        // El esquema ya define la estructura: el prompt solo describe la tarea
         String prompt = String.format(
-            "Analiza la informacion del texto: '%s' y extrae los datos en formato JSON con esta estructura exacta: " +
-            "{\"cliente\": \"nombre del cliente\", \"fecha\": \"fecha de la factura\", \"total\": monto numerico, \"productos\": [\"producto1\", \"producto2\"]}. " +
-            "Responde SOLO con el JSON, sin texto adicional.",
+            "Analiza la informacion del texto: '%s' y extrae el cliente, la fecha de la factura, " +
+            "el monto total (numerico) y la lista de productos.",
             textoSucio
         );
 
         ChatRequest request = ChatRequest.builder()
                 .messages(UserMessage.from(prompt))
+                .responseFormat(FORMATO_FACTURA)
                 .build();
 
-        // Llamar al modelo con el request (no con el texto directamente)
-        ChatResponse response = chatModel.chat(request);
+        for (int intento = 1; intento <= MAX_INTENTOS; intento++) {
+            try {
+                return extraer(request);
+            } catch (FacturaMalformadaException e) {
+                log.warn("Respuesta de IA invalida (intento {}/{}): {}", intento, MAX_INTENTOS, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private FacturaDTO extraer(ChatRequest request) {
+        FacturaJsonStreamParser parser = new FacturaJsonStreamParser(objectMapper);
+        CompletableFuture<FacturaDTO> resultado = new CompletableFuture<>();
+        // Handle del stream en curso, para poder cortarlo si vence el timeout
+        AtomicReference<StreamingHandle> stream = new AtomicReference<>();
+
+        streamingChatModel.chat(request, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+                stream.set(context.streamingHandle());
+                if (resultado.isDone()) {
+                    // Ya hubo resultado o vencio el timeout: nadie va a leer el resto
+                    context.streamingHandle().cancel();
+                    return;
+                }
+                try {
+                    parser.feed(partialResponse.text());
+                    if (parser.isComplete()) {
+                        // Ya tenemos el objeto completo: lo que venga despues sobra
+                        context.streamingHandle().cancel();
+                        resultado.complete(parser.finish());
+                    }
+                } catch (FacturaMalformadaException e) {
+                    // Abortamos en cuanto la salida es claramente invalida
+                    context.streamingHandle().cancel();
+                    resultado.completeExceptionally(e);
+                }
+            }
 
-        // Extraer el texto de la respuesta
-        String jsonRespuesta = response.aiMessage().text();
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                if (resultado.isDone()) {
+                    return;
+                }
+                try {
+                    // Algunos modelos no emiten parciales: parseamos la respuesta completa
+                    if (!parser.hasInput()) {
+                        parser.feed(completeResponse.aiMessage().text());
+                    }
+                    resultado.complete(parser.finish());
+                } catch (RuntimeException e) {
+                    resultado.completeExceptionally(e);
+                }
+            }
 
-        // Limpiar posibles caracteres de markdown (```json ... ```)
-        jsonRespuesta = jsonRespuesta.replaceAll("```json", "")
-                                    .replaceAll("```", "")
-                                    .trim();
+            @Override
+            public void onError(Throwable error) {
+                resultado.completeExceptionally(error);
+            }
+        });
 
         try {
-            // Parsear el JSON a FacturaDTO
-            return objectMapper.readValue(jsonRespuesta, FacturaDTO.class);
-        } catch (Exception e) {
-            // Si hay error de parsing, loguear y retornar null o lanzar excepcion
-            System.err.println("Error parseando respuesta de IA: " + e.getMessage());
-            System.err.println("Respuesta recibida: " + jsonRespuesta);
-            return null;
+            return resultado.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Fallo la extraccion de la factura", e.getCause());
+        } catch (TimeoutException e) {
+            // Sin cancelar, el stream seguiria consumiendo tokens y reteniendo el permiso del
+            // bulkhead. Si aun no llego ningun token, el primero que llegue lo corta (ver arriba).
+            resultado.cancel(false);
+            StreamingHandle handle = stream.get();
+            if (handle != null) {
+                handle.cancel();
+            }
+            throw new IllegalStateException("La IA no respondio en " + timeout.toSeconds() + " s", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Extraccion interrumpida", e);
         }
     }
 
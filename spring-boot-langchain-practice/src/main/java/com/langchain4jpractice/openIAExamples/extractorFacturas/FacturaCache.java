@@ -0,0 +1,227 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache de extracciones direccionada por CONTENIDO: la clave es el SHA-256 del texto de la
+ * factura normalizado (Unicode NFC, espacios colapsados, trim). La misma factura pedida por
+ * /extraer, /detalles y /resumen cuesta UNA sola llamada a la IA.
+ *
+ * NIVELES:
+ * - Memoria: LRU con 'maxEntries' y expiracion por 'ttl'.
+ * - Disco (opcional): un JSON por clave en 'directory'. Sobrevive reinicios; una entrada
+ *   leida del disco se promueve a memoria.
+ *
+ * SINGLE-FLIGHT: si llegan varias peticiones con la misma factura a la vez, solo la primera
+ * llama a la IA; las demas esperan ese mismo resultado.
+ *
+ * Los fallos (null) no se cachean: la siguiente peticion vuelve a intentarlo.
+ */
+@Slf4j
+public class FacturaCache {
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    public record Config(int maxEntries, Duration ttl, Path directory) {
+    }
+
+    public record Stats(long hits, long diskHits, long misses, long coalesced, int size, int maxEntries) {
+        public double hitRate() {
+            long total = hits + diskHits + misses + coalesced;
+            return total == 0 ? 0 : (double) (hits + diskHits + coalesced) / total;
+        }
+    }
+
+    private record Entrada(FacturaDTO factura, long createdAtMillis) {
+    }
+
+    private final Config config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LinkedHashMap<String, Entrada> memoria;
+    private final ConcurrentHashMap<String, CompletableFuture<FacturaDTO>> enCurso = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public FacturaCache(Config config) {
+        this.config = config;
+        this.memoria = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > FacturaCache.this.config.maxEntries();
+            }
+        };
+        if (config.directory() != null) {
+            try {
+                Files.createDirectories(config.directory());
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el directorio de la cache " + config.directory(), e);
+            }
+            purgarExpiradosEnDisco();
+        }
+    }
+
+    /**
+     * Devuelve la factura cacheada para ese texto o la calcula con 'extraer' (una sola vez
+     * aunque haya varias peticiones concurrentes con el mismo texto).
+     */
+    public FacturaDTO get(String textoFactura, Supplier<FacturaDTO> extraer) {
+        String clave = clave(textoFactura);
+
+        FacturaDTO cacheada = buscar(clave);
+        if (cacheada != null) {
+            return cacheada;
+        }
+
+        CompletableFuture<FacturaDTO> nuevo = new CompletableFuture<>();
+        CompletableFuture<FacturaDTO> existente = enCurso.putIfAbsent(clave, nuevo);
+        if (existente != null) {
+            coalesced.incrementAndGet();
+            return existente.join();
+        }
+
+        misses.incrementAndGet();
+        try {
+            FacturaDTO factura = extraer.get();
+            if (factura != null) {
+                guardar(clave, factura);
+            }
+            nuevo.complete(factura);
+            return factura;
+        } catch (RuntimeException e) {
+            nuevo.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, nuevo);
+        }
+    }
+
+    public Stats stats() {
+        synchronized (memoria) {
+            return new Stats(hits.get(), diskHits.get(), misses.get(), coalesced.get(), memoria.size(), config.maxEntries());
+        }
+    }
+
+    static String clave(String textoFactura) {
+        String normalizado = ESPACIOS.matcher(Normalizer.normalize(textoFactura, Normalizer.Form.NFC))
+                .replaceAll(" ").trim();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalizado.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // ============================================
+    // NIVELES: MEMORIA -> DISCO
+    // ============================================
+
+    private FacturaDTO buscar(String clave) {
+        long ahora = System.currentTimeMillis();
+        synchronized (memoria) {
+            Entrada entrada = memoria.get(clave);
+            if (entrada != null) {
+                if (!expirada(entrada, ahora)) {
+                    hits.incrementAndGet();
+                    return entrada.factura();
+                }
+                memoria.remove(clave);
+            }
+        }
+
+        Entrada deDisco = leerDeDisco(clave, ahora);
+        if (deDisco == null) {
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (memoria) {
+            memoria.put(clave, deDisco);
+        }
+        return deDisco.factura();
+    }
+
+    private void guardar(String clave, FacturaDTO factura) {
+        Entrada entrada = new Entrada(factura, System.currentTimeMillis());
+        synchronized (memoria) {
+            memoria.put(clave, entrada);
+        }
+        if (config.directory() == null) {
+            return;
+        }
+        Path archivo = archivo(clave);
+        Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), entrada);
+            Files.move(tmp, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // El disco es una optimizacion: si falla, seguimos con la cache en memoria
+            log.warn("No se pudo guardar la factura {} en disco: {}", clave, e.getMessage());
+        }
+    }
+
+    private Entrada leerDeDisco(String clave, long ahora) {
+        if (config.directory() == null) {
+            return null;
+        }
+        Path archivo = archivo(clave);
+        if (!Files.exists(archivo)) {
+            return null;
+        }
+        try {
+            Entrada entrada = objectMapper.readValue(archivo.toFile(), Entrada.class);
+            if (expirada(entrada, ahora)) {
+                Files.deleteIfExists(archivo);
+                return null;
+            }
+            return entrada;
+        } catch (IOException e) {
+            log.warn("Entrada de cache ilegible, se ignora: {}", archivo);
+            return null;
+        }
+    }
+
+    private void purgarExpiradosEnDisco() {
+        long limite = System.currentTimeMillis() - config.ttl().toMillis();
+        try (Stream<Path> archivos = Files.list(config.directory())) {
+            for (Path archivo : archivos.toList()) {
+                if (Files.getLastModifiedTime(archivo).toMillis() < limite) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo purgar la cache en disco: {}", e.getMessage());
+        }
+    }
+
+    private boolean expirada(Entrada entrada, long ahora) {
+        return ahora - entrada.createdAtMillis() >= config.ttl().toMillis();
+    }
+
+    private Path archivo(String clave) {
+        return config.directory().resolve(clave + ".json");
+    }
+}
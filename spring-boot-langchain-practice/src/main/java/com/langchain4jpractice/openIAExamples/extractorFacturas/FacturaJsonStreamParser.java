@@ -0,0 +1,180 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parser JSON INCREMENTAL para la respuesta del modelo: se le pasan los tokens a medida que
+ * llegan (feed) y valida la estructura sobre la marcha con el parser no bloqueante de Jackson.
+ *
+ * POR QUE: si la respuesta empieza mal (texto en lugar de '{', un campo que no existe en
+ * FacturaDTO, un total que no es numero...) lo sabemos en los primeros tokens y podemos
+ * cancelar el stream, en lugar de pagar la respuesta entera para descartarla al final.
+ *
+ * Los campos esperados y su tipo se derivan de los componentes del record FacturaDTO.
+ */
+class FacturaJsonStreamParser {
+
+    /** La salida del modelo no cumple el esquema: no tiene sentido seguir leyendola. */
+    static class FacturaMalformadaException extends RuntimeException {
+        FacturaMalformadaException(String mensaje) {
+            super(mensaje);
+        }
+
+        FacturaMalformadaException(String mensaje, Throwable causa) {
+            super(mensaje, causa);
+        }
+    }
+
+    private enum Tipo { TEXTO, NUMERO, LISTA_TEXTO }
+
+    private static final Map<String, Tipo> CAMPOS = camposDe(FacturaDTO.class);
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final TokenBuffer buffer;
+
+    private int profundidad;
+    private Tipo campoActual;
+    private boolean completo;
+    private boolean recibioDatos;
+
+    FacturaJsonStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo crear el parser JSON no bloqueante", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.buffer = new TokenBuffer(parser);
+    }
+
+    /**
+     * Procesa un fragmento de la respuesta.
+     *
+     * @throws FacturaMalformadaException en cuanto la salida deja de ser una FacturaDTO valida
+     */
+    void feed(String fragmento) {
+        if (completo || fragmento == null || fragmento.isEmpty()) {
+            return;
+        }
+        recibioDatos = true;
+        byte[] bytes = fragmento.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            consumirTokens();
+        } catch (IOException e) {
+            throw new FacturaMalformadaException("JSON invalido: " + e.getMessage(), e);
+        }
+    }
+
+    /** true cuando ya se cerro el objeto raiz: el resto de la respuesta sobra. */
+    boolean isComplete() {
+        return completo;
+    }
+
+    /** true si ya llego algun fragmento por streaming. */
+    boolean hasInput() {
+        return recibioDatos;
+    }
+
+    /** Cierra la entrada y convierte lo leido en FacturaDTO. */
+    FacturaDTO finish() {
+        try {
+            if (!completo) {
+                feeder.endOfInput();
+                consumirTokens();
+            }
+            if (!completo) {
+                throw new FacturaMalformadaException("La respuesta termino antes de cerrar el JSON");
+            }
+            FacturaDTO dto = objectMapper.readValue(buffer.asParser(), FacturaDTO.class);
+            // "productos": null (o ausente) -> lista vacia: los endpoints usan productos().length
+            if (dto.productos() == null) {
+                dto = new FacturaDTO(dto.cliente(), dto.fecha(), dto.total(), new String[0]);
+            }
+            return dto;
+        } catch (IOException e) {
+            throw new FacturaMalformadaException("No se pudo convertir a FacturaDTO: " + e.getMessage(), e);
+        }
+    }
+
+    private void consumirTokens() throws IOException {
+        JsonToken token;
+        while (!completo && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            validar(token);
+            buffer.copyCurrentEvent(parser);
+        }
+    }
+
+    // Maquina de estados minima: raiz objeto -> campos conocidos -> valores del tipo esperado
+    private void validar(JsonToken token) throws IOException {
+        if (profundidad == 0) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new FacturaMalformadaException("Se esperaba '{' y llego " + token);
+            }
+            profundidad = 1;
+            return;
+        }
+        if (profundidad == 1) {
+            switch (token) {
+                case FIELD_NAME -> {
+                    campoActual = CAMPOS.get(parser.currentName());
+                    if (campoActual == null) {
+                        throw new FacturaMalformadaException("Campo desconocido: " + parser.currentName());
+                    }
+                }
+                case END_OBJECT -> completo = true;
+                case START_ARRAY -> {
+                    exigir(campoActual == Tipo.LISTA_TEXTO, token);
+                    profundidad = 2;
+                }
+                case VALUE_STRING -> exigir(campoActual == Tipo.TEXTO, token);
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> exigir(campoActual == Tipo.NUMERO, token);
+                case VALUE_NULL -> exigir(campoActual != Tipo.NUMERO, token);
+                default -> throw new FacturaMalformadaException("Valor inesperado: " + token);
+            }
+            return;
+        }
+        // profundidad 2: dentro de la lista de productos
+        if (token == JsonToken.END_ARRAY) {
+            profundidad = 1;
+        } else if (token != JsonToken.VALUE_STRING) {
+            throw new FacturaMalformadaException("Los productos deben ser texto y llego " + token);
+        }
+    }
+
+    private void exigir(boolean valido, JsonToken token) {
+        if (!valido) {
+            throw new FacturaMalformadaException("Tipo incorrecto (" + token + ") en un campo de tipo " + campoActual);
+        }
+    }
+
+    private static Map<String, Tipo> camposDe(Class<? extends Record> tipo) {
+        Map<String, Tipo> campos = new LinkedHashMap<>();
+        for (RecordComponent componente : tipo.getRecordComponents()) {
+            Class<?> clase = componente.getType();
+            if (clase == String.class) {
+                campos.put(componente.getName(), Tipo.TEXTO);
+            } else if (clase.isPrimitive() || Number.class.isAssignableFrom(clase)) {
+                campos.put(componente.getName(), Tipo.NUMERO);
+            } else if (clase == String[].class) {
+                campos.put(componente.getName(), Tipo.LISTA_TEXTO);
+            } else {
+                throw new IllegalStateException("Tipo no soportado en " + tipo.getSimpleName() + ": " + clase);
+            }
+        }
+        return campos;
+    }
+}
@@ -0,0 +1,323 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.langchain4jpractice.llm.BulkheadFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.DigestUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Extraccion MASIVA de facturas: una linea de entrada = una factura.
+ *
+ * FLUJO:
+ * 1. Se lee la entrada linea a linea (no se carga el archivo entero en memoria).
+ * 2. Cada factura se manda a un pool de 'parallelism' hilos (ExtractorFacturasService).
+ *    Una ventana (Semaphore) evita encolar miles de facturas a la vez.
+ * 3. Cada resultado se escribe en cuanto esta listo (orden de llegada, no de entrada) como una
+ *    linea NDJSON, al cliente y al archivo del job.
+ * 4. Al final se emite una linea de resumen.
+ *
+ * ERRORES POR ITEM: una factura que falla (o una linea NDJSON mal formada) produce
+ * {"status":"error"} y el resto sigue.
+ * Si el bulkhead del ChatModel esta lleno, se reintenta tras Retry-After (hasta maxAttempts).
+ *
+ * REANUDAR: el archivo del job guarda cada resultado con el indice y el hash de la factura.
+ * Si se repite la peticion con el mismo jobId, las facturas ya extraidas con exito (mismo
+ * indice y mismo texto) se devuelven del archivo sin volver a llamar a OpenAI.
+ */
+@Slf4j
+public class FacturasBatchService implements Closeable {
+
+    public record Config(int parallelism, int maxAttempts, Path jobsDirectory) {
+        public Config {
+            if (parallelism < 1 || maxAttempts < 1) {
+                throw new IllegalArgumentException("parallelism y maxAttempts deben ser >= 1");
+            }
+        }
+    }
+
+    public record Resumen(String jobId, int total, int ok, int errores, int reanudadas) {
+    }
+
+    /** Destino de cada linea NDJSON (p. ej. la respuesta HTTP). Lanza IOException si el cliente se fue. */
+    public interface Salida {
+        void escribir(String linea) throws IOException;
+    }
+
+    private static final Pattern JOB_ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final ExtractorFacturasService extractor;
+    private final Config config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService workers;
+    private final ExecutorService coordinadores;
+    // Un job solo puede correr una vez a la vez (dos peticiones escribirian el mismo archivo)
+    private final Set<String> jobsActivos = ConcurrentHashMap.newKeySet();
+
+    public FacturasBatchService(ExtractorFacturasService extractor, Config config) {
+        this.extractor = extractor;
+        this.config = config;
+        AtomicInteger contador = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(config.parallelism(), r -> {
+            Thread hilo = new Thread(r, "facturas-batch-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.coordinadores = Executors.newCachedThreadPool(r -> {
+            Thread hilo = new Thread(r, "facturas-batch-job");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    public static boolean isValidJobId(String jobId) {
+        return jobId != null && JOB_ID_VALIDO.matcher(jobId).matches();
+    }
+
+    public static String newJobId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /** Archivo NDJSON con los resultados del job (para consultarlo o reanudarlo). */
+    public Path jobFile(String jobId) {
+        return config.jobsDirectory().resolve(jobId + ".ndjson");
+    }
+
+    /**
+     * Procesa el lote en segundo plano. El futuro termina cuando todas las facturas tienen
+     * resultado (o el cliente se desconecto y ya no se lanzan mas).
+     *
+     * @throws IllegalStateException si ese jobId ya se esta procesando
+     */
+    public CompletableFuture<Resumen> procesar(String jobId, InputStream entrada, Salida salida) {
+        if (!jobsActivos.add(jobId)) {
+            throw new IllegalStateException("El job " + jobId + " ya se esta procesando");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+                return ejecutar(jobId, lector, salida);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el lote " + jobId, e);
+            } finally {
+                jobsActivos.remove(jobId);
+            }
+        }, coordinadores);
+    }
+
+    private Resumen ejecutar(String jobId, BufferedReader lector, Salida salida) throws IOException {
+        Files.createDirectories(config.jobsDirectory());
+        Map<Integer, JsonNode> previos = cargarResultados(jobId);
+        Semaphore ventana = new Semaphore(config.parallelism());
+        AtomicBoolean desconectado = new AtomicBoolean();
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errores = new AtomicInteger();
+        int total = 0;
+        int reanudadas = 0;
+
+        try (BufferedWriter job = Files.newBufferedWriter(jobFile(jobId), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            Object lock = new Object();
+            // Escribe al cliente y al archivo del job; serializado porque escriben varios workers
+            Salida emitir = linea -> {
+                synchronized (lock) {
+                    job.write(linea);
+                    job.newLine();
+                    job.flush();
+                    if (!desconectado.get()) {
+                        try {
+                            salida.escribir(linea);
+                        } catch (IOException | RuntimeException e) {
+                            desconectado.set(true);
+                        }
+                    }
+                }
+            };
+
+            try {
+                String linea;
+                while ((linea = lector.readLine()) != null && !desconectado.get()) {
+                    String factura;
+                    try {
+                        factura = extraerTexto(linea);
+                    } catch (JsonProcessingException e) {
+                        // Una linea NDJSON mal formada es un error de ESA factura, no del lote
+                        errores.incrementAndGet();
+                        emitir.escribir(errorDeLinea(jobId, total++, e));
+                        continue;
+                    }
+                    if (factura.isBlank()) {
+                        continue;
+                    }
+                    int indice = total++;
+                    String hash = DigestUtils.md5DigestAsHex(factura.getBytes(StandardCharsets.UTF_8));
+
+                    JsonNode previo = previos.get(indice);
+                    if (previo != null && hash.equals(previo.path("hash").asText())) {
+                        reanudadas++;
+                        ok.incrementAndGet();
+                        synchronized (lock) {
+                            try {
+                                salida.escribir(previo.toString());
+                            } catch (IOException | RuntimeException e) {
+                                desconectado.set(true);
+                            }
+                        }
+                        continue;
+                    }
+
+                    ventana.acquireUninterruptibly();
+                    workers.execute(() -> {
+                        try {
+                            emitir.escribir(extraer(jobId, indice, hash, factura, ok, errores));
+                        } catch (IOException e) {
+                            log.error("No se pudo guardar el resultado {} del job {}", indice, jobId, e);
+                        } finally {
+                            ventana.release();
+                        }
+                    });
+                }
+            } finally {
+                // Esperamos a que terminen las facturas en vuelo ANTES de cerrar el archivo del job,
+                // tambien si la lectura de la entrada fallo a mitad
+                ventana.acquireUninterruptibly(config.parallelism());
+            }
+
+            Resumen resumen = new Resumen(jobId, total, ok.get(), errores.get(), reanudadas);
+            if (!desconectado.get()) {
+                ObjectNode fin = objectMapper.createObjectNode();
+                fin.put("jobId", jobId);
+                fin.put("status", "done");
+                fin.put("total", resumen.total());
+                fin.put("ok", resumen.ok());
+                fin.put("errores", resumen.errores());
+                fin.put("reanudadas", resumen.reanudadas());
+                try {
+                    salida.escribir(fin.toString());
+                } catch (IOException e) {
+                    // el cliente se fue justo al final; el archivo del job ya tiene todo
+                }
+            } else {
+                log.info("Cliente desconectado del job {}: se puede reanudar con el mismo jobId", jobId);
+            }
+            log.info("Lote de facturas terminado: {}", resumen);
+            return resumen;
+        }
+    }
+
+    private String extraer(String jobId, int indice, String hash, String factura,
+                           AtomicInteger ok, AtomicInteger errores) {
+        ObjectNode resultado = objectMapper.createObjectNode();
+        resultado.put("jobId", jobId);
+        resultado.put("index", indice);
+        resultado.put("hash", hash);
+        try {
+            FacturaDTO dto = extraerConReintentos(factura);
+            if (dto == null) {
+                resultado.put("status", "error");
+                resultado.put("error", "No se pudo extraer la información de la factura");
+                errores.incrementAndGet();
+            } else {
+                resultado.put("status", "ok");
+                resultado.set("factura", objectMapper.valueToTree(dto));
+                ok.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            resultado.put("status", "error");
+            resultado.put("error", String.valueOf(e.getMessage()));
+            errores.incrementAndGet();
+        }
+        return resultado.toString();
+    }
+
+    private String errorDeLinea(String jobId, int indice, JsonProcessingException e) {
+        ObjectNode resultado = objectMapper.createObjectNode();
+        resultado.put("jobId", jobId);
+        resultado.put("index", indice);
+        resultado.put("status", "error");
+        resultado.put("error", "Linea NDJSON invalida: " + e.getOriginalMessage());
+        return resultado.toString();
+    }
+
+    // Un bulkhead lleno no es un error de la factura: esperamos Retry-After y reintentamos
+    private FacturaDTO extraerConReintentos(String factura) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return extractor.analizarTexto(factura);
+            } catch (BulkheadFullException e) {
+                if (intento >= config.maxAttempts()) {
+                    throw e;
+                }
+                try {
+                    Thread.sleep(e.getRetryAfter().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Acepta texto plano o NDJSON con {"factura": "..."}
+    private String extraerTexto(String linea) throws JsonProcessingException {
+        String limpia = linea.trim();
+        if (limpia.startsWith("{")) {
+            return objectMapper.readTree(limpia).path("factura").asText("");
+        }
+        return limpia;
+    }
+
+    // indice -> ultimo resultado OK guardado (los errores se reintentan al reanudar)
+    private Map<Integer, JsonNode> cargarResultados(String jobId) throws IOException {
+        Map<Integer, JsonNode> previos = new HashMap<>();
+        Path archivo = jobFile(jobId);
+        if (!Files.exists(archivo)) {
+            return previos;
+        }
+        try (Stream<String> lineas = Files.lines(archivo, StandardCharsets.UTF_8)) {
+            lineas.forEach(linea -> {
+                try {
+                    JsonNode nodo = objectMapper.readTree(linea);
+                    if ("ok".equals(nodo.path("status").asText())) {
+                        previos.put(nodo.path("index").asInt(), nodo);
+                    }
+                } catch (IOException e) {
+                    // linea a medias de una ejecucion interrumpida: se ignora
+                }
+            });
+        }
+        return previos;
+    }
+
+    @Override
+    public void close() {
+        coordinadores.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -1,11 +1,23 @@
 package com.langchain4jpractice.openIAExamples.extractorFacturas;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,10 +26,23 @@ import java.util.Map;
 @RequestMapping("/api/v1/facturas")
 public class FacturasController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // Un lote grande puede tardar; el timeout async por defecto (30 s) lo cortaria
+    private static final long BATCH_TIMEOUT_MILLIS = 3_600_000;
+
     private final ExtractorFacturasService extractorFacturasService;
+    private final FacturasBatchService facturasBatchService;
+    private final FacturaCache facturaCache;
+    private final ExtraccionPorPlantillas extraccionPorPlantillas;
 
-    public FacturasController(ExtractorFacturasService extractorFacturasService) {
+    public FacturasController(ExtractorFacturasService extractorFacturasService,
+                              FacturasBatchService facturasBatchService,
+                              FacturaCache facturaCache,
+                              ExtraccionPorPlantillas extraccionPorPlantillas) {
         this.extractorFacturasService = extractorFacturasService;
+        this.facturasBatchService = facturasBatchService;
+        this.facturaCache = facturaCache;
+        this.extraccionPorPlantillas = extraccionPorPlantillas;
     }
 
     /**
@@ -140,4 +165,103 @@ public class FacturasController {
 
         return ResponseEntity.ok(resumenFinanciero);
     }
+
+    /**
+     * Estadisticas de la cache de extracciones (aciertos en memoria/disco, fallos, coalescidas).
+     * Uso: GET /api/v1/facturas/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> estadisticasCache() {
+        FacturaCache.Stats stats = facturaCache.stats();
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("entradas", stats.size());
+        respuesta.put("maxEntradas", stats.maxEntries());
+        respuesta.put("hits", stats.hits());
+        respuesta.put("diskHits", stats.diskHits());
+        respuesta.put("misses", stats.misses());
+        respuesta.put("coalesced", stats.coalesced());
+        respuesta.put("hitRate", String.format("%.2f", stats.hitRate()));
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Hit rate de las plantillas deterministas (facturas resueltas sin llamar a la IA).
+     * Uso: GET /api/v1/facturas/plantillas
+     */
+    @GetMapping("/plantillas")
+    public ResponseEntity<Map<String, Object>> estadisticasPlantillas() {
+        ExtraccionPorPlantillas.Stats stats = extraccionPorPlantillas.stats();
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("intentos", stats.intentos());
+        respuesta.put("aciertos", stats.aciertos());
+        respuesta.put("umbral", stats.umbral());
+        respuesta.put("hitRate", String.format("%.2f", stats.hitRate()));
+        respuesta.put("aciertosPorPlantilla", stats.aciertosPorPlantilla());
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Endpoint masivo: una factura por linea (texto plano, o NDJSON con {"factura": "..."}).
+     * Responde NDJSON: una linea por factura en cuanto esta lista, y una linea final de resumen.
+     * El jobId va en el header X-Job-Id; repetir la peticion con ?jobId=... reanuda el lote.
+     *
+     * Uso: curl -N -X POST -F file=@facturas.txt http://localhost:8080/api/v1/facturas/batch
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> extraerLoteDesdeArchivo(@RequestParam("file") MultipartFile file,
+                                                     @RequestParam(required = false) String jobId) throws IOException {
+        return extraerLote(jobId, file.getInputStream());
+    }
+
+    /**
+     * Igual que el anterior, pero las facturas llegan en el cuerpo de la peticion.
+     * Uso: curl -N -X POST -H "Content-Type: text/plain" --data-binary @facturas.txt .../batch
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.TEXT_PLAIN_VALUE, "application/x-ndjson"})
+    public ResponseEntity<?> extraerLoteDesdeStream(InputStream body,
+                                                    @RequestParam(required = false) String jobId) {
+        return extraerLote(jobId, body);
+    }
+
+    /**
+     * Resultados guardados de un job (NDJSON), por ejemplo si el cliente se desconecto.
+     * Uso: GET /api/v1/facturas/batch/{jobId}
+     */
+    @GetMapping("/batch/{jobId}")
+    public ResponseEntity<Resource> resultadosDelLote(@PathVariable String jobId) {
+        if (!FacturasBatchService.isValidJobId(jobId)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path archivo = facturasBatchService.jobFile(jobId);
+        if (!Files.exists(archivo)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(new FileSystemResource(archivo));
+    }
+
+    private ResponseEntity<?> extraerLote(String jobId, InputStream entrada) {
+        if (jobId != null && !FacturasBatchService.isValidJobId(jobId)) {
+            return ResponseEntity.badRequest()
+                    .body("Error: jobId invalido (solo letras, numeros, '-' y '_')");
+        }
+        String id = jobId != null ? jobId : FacturasBatchService.newJobId();
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BATCH_TIMEOUT_MILLIS);
+        try {
+            facturasBatchService.procesar(id, entrada, linea -> emitter.send(linea + "\n"))
+                    .whenComplete((resumen, error) -> {
+                        if (error != null) {
+                            emitter.completeWithError(error);
+                        } else {
+                            emitter.complete();
+                        }
+                    });
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Error: " + e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .header("X-Job-Id", id)
+                .contentType(NDJSON)
+                .body(emitter);
+    }
 }
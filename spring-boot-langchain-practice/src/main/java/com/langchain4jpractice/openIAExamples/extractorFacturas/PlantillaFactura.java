@@ -0,0 +1,22 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+/**
+ * Extractor DETERMINISTA para un formato de factura conocido (un proveedor con plantilla fija).
+ *
+ * Cada plantilla registrada como bean se prueba antes de llamar a la IA (ver
+ * ExtraccionPorPlantillas). Debe ser barata cuando el texto NO es suyo: comprobar primero un
+ * ancla con indexOf y solo entonces ejecutar expresiones regulares.
+ */
+public interface PlantillaFactura {
+
+    /** Resultado de una plantilla: la factura y cuanto se fia de ella (0..1). */
+    record Coincidencia(FacturaDTO factura, double confianza) {
+    }
+
+    String nombre();
+
+    /**
+     * @return la factura extraida con su confianza, o null si el texto no es de esta plantilla
+     */
+    Coincidencia extraer(String texto);
+}
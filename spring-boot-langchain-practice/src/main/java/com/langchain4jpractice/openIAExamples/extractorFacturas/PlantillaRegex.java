@@ -0,0 +1,169 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla basada en una expresion regular PRECOMPILADA con grupos con nombre:
+ * 'cliente', 'fecha', 'total' y 'productos' (los que falten bajan la confianza).
+ *
+ * FLUJO:
+ * 1. Ancla: si el texto no contiene 'ancla' se descarta sin crear ningun objeto.
+ * 2. Regex: se ejecuta solo sobre los textos que pasan el ancla.
+ * 3. Normalizacion: la fecha se convierte a ISO con 'formatoFecha', el total a double y los
+ *    productos se separan por comas/';'/' y ', quitando el precio del final ("Mouse $50").
+ *    Solo se quita si lleva '$': "Monitor Samsung 27" o "Cable HDMI 2.1" conservan su numero,
+ *    y la coma de "$1,200" no parte el producto en dos.
+ *
+ * IMPORTES: los separadores de miles y decimales salen del MISMO Locale que 'formatoFecha'
+ * (es: "1.250,50"; es-MX: "1,250.50"). Un importe que no encaja con ese Locale ("1.250,50" en
+ * es-MX) o que es ambiguo (un solo separador seguido de 3 digitos: "1.250" puede ser 1250 o
+ * 1,25) cuenta como campo NO encontrado: es mejor que la IA lo lea a devolver un total errado.
+ *
+ * CONFIANZA: campos extraidos correctamente / 4.
+ */
+public class PlantillaRegex implements PlantillaFactura {
+
+    // Una coma entre dos digitos es separador de miles ("$1,200"), no de productos
+    private static final Pattern SEPARADOR_PRODUCTOS = Pattern.compile("\\s*(?:(?<!\\d),|,(?!\\d)|;|\\sy\\s)\\s*");
+    // '$' obligatorio: sin marca de moneda, un numero al final es parte del nombre ("Monitor 27")
+    private static final Pattern PRECIO_FINAL = Pattern.compile("\\s*\\$\\s*[\\d.,]+\\s*$");
+    private static final Pattern PUNTO_FINAL = Pattern.compile("\\.$");
+    private static final Pattern SOLO_IMPORTE = Pattern.compile("[\\d.,]+");
+    private static final int CAMPOS = 4;
+
+    private final String nombre;
+    private final String ancla;
+    private final Pattern patron;
+    private final DateTimeFormatter formatoFecha;
+    private final char separadorDecimal;
+    private final char separadorMiles;
+    // "1,250,000" con el separador de miles del Locale: grupos de 3 digitos
+    private final Pattern enteroAgrupado;
+
+    public PlantillaRegex(String nombre, String ancla, Pattern patron, DateTimeFormatter formatoFecha) {
+        this.nombre = nombre;
+        this.ancla = ancla;
+        this.patron = patron;
+        this.formatoFecha = formatoFecha;
+        DecimalFormatSymbols simbolos = DecimalFormatSymbols.getInstance(formatoFecha.getLocale());
+        this.separadorDecimal = simbolos.getDecimalSeparator();
+        this.separadorMiles = simbolos.getGroupingSeparator();
+        this.enteroAgrupado = Pattern.compile("\\d{1,3}(?:" + Pattern.quote(String.valueOf(separadorMiles)) + "\\d{3})+");
+    }
+
+    @Override
+    public String nombre() {
+        return nombre;
+    }
+
+    @Override
+    public Coincidencia extraer(String texto) {
+        if (texto.indexOf(ancla) < 0) {
+            return null;
+        }
+        Matcher m = patron.matcher(texto);
+        if (!m.find()) {
+            return null;
+        }
+
+        int encontrados = 0;
+        String cliente = grupo(m, "cliente");
+        if (cliente != null) {
+            encontrados++;
+        }
+        String fecha = fecha(grupo(m, "fecha"));
+        if (fecha != null) {
+            encontrados++;
+        }
+        double total = 0;
+        Double importe = importe(grupo(m, "total"));
+        if (importe != null) {
+            total = importe;
+            encontrados++;
+        }
+        String[] productos = productos(grupo(m, "productos"));
+        if (productos.length > 0) {
+            encontrados++;
+        }
+
+        return new Coincidencia(new FacturaDTO(cliente, fecha, total, productos), (double) encontrados / CAMPOS);
+    }
+
+    private String fecha(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(texto, formatoFecha).toString();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // null si el texto no es un importe valido en el Locale de la plantilla o si es ambiguo
+    Double importe(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String limpio = PUNTO_FINAL.matcher(texto).replaceFirst("");
+        if (!SOLO_IMPORTE.matcher(limpio).matches()) {
+            return null;
+        }
+        int decimal = limpio.indexOf(separadorDecimal);
+        if (decimal != limpio.lastIndexOf(separadorDecimal)) {
+            return null;
+        }
+        String entero = decimal < 0 ? limpio : limpio.substring(0, decimal);
+        String fraccion = decimal < 0 ? "" : limpio.substring(decimal + 1);
+        if (entero.isEmpty() || (decimal >= 0 && fraccion.isEmpty()) || !esDigitos(fraccion)) {
+            return null;
+        }
+        if (!esDigitos(entero) && !enteroAgrupado.matcher(entero).matches()) {
+            return null;
+        }
+        // Un solo separador seguido de 3 digitos: "1.250" son mil doscientos cincuenta en un Locale
+        // y uno coma veinticinco en otro
+        long separadores = limpio.chars().filter(c -> c == separadorDecimal || c == separadorMiles).count();
+        int ultimo = Math.max(limpio.lastIndexOf(separadorDecimal), limpio.lastIndexOf(separadorMiles));
+        if (separadores == 1 && limpio.length() - ultimo - 1 == 3) {
+            return null;
+        }
+        String digitos = entero.replace(String.valueOf(separadorMiles), "");
+        return Double.parseDouble(fraccion.isEmpty() ? digitos : digitos + "." + fraccion);
+    }
+
+    private static boolean esDigitos(String texto) {
+        return texto.chars().allMatch(Character::isDigit);
+    }
+
+    private static String[] productos(String texto) {
+        if (texto == null) {
+            return new String[0];
+        }
+        List<String> productos = new ArrayList<>();
+        for (String parte : SEPARADOR_PRODUCTOS.split(texto)) {
+            String producto = PRECIO_FINAL.matcher(parte).replaceFirst("").trim();
+            if (!producto.isEmpty()) {
+                productos.add(producto);
+            }
+        }
+        return productos.toArray(new String[0]);
+    }
+
+    // Grupo opcional: la plantilla puede no definirlo o no capturarlo
+    private static String grupo(Matcher m, String nombre) {
+        try {
+            String valor = m.group(nombre);
+            return valor == null || valor.isBlank() ? null : valor.trim();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.langchain4jpractice.openIAExamples.manualAssistant;
 
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Controlador REST que expone el endpoint del asistente manual.
  *
- * Endpoint: GET /api/v1/manual/explain?topic={tema}
+ * Endpoints:
+ * - GET /api/v1/manual/explain?topic={tema}         (respuesta completa)
+ * - GET /api/v1/manual/explain/stream?topic={tema}  (tokens por Server-Sent Events)
  *
  * Actua como punto de entrada HTTP, delegando toda la logica
  * al ManualAssistantService. Mantiene separacion de responsabilidades:
@@ -23,6 +34,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/v1/manual")
 public class ManualAssistantController {
 
+    private static final long STREAM_TIMEOUT_MILLIS = 120_000;
+
     // Servicio inyectado por constructor (Spring maneja la dependencia automaticamente)
     private final ManualAssistantService manualAssistantService;
 
@@ -43,5 +56,58 @@ public class ManualAssistantController {
         String explain = manualAssistantService.getExplainFunny(topic);
         return ResponseEntity.ok(explain);
     }
-}
 
+    /**
+     * Igual que /explain, pero la respuesta llega token a token como Server-Sent Events:
+     * eventos "token" con cada fragmento y un evento final "done" (o "error").
+     *
+     * Si el cliente se desconecta, se cancela el stream para que OpenAI deje de generar.
+     *
+     * @param topic El tema sobre el cual se quiere la explicacion
+     * @return SseEmitter que Spring mantiene abierto mientras llegan los tokens
+     */
+    @GetMapping(value = "/explain/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExplainFunny(@RequestParam String topic) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        AtomicBoolean cancelado = new AtomicBoolean();
+        emitter.onCompletion(() -> cancelado.set(true));
+        emitter.onTimeout(() -> cancelado.set(true));
+        emitter.onError(e -> cancelado.set(true));
+
+        manualAssistantService.streamExplainFunny(topic, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+                if (!enviar(emitter, cancelado, "token", partialResponse.text())) {
+                    context.streamingHandle().cancel();
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                enviar(emitter, cancelado, "done", "");
+                emitter.complete();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                enviar(emitter, cancelado, "error", String.valueOf(error.getMessage()));
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    // Devuelve false si el cliente ya no esta (desconexion, timeout): hay que cancelar el stream
+    private static boolean enviar(SseEmitter emitter, AtomicBoolean cancelado, String evento, Object datos) {
+        if (cancelado.get()) {
+            return false;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(evento).data(datos));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            cancelado.set(true);
+            return false;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.langchain4jpractice.openIAExamples.manualAssistant;
 
+import com.langchain4jpractice.llm.LlmPriceTable;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.output.TokenUsage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -26,6 +31,9 @@ import org.springframework.stereotype.Service;
  * 5. Extrae TokenUsage y calcula costo estimado en USD
  * 6. Retorna texto de la respuesta AI
  *
+ * STREAMING: streamExplainFunny() hace el mismo request con StreamingChatModel y entrega
+ * cada token al handler apenas llega (el controlador lo reenvia por SSE).
+ *
  * NOTA: Este enfoque manual da control total pero requiere mas codigo
  * que usar @AiService con interfaces declarativas.
  */
@@ -34,16 +42,87 @@ import org.springframework.stereotype.Service;
 public class ManualAssistantService {
 
 
+    private static final String MODELO = "gpt-4o-mini";
+
     private final ChatModel chatModel;
+    private final StreamingChatModel streamingChatModel;
+    private final LlmPriceTable llmPriceTable;
 
-    public ManualAssistantService(ChatModel chatModel) {
+    public ManualAssistantService(ChatModel chatModel, StreamingChatModel streamingChatModel,
+                                  LlmPriceTable llmPriceTable) {
         this.chatModel = chatModel;
+        this.streamingChatModel = streamingChatModel;
+        this.llmPriceTable = llmPriceTable;
     }
 
     public String getExplainFunny(String topic) {
         // Log de inicio para debugging
         log.info("-----> Preparando explicacion sobre: {}", topic);
 
+        // PASO 1 y 2: parametros override + request (ver buildRequest, compartido con el streaming)
+        ChatRequest request = buildRequest(topic);
+
+        // ============================================
+        // PASO 3: EJECUCION DE LA LLAMADA IA
+        // ============================================
+        // chatModel.chat() internamente:
+        // 1. Fusiona default + override
+        // 2. Envia request a OpenAI API
+        // 3. Retorna ChatResponse con texto + metadata
+        ChatResponse response = chatModel.chat(request);
+
+        // ============================================
+        // PASO 4: TELEMETRIA Y CALCULO DE COSTOS
+        // ============================================
+        logConsumo(response.tokenUsage());
+
+        // ============================================
+        // PASO 5: RETORNO DE LA RESPUESTA
+        // ============================================
+        // Extraemos el texto de la respuesta AI.
+        // response.aiMessage() contiene el mensaje generado por el modelo.
+        return response.aiMessage().text();
+    }
+
+    /**
+     * Version streaming de getExplainFunny: mismo prompt y parametros, pero cada token se
+     * entrega a 'handler' apenas llega. Retorna enseguida (la llamada corre en otro hilo).
+     *
+     * El handler puede cancelar con context.streamingHandle().cancel() (p. ej. si el cliente
+     * se desconecto): OpenAI deja de generar y no se pagan tokens que nadie va a leer.
+     */
+    public void streamExplainFunny(String topic, StreamingChatResponseHandler handler) {
+        log.info("-----> Preparando explicacion (streaming) sobre: {}", topic);
+        long inicio = System.nanoTime();
+
+        streamingChatModel.chat(buildRequest(topic), new StreamingChatResponseHandler() {
+            private boolean primerToken = true;
+
+            @Override
+            public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+                if (primerToken) {
+                    primerToken = false;
+                    // Time-to-first-token: la latencia que realmente percibe el usuario
+                    log.info(" Primer token en {} ms", (System.nanoTime() - inicio) / 1_000_000);
+                }
+                handler.onPartialResponse(partialResponse, context);
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                logConsumo(completeResponse.tokenUsage());
+                handler.onCompleteResponse(completeResponse);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                log.warn("Fallo el streaming sobre {}: {}", topic, error.getMessage());
+                handler.onError(error);
+            }
+        });
+    }
+
+    private ChatRequest buildRequest(String topic) {
         // ============================================
         // PASO 1: OVERRIDE DE PARAMETROS
         // ============================================
@@ -52,7 +131,7 @@ public class ManualAssistantService {
         // Temperature 1.0 = maxima creatividad (ideal para humor)
         // maxOutputTokens 50 = respuestas cortas y concisas
         ChatRequestParameters overrideParams = ChatRequestParameters.builder()
-                .modelName("gpt-4o-mini")  // Modelo economico de OpenAI
+                .modelName(MODELO)         // Modelo economico de OpenAI
                 .temperature(1.0)          // Alta creatividad para explicaciones divertidas
                 .maxOutputTokens(50)       // Limitamos longitud para respuestas punchy
                 .build();
@@ -70,22 +149,13 @@ public class ManualAssistantService {
                 .parameters(overrideParams)  // Inyectamos override aqui
                 .build();
 
-        // ============================================
-        // PASO 3: EJECUCION DE LA LLAMADA IA
-        // ============================================
-        // chatModel.chat() internamente:
-        // 1. Fusiona default + override
-        // 2. Envia request a OpenAI API
-        // 3. Retorna ChatResponse con texto + metadata
-        ChatResponse response = chatModel.chat(request);
+        return request;
+    }
 
-        // ============================================
-        // PASO 4: TELEMETRIA Y CALCULO DE COSTOS
-        // ============================================
+    private void logConsumo(TokenUsage usage) {
         // Extraemos TokenUsage para tracking de consumo.
         // Esto es CRITICO para aplicaciones en produccion
         // donde los costos de API pueden escalar rapido.
-        TokenUsage usage = response.tokenUsage();
         if (usage != null) {
             // Log detallado del consumo
             log.info("REPORTE DE CONSUMO:");
@@ -93,21 +163,11 @@ public class ManualAssistantService {
             log.info(" Salida (Respuesta): {} tokens", usage.outputTokenCount());
             log.info(" Total: {} tokens", usage.totalTokenCount());
 
-            // Calculo de costo basado en tarifas OpenAI (feb 2026):
-            // GPT-4o-mini: $0.15/1M input tokens + $0.60/1M output tokens
-            // Convertimos a costo por token individual
-            double costoInput = usage.inputTokenCount() * 0.00000015;   // $0.15 / 1,000,000
-            double costoOutput = usage.outputTokenCount() * 0.00000060; // $0.60 / 1,000,000
-            double costoEstimado = costoInput + costoOutput;
+            // Costo segun la tabla de precios compartida (llm.metrics.prices, USD por 1M tokens).
+            // El mismo calculo alimenta la metrica llm.cost de todos los modelos.
+            double costoEstimado = llmPriceTable.cost(MODELO, usage);
 
             log.info("   💵 Costo aprox de esta llamada: ${}", String.format("%.8f", costoEstimado));
         }
-
-        // ============================================
-        // PASO 5: RETORNO DE LA RESPUESTA
-        // ============================================
-        // Extraemos el texto de la respuesta AI.
-        // response.aiMessage() contiene el mensaje generado por el modelo.
-        return response.aiMessage().text();
     }
 }
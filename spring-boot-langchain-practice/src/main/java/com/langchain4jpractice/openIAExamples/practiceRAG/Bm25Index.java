@@ -0,0 +1,239 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido con ranking BM25 (busqueda LEXICA, por palabras exactas).
+ *
+ * IDEA:
+ * - Por cada termino se guarda la lista de nodos (segmentos) que lo contienen y cuantas veces
+ *   (postings). Buscar = recorrer SOLO las listas de los terminos de la consulta, no el corpus.
+ * - Un nombre, un codigo o un numero de poliza aparece en pocos segmentos: su lista es corta,
+ *   la busqueda tarda microsegundos y su idf (rareza) pesa mucho en el score.
+ *
+ * BM25: score = suma sobre terminos de idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * len / avgLen))
+ * - k1 : saturacion de la frecuencia (repetir una palabra 10 veces no vale 10 veces mas).
+ * - b  : normalizacion por longitud (los segmentos largos no ganan solo por ser largos).
+ *
+ * TOKENS: minusculas, sin tildes, separados por todo lo que no sea letra o digito, sin
+ * stopwords del espanol ("el", "de", "que"...).
+ *
+ * Los nodos son los slots del store (igual que en HnswIndex). No es thread-safe: el store que
+ * lo usa lo protege con su propio lock.
+ */
+public class Bm25Index {
+
+    public record Config(double k1, double b) {
+        public Config {
+            if (k1 < 0 || b < 0 || b > 1) {
+                throw new IllegalArgumentException("Parametros BM25 invalidos: k1>=0, 0<=b<=1");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(1.2, 0.75);
+        }
+    }
+
+    public record Candidate(int node, double score) {
+    }
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los", "o", "para",
+            "por", "que", "se", "su", "un", "una", "y", "cual", "como", "quien", "donde");
+    private static final String[] SIN_TERMINOS = new String[0];
+
+    // Lista de nodos que contienen un termino, con la frecuencia en cada uno (arrays que crecen)
+    private static final class Postings {
+        int[] nodes = new int[4];
+        int[] tfs = new int[4];
+        int size;
+        int df;
+
+        void add(int node, int tf) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            nodes[size] = node;
+            tfs[size++] = tf;
+            df++;
+        }
+    }
+
+    private final double k1;
+    private final double b;
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // Por nodo: longitud en tokens (-1 = sin documento o borrado) y sus terminos distintos
+    private int[] lengths = new int[0];
+    private String[][] terms = new String[0][];
+    private int docCount;
+    private long totalLength;
+    private int deadPostings;
+    private int livePostings;
+    private final BitSet borrados = new BitSet();
+
+    public Bm25Index(Config config) {
+        this.k1 = config.k1();
+        this.b = config.b();
+    }
+
+    public void add(int node, String texto) {
+        ensureCapacity(node + 1);
+        if (lengths[node] >= 0) {
+            remove(node);
+        }
+        if (borrados.get(node)) {
+            // Nodo reutilizado: sus postings viejos no deben revivir
+            purgar();
+        }
+        List<String> tokens = tokens(texto);
+        Map<String, Integer> frecuencias = new HashMap<>();
+        for (String token : tokens) {
+            frecuencias.merge(token, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+            postings.computeIfAbsent(entrada.getKey(), termino -> new Postings()).add(node, entrada.getValue());
+        }
+        lengths[node] = tokens.size();
+        terms[node] = frecuencias.keySet().toArray(SIN_TERMINOS);
+        docCount++;
+        totalLength += tokens.size();
+        livePostings += frecuencias.size();
+    }
+
+    /**
+     * Saca el nodo del ranking. Sus postings quedan como "muertos" hasta que haya tantos como
+     * vivos; entonces se purgan (asi borrar no cuesta recorrer todas las listas cada vez).
+     */
+    public void remove(int node) {
+        if (node >= lengths.length || lengths[node] < 0) {
+            return;
+        }
+        for (String termino : terms[node]) {
+            postings.get(termino).df--;
+        }
+        docCount--;
+        totalLength -= lengths[node];
+        livePostings -= terms[node].length;
+        deadPostings += terms[node].length;
+        lengths[node] = -1;
+        terms[node] = null;
+        borrados.set(node);
+        if (deadPostings > livePostings) {
+            purgar();
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        lengths = new int[0];
+        terms = new String[0][];
+        docCount = 0;
+        totalLength = 0;
+        deadPostings = 0;
+        livePostings = 0;
+        borrados.clear();
+    }
+
+    public int size() {
+        return docCount;
+    }
+
+    /**
+     * Los 'k' nodos con mayor score BM25, ordenados de mayor a menor. Vacio si ningun termino
+     * de la consulta esta en el indice.
+     */
+    public List<Candidate> search(String consulta, int k) {
+        if (docCount == 0 || k <= 0) {
+            return List.of();
+        }
+        double avgLength = (double) totalLength / docCount;
+        Map<Integer, double[]> scores = new HashMap<>();
+        for (String termino : new LinkedHashSet<>(tokens(consulta))) {
+            Postings lista = postings.get(termino);
+            if (lista == null || lista.df == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (docCount - lista.df + 0.5) / (lista.df + 0.5));
+            for (int i = 0; i < lista.size; i++) {
+                int node = lista.nodes[i];
+                if (lengths[node] < 0) {
+                    continue;
+                }
+                int tf = lista.tfs[i];
+                double parcial = idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * lengths[node] / avgLength));
+                scores.computeIfAbsent(node, n -> new double[1])[0] += parcial;
+            }
+        }
+
+        // Min-heap de tamano k: la cabeza es el peor de los mejores
+        PriorityQueue<Candidate> topK = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        for (Map.Entry<Integer, double[]> entrada : scores.entrySet()) {
+            topK.offer(new Candidate(entrada.getKey(), entrada.getValue()[0]));
+            if (topK.size() > k) {
+                topK.poll();
+            }
+        }
+        List<Candidate> resultado = new ArrayList<>(topK);
+        resultado.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return resultado;
+    }
+
+    static List<String> tokens(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void purgar() {
+        postings.values().removeIf(lista -> {
+            int vivos = 0;
+            for (int i = 0; i < lista.size; i++) {
+                if (lengths[lista.nodes[i]] >= 0) {
+                    lista.nodes[vivos] = lista.nodes[i];
+                    lista.tfs[vivos++] = lista.tfs[i];
+                }
+            }
+            lista.size = vivos;
+            return vivos == 0;
+        });
+        deadPostings = 0;
+        borrados.clear();
+    }
+
+    private void ensureCapacity(int nodos) {
+        if (nodos <= lengths.length) {
+            return;
+        }
+        int nuevo = Math.max(nodos, Math.max(16, lengths.length * 2));
+        int anterior = lengths.length;
+        lengths = Arrays.copyOf(lengths, nuevo);
+        Arrays.fill(lengths, anterior, nuevo, -1);
+        terms = Arrays.copyOf(terms, nuevo);
+    }
+}
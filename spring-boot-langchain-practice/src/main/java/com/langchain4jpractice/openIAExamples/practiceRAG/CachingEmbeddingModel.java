@@ -0,0 +1,131 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Decorador de EmbeddingModel con cache LRU acotada.
+ *
+ * POR QUE: cada /api/rag/ask vuelve a correr la inferencia ONNX de la pregunta, aunque
+ * la mayoria del trafico son preguntas repetidas. Con la cache, una pregunta ya vista
+ * cuesta una busqueda en un mapa en lugar de una inferencia.
+ *
+ * CLAVE: el texto normalizado (Unicode NFC, espacios colapsados, trim, minusculas).
+ * Pasar a minusculas es seguro porque all-MiniLM-L6-v2 usa un tokenizer "uncased":
+ * "Quien es el CEO?" y "quien es el  CEO? " producen el mismo vector.
+ *
+ * Solo la usan las CONSULTAS (retriever y cache semantica). La ingesta usa el modelo sin
+ * cache: sus segmentos casi nunca se repiten y desalojarian las preguntas frecuentes.
+ * embedAll() solo manda al modelo los textos que no estan en cache, en una sola llamada.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    public record Stats(long hits, long misses, long evictions, int size, int maxSize) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private final EmbeddingModel delegate;
+    private final int maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // LinkedHashMap en modo "access-order" = LRU. Se protege con synchronized (operaciones O(1)).
+    private final LinkedHashMap<String, float[]> cache;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate, int maxSize) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                if (size() > CachingEmbeddingModel.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        List<Embedding> resultado = new ArrayList<>(segments.size());
+        List<String> claves = new ArrayList<>(segments.size());
+        List<Integer> posicionesFaltantes = new ArrayList<>();
+        List<TextSegment> faltantes = new ArrayList<>();
+
+        synchronized (cache) {
+            for (int i = 0; i < segments.size(); i++) {
+                String clave = normalize(segments.get(i).text());
+                claves.add(clave);
+                float[] vector = cache.get(clave);
+                resultado.add(vector == null ? null : Embedding.from(vector.clone()));
+                if (vector == null) {
+                    posicionesFaltantes.add(i);
+                    faltantes.add(segments.get(i));
+                }
+            }
+        }
+        hits.addAndGet(segments.size() - faltantes.size());
+        misses.addAndGet(faltantes.size());
+        if (faltantes.isEmpty()) {
+            return Response.from(resultado);
+        }
+
+        // Inferencia fuera del lock: no bloquea a los hits concurrentes
+        Response<List<Embedding>> calculados = delegate.embedAll(faltantes);
+        synchronized (cache) {
+            for (int j = 0; j < posicionesFaltantes.size(); j++) {
+                int posicion = posicionesFaltantes.get(j);
+                Embedding embedding = calculados.content().get(j);
+                cache.put(claves.get(posicion), embedding.vector().clone());
+                resultado.set(posicion, embedding);
+            }
+        }
+        return Response.from(resultado, calculados.tokenUsage(), calculados.finishReason(), calculados.metadata());
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+
+    @Override
+    public String modelName() {
+        return delegate.modelName();
+    }
+
+    public Stats stats() {
+        synchronized (cache) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), cache.size(), maxSize);
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    static String normalize(String texto) {
+        String nfc = Normalizer.normalize(texto, Normalizer.Form.NFC);
+        return ESPACIOS.matcher(nfc).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+}
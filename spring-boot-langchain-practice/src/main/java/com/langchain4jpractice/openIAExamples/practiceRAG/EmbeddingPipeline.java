@@ -0,0 +1,200 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Pipeline de ingesta en 4 etapas unidas por colas ACOTADAS:
+ *
+ *   [carga] --docs--> [split] --lotes--> [embed x N workers] --vectores--> [store]
+ *
+ * - carga : lee cada documento (1 hilo, I/O).
+ * - split : divide y decide que segmentos hay que embeddear (1 hilo, lo define el 'planner').
+ * - embed : N hilos de inferencia ONNX, cada uno procesa micro-lotes de 'batchSize' segmentos.
+ * - store : 1 hilo escribe en el EmbeddingStore (escrituras en lote, sin contencion).
+ *
+ * BACKPRESSURE: las colas tienen capacidad fija y put() bloquea. Si el embed es el cuello
+ * de botella (lo normal), la carga y el split se frenan solos y la memoria no crece.
+ *
+ * Si una etapa falla se interrumpen las demas y run() relanza el primer error.
+ */
+@Slf4j
+public class EmbeddingPipeline {
+
+    public record Config(int workers, int batchSize, int queueCapacity) {
+        public Config {
+            if (workers < 1 || batchSize < 1 || queueCapacity < 1) {
+                throw new IllegalArgumentException("workers, batchSize y queueCapacity deben ser >= 1");
+            }
+        }
+    }
+
+    /** Documento a ingestar: nombre logico + como cargarlo (se ejecuta en la etapa de carga). */
+    public record Source(String name, Callable<Document> loader) {
+    }
+
+    /** Segmento que debe embeddearse y guardarse con ese id. */
+    public record Item(String id, TextSegment segment) {
+    }
+
+    public record Report(int documents, int segments, int batches, Duration elapsed, int workers) {
+        public double segmentsPerSecond() {
+            double segundos = elapsed.toNanos() / 1e9;
+            return segundos == 0 ? 0 : segments / segundos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d documentos, %d segmentos, %d lotes en %d ms (%.1f segmentos/s, %d workers)",
+                    documents, segments, batches, elapsed.toMillis(), segmentsPerSecond(), workers);
+        }
+    }
+
+    private record Loaded(String name, Document document) {
+    }
+
+    private record Embedded(List<Item> items, List<Embedding> embeddings) {
+    }
+
+    // Marcadores de fin de stream (poison pills)
+    private static final Loaded FIN_DOCS = new Loaded(null, null);
+    private static final List<Item> FIN_LOTES = new ArrayList<>();
+    private static final Embedded FIN_VECTORES = new Embedded(null, null);
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingStore<TextSegment> embeddingStore;
+    private final Config config;
+
+    public EmbeddingPipeline(EmbeddingModel embeddingModel, EmbeddingStore<TextSegment> embeddingStore, Config config) {
+        this.embeddingModel = embeddingModel;
+        this.embeddingStore = embeddingStore;
+        this.config = config;
+    }
+
+    /**
+     * Ejecuta el pipeline completo y bloquea hasta que todo quede guardado.
+     *
+     * @param sources documentos a procesar
+     * @param planner (nombre, documento) -> segmentos a embeddear. Permite saltar los que no cambiaron.
+     */
+    public Report run(List<Source> sources, BiFunction<String, Document, List<Item>> planner) {
+        long inicio = System.nanoTime();
+        BlockingQueue<Loaded> docs = new ArrayBlockingQueue<>(config.queueCapacity());
+        BlockingQueue<List<Item>> lotes = new ArrayBlockingQueue<>(config.queueCapacity());
+        BlockingQueue<Embedded> vectores = new ArrayBlockingQueue<>(config.queueCapacity());
+
+        AtomicInteger documentos = new AtomicInteger();
+        AtomicInteger segmentos = new AtomicInteger();
+        AtomicInteger numLotes = new AtomicInteger();
+        AtomicInteger workersVivos = new AtomicInteger(config.workers());
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> hilos = new ArrayList<>();
+
+        // ETAPA 1: carga
+        hilos.add(stage("rag-ingest-load", error, hilos, () -> {
+            for (Source source : sources) {
+                docs.put(new Loaded(source.name(), source.loader().call()));
+            }
+            docs.put(FIN_DOCS);
+        }));
+
+        // ETAPA 2: split + planificacion, agrupa en micro-lotes
+        hilos.add(stage("rag-ingest-split", error, hilos, () -> {
+            List<Item> lote = new ArrayList<>(config.batchSize());
+            for (Loaded loaded = docs.take(); loaded != FIN_DOCS; loaded = docs.take()) {
+                documentos.incrementAndGet();
+                for (Item item : planner.apply(loaded.name(), loaded.document())) {
+                    lote.add(item);
+                    if (lote.size() == config.batchSize()) {
+                        lotes.put(lote);
+                        lote = new ArrayList<>(config.batchSize());
+                    }
+                }
+            }
+            if (!lote.isEmpty()) {
+                lotes.put(lote);
+            }
+            for (int i = 0; i < config.workers(); i++) {
+                lotes.put(FIN_LOTES);
+            }
+        }));
+
+        // ETAPA 3: N workers de inferencia
+        for (int w = 0; w < config.workers(); w++) {
+            hilos.add(stage("rag-ingest-embed-" + w, error, hilos, () -> {
+                for (List<Item> lote = lotes.take(); lote != FIN_LOTES; lote = lotes.take()) {
+                    List<Embedding> embeddings = embeddingModel.embedAll(lote.stream().map(Item::segment).toList()).content();
+                    vectores.put(new Embedded(lote, embeddings));
+                }
+                // El ultimo worker en terminar avisa al store
+                if (workersVivos.decrementAndGet() == 0) {
+                    vectores.put(FIN_VECTORES);
+                }
+            }));
+        }
+
+        // ETAPA 4: escritura en el store
+        hilos.add(stage("rag-ingest-store", error, hilos, () -> {
+            for (Embedded lote = vectores.take(); lote != FIN_VECTORES; lote = vectores.take()) {
+                embeddingStore.addAll(lote.items().stream().map(Item::id).toList(), lote.embeddings(),
+                        lote.items().stream().map(Item::segment).toList());
+                segmentos.addAndGet(lote.items().size());
+                numLotes.incrementAndGet();
+            }
+        }));
+
+        hilos.forEach(Thread::start);
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                hilos.forEach(Thread::interrupt);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Ingesta interrumpida", e);
+            }
+        }
+        if (error.get() != null) {
+            throw new IllegalStateException("Fallo el pipeline de ingesta: " + error.get().getMessage(), error.get());
+        }
+
+        Report report = new Report(documentos.get(), segmentos.get(), numLotes.get(),
+                Duration.ofNanos(System.nanoTime() - inicio), config.workers());
+        log.info("Pipeline de ingesta: {}", report);
+        return report;
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static Thread stage(String nombre, AtomicReference<Throwable> error, List<Thread> hilos, Stage stage) {
+        Thread hilo = new Thread(() -> {
+            try {
+                stage.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                // Primer error gana; se interrumpe al resto para no quedar bloqueados en colas llenas
+                if (error.compareAndSet(null, e)) {
+                    hilos.forEach(Thread::interrupt);
+                }
+            }
+        }, nombre);
+        hilo.setDaemon(true);
+        return hilo;
+    }
+}
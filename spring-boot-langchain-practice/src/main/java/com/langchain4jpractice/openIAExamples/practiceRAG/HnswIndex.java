@@ -0,0 +1,300 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Indice HNSW (Hierarchical Navigable Small World) para busqueda aproximada de vecinos.
+ *
+ * IDEA:
+ * - Cada vector es un nodo de un grafo con varias capas. Las capas altas tienen pocos
+ *   nodos y enlaces "largos"; la capa 0 tiene todos los nodos.
+ * - Buscar = bajar de capa en capa acercandose a la consulta, y en la capa 0 explorar
+ *   'efSearch' candidatos en lugar de recorrer todo el corpus.
+ *
+ * PARAMETROS (ver Config):
+ * - m              : enlaces por nodo (capa 0 usa 2*m). Mas alto = mas recall y mas memoria.
+ * - efConstruction : candidatos al insertar. Mas alto = grafo de mejor calidad, insercion mas lenta.
+ * - efSearch       : candidatos al buscar. Es la perilla principal recall vs latencia.
+ *
+ * El indice solo guarda el grafo (ids de nodos). Los vectores los provee VectorSource,
+ * asi el store puede seguir leyendolos del archivo mapeado sin duplicarlos en el heap.
+ *
+ * No es thread-safe: el store que lo usa lo protege con su propio lock.
+ */
+public class HnswIndex {
+
+    /**
+     * Parametros del grafo. Valores por defecto razonables para vectores MiniLM de 384 dims.
+     */
+    public record Config(int m, int efConstruction, int efSearch) {
+        public Config {
+            if (m < 2 || efConstruction < 1 || efSearch < 1) {
+                throw new IllegalArgumentException("Parametros HNSW invalidos: m>=2, efConstruction>=1, efSearch>=1");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(16, 200, 64);
+        }
+    }
+
+    /**
+     * Acceso a los vectores por nodo. Las consultas llegan ya normalizadas (norma 1),
+     * asi similarity() es el coseno sin recalcular la norma de la consulta en cada nodo.
+     */
+    public interface VectorSource {
+        float[] unitVector(int node);
+
+        double similarity(float[] unitQuery, int node);
+    }
+
+    private static final int[] SIN_VECINOS = new int[0];
+
+    private final VectorSource vectors;
+    private final int m;
+    private final int mMax0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private int efSearch;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int nodeCount;
+
+    // links[node][level] = vecinos del nodo en esa capa
+    private int[][][] links = new int[0][][];
+
+    public HnswIndex(Config config, VectorSource vectors) {
+        this.vectors = vectors;
+        this.m = config.m();
+        this.mMax0 = config.m() * 2;
+        this.efConstruction = config.efConstruction();
+        this.efSearch = config.efSearch();
+        this.levelMultiplier = 1 / Math.log(config.m());
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    public int size() {
+        return nodeCount;
+    }
+
+    public void clear() {
+        links = new int[0][][];
+        entryPoint = -1;
+        maxLevel = -1;
+        nodeCount = 0;
+    }
+
+    // ============================================
+    // INSERCION INCREMENTAL
+    // ============================================
+
+    public void insert(int node) {
+        int level = (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        ensureCapacity(node + 1);
+        links[node] = new int[level + 1][];
+        Arrays.fill(links[node], SIN_VECINOS);
+        nodeCount++;
+
+        if (entryPoint == -1) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectors.unitVector(node);
+        int actual = entryPoint;
+
+        // 1. Bajada golosa por las capas superiores al nivel del nuevo nodo
+        for (int l = maxLevel; l > level; l--) {
+            actual = greedyClosest(query, actual, l);
+        }
+
+        // 2. En cada capa compartida: buscar candidatos y enlazar en ambos sentidos
+        List<Candidate> entrada = List.of(new Candidate(actual, vectors.similarity(query, actual)));
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidatos = searchLayer(query, entrada, efConstruction, l);
+            int[] vecinos = selectNeighbors(candidatos, m);
+            links[node][l] = vecinos;
+            for (int vecino : vecinos) {
+                connect(vecino, node, l);
+            }
+            entrada = candidatos;
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    // ============================================
+    // BUSQUEDA
+    // ============================================
+
+    /**
+     * Devuelve hasta max(k, efSearch) candidatos ordenados de mayor a menor similitud.
+     * El llamador aplica minScore, filtros y el corte a k.
+     */
+    public List<Candidate> search(float[] query, int k) {
+        if (entryPoint == -1) {
+            return List.of();
+        }
+        query = normalize(query);
+        int actual = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            actual = greedyClosest(query, actual, l);
+        }
+        List<Candidate> resultado = searchLayer(query,
+                List.of(new Candidate(actual, vectors.similarity(query, actual))), Math.max(k, efSearch), 0);
+        resultado.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        return resultado;
+    }
+
+    public record Candidate(int node, double similarity) {
+    }
+
+    private int greedyClosest(float[] query, int desde, int level) {
+        int actual = desde;
+        double mejor = vectors.similarity(query, actual);
+        boolean mejoro = true;
+        while (mejoro) {
+            mejoro = false;
+            for (int vecino : neighbors(actual, level)) {
+                double similitud = vectors.similarity(query, vecino);
+                if (similitud > mejor) {
+                    mejor = similitud;
+                    actual = vecino;
+                    mejoro = true;
+                }
+            }
+        }
+        return actual;
+    }
+
+    private List<Candidate> searchLayer(float[] query, List<Candidate> entrada, int ef, int level) {
+        BitSet visitados = new BitSet(links.length);
+        // candidatos: el mas parecido primero. resultados: el menos parecido primero (para descartarlo)
+        PriorityQueue<Candidate> candidatos = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity).reversed());
+        PriorityQueue<Candidate> resultados = new PriorityQueue<>(Comparator.comparingDouble(Candidate::similarity));
+        for (Candidate c : entrada) {
+            visitados.set(c.node());
+            candidatos.add(c);
+            resultados.add(c);
+        }
+        while (resultados.size() > ef) {
+            resultados.poll();
+        }
+
+        while (!candidatos.isEmpty()) {
+            Candidate actual = candidatos.poll();
+            if (actual.similarity() < resultados.peek().similarity() && resultados.size() >= ef) {
+                break;
+            }
+            for (int vecino : neighbors(actual.node(), level)) {
+                if (visitados.get(vecino)) {
+                    continue;
+                }
+                visitados.set(vecino);
+                double similitud = vectors.similarity(query, vecino);
+                if (resultados.size() < ef || similitud > resultados.peek().similarity()) {
+                    Candidate c = new Candidate(vecino, similitud);
+                    candidatos.add(c);
+                    resultados.add(c);
+                    if (resultados.size() > ef) {
+                        resultados.poll();
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(resultados);
+    }
+
+    /**
+     * Heuristica de seleccion de vecinos del paper HNSW: se prefiere un candidato
+     * solo si esta mas cerca del nodo base que de los vecinos ya elegidos.
+     * Asi el grafo conserva enlaces en "direcciones" distintas y mejora el recall.
+     */
+    private int[] selectNeighbors(List<Candidate> candidatos, int max) {
+        List<Candidate> ordenados = new ArrayList<>(candidatos);
+        ordenados.sort(Comparator.comparingDouble(Candidate::similarity).reversed());
+        List<Candidate> elegidos = new ArrayList<>(max);
+        List<float[]> vectoresElegidos = new ArrayList<>(max);
+        for (Candidate c : ordenados) {
+            if (elegidos.size() >= max) {
+                break;
+            }
+            boolean diverso = true;
+            for (int i = 0; i < elegidos.size() && diverso; i++) {
+                diverso = vectors.similarity(vectoresElegidos.get(i), c.node()) < c.similarity();
+            }
+            if (diverso) {
+                elegidos.add(c);
+                vectoresElegidos.add(vectors.unitVector(c.node()));
+            }
+        }
+        // Si la heuristica dejo huecos, completamos con los mas cercanos restantes
+        for (Candidate c : ordenados) {
+            if (elegidos.size() >= max) {
+                break;
+            }
+            if (!elegidos.contains(c)) {
+                elegidos.add(c);
+            }
+        }
+        return elegidos.stream().mapToInt(Candidate::node).toArray();
+    }
+
+    private void connect(int desde, int hacia, int level) {
+        int[] actuales = neighbors(desde, level);
+        int max = level == 0 ? mMax0 : m;
+        int[] nuevos = Arrays.copyOf(actuales, actuales.length + 1);
+        nuevos[actuales.length] = hacia;
+        if (nuevos.length > max) {
+            float[] base = vectors.unitVector(desde);
+            List<Candidate> candidatos = new ArrayList<>(nuevos.length);
+            for (int vecino : nuevos) {
+                candidatos.add(new Candidate(vecino, vectors.similarity(base, vecino)));
+            }
+            nuevos = selectNeighbors(candidatos, max);
+        }
+        links[desde][level] = nuevos;
+    }
+
+    static float[] normalize(float[] vector) {
+        double suma = 0;
+        for (float v : vector) {
+            suma += v * v;
+        }
+        float[] unit = vector.clone();
+        if (suma == 0) {
+            return unit;
+        }
+        float inverso = (float) (1 / Math.sqrt(suma));
+        for (int i = 0; i < unit.length; i++) {
+            unit[i] *= inverso;
+        }
+        return unit;
+    }
+
+    private int[] neighbors(int node, int level) {
+        int[][] niveles = links[node];
+        return niveles == null || level >= niveles.length ? SIN_VECINOS : niveles[level];
+    }
+
+    private void ensureCapacity(int nodes) {
+        if (links.length < nodes) {
+            links = Arrays.copyOf(links, Math.max(nodes, links.length * 2));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.retriever.ContentRetriever;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ContentRetriever hibrido: vectores (significado) + BM25 (palabras exactas) sobre el mismo store.
+ *
+ * MODOS (rag.retrieval.mode):
+ * - dense     : solo vectores, como EmbeddingStoreContentRetriever (default).
+ * - prefilter : BM25 elige 'candidates' segmentos y solo esos se comparan con el vector de la
+ *               pregunta (LexicalEmbeddingStore.searchPrefiltered).
+ * - rrf       : Reciprocal Rank Fusion. Se piden 'candidates' resultados a cada buscador y se
+ *               fusionan por posicion: score = suma de 1 / (rrfK + rank). Un segmento que ambos
+ *               ponen arriba gana; uno que solo encuentra BM25 (un codigo, un nombre) tambien entra.
+ *               minScore solo filtra el ranking denso: un acierto solo lexico entra con una
+ *               palabra en comun, aunque dense lo habria descartado.
+ *
+ * POR QUE: "¿Quien es Pandebono?" o "poliza PX-4471" dependen de una palabra exacta que el
+ * embedding puede diluir; "¿cuantos dias libres tengo?" depende del significado. RRF no necesita
+ * que los dos scores esten en la misma escala, solo el orden.
+ */
+public class HybridContentRetriever implements ContentRetriever {
+
+    public enum Modo { DENSE, PREFILTER, RRF }
+
+    public record Config(Modo modo, int maxResults, double minScore, int candidates, int rrfK) {
+    }
+
+    private final LexicalEmbeddingStore store;
+    private final EmbeddingModel embeddingModel;
+    private final Config config;
+
+    public HybridContentRetriever(LexicalEmbeddingStore store, EmbeddingModel embeddingModel, Config config) {
+        if (config.modo() != Modo.DENSE && !store.hasLexicalIndex()) {
+            throw new IllegalArgumentException("El modo " + config.modo() + " necesita el indice BM25 en el store");
+        }
+        this.store = store;
+        this.embeddingModel = embeddingModel;
+        this.config = config;
+    }
+
+    @Override
+    public List<Content> retrieve(Query query) {
+        String texto = query.text();
+        return switch (config.modo()) {
+            case DENSE -> contenidos(store.search(request(texto, config.maxResults())).matches());
+            case PREFILTER -> contenidos(store.searchPrefiltered(request(texto, config.maxResults()), texto,
+                    config.candidates()).matches());
+            case RRF -> fusionar(store.search(request(texto, config.candidates())).matches(),
+                    store.searchLexical(texto, config.candidates()));
+        };
+    }
+
+    private EmbeddingSearchRequest request(String texto, int maxResults) {
+        return EmbeddingSearchRequest.builder()
+                .queryEmbedding(embeddingModel.embed(texto).content())
+                .maxResults(maxResults)
+                .minScore(config.minScore())
+                .build();
+    }
+
+    // ============================================
+    // RECIPROCAL RANK FUSION
+    // ============================================
+
+    private List<Content> fusionar(List<EmbeddingMatch<TextSegment>> densos, List<EmbeddingMatch<TextSegment>> lexicos) {
+        Map<String, double[]> scores = new LinkedHashMap<>();
+        Map<String, TextSegment> segmentos = new LinkedHashMap<>();
+        for (List<EmbeddingMatch<TextSegment>> ranking : List.of(densos, lexicos)) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                EmbeddingMatch<TextSegment> match = ranking.get(rank);
+                if (match.embedded() == null) {
+                    continue;
+                }
+                scores.computeIfAbsent(match.embeddingId(), id -> new double[1])[0] += 1.0 / (config.rrfK() + rank + 1);
+                segmentos.putIfAbsent(match.embeddingId(), match.embedded());
+            }
+        }
+
+        List<Map.Entry<String, double[]>> ordenados = new ArrayList<>(scores.entrySet());
+        ordenados.sort((a, b) -> Double.compare(b.getValue()[0], a.getValue()[0]));
+        List<Content> contenidos = new ArrayList<>();
+        for (Map.Entry<String, double[]> entrada : ordenados.subList(0, Math.min(config.maxResults(), ordenados.size()))) {
+            contenidos.add(Content.from(segmentos.get(entrada.getKey()), Map.of(
+                    ContentMetadata.SCORE, entrada.getValue()[0],
+                    ContentMetadata.EMBEDDING_ID, entrada.getKey())));
+        }
+        return contenidos;
+    }
+
+    private static List<Content> contenidos(List<EmbeddingMatch<TextSegment>> matches) {
+        return matches.stream()
+                .filter(match -> match.embedded() != null)
+                .map(match -> Content.from(match.embedded(), Map.of(
+                        ContentMetadata.SCORE, match.score(),
+                        ContentMetadata.EMBEDDING_ID, match.embeddingId())))
+                .toList();
+    }
+}
@@ -0,0 +1,332 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.segment.TextSegment;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Ingesta incremental: solo genera embeddings de los segmentos NUEVOS o MODIFICADOS.
+ *
+ * COMO FUNCIONA:
+ * 1. Cada documento se divide en segmentos con el splitter configurado.
+ * 2. Cada segmento se identifica por el SHA-256 de su texto.
+ * 3. El manifiesto (JSON) guarda, por documento, los hashes ya ingestados EN ORDEN.
+ * 4. Se comparan hashes: los nuevos se embeddean, los que desaparecieron se borran
+ *    del store y los que no cambiaron no cuestan nada.
+ *
+ * POSICION: la metadata 'index' de cada segmento es su posicion en el documento (0, 1, 2...
+ * sin huecos ni repetidos). Si una edicion en el medio corre las posiciones, los segmentos que
+ * no cambiaron se RE-ESTAMPAN (LexicalEmbeddingStore.updateMetadata: solo metadata, sin embed).
+ * Asi 'index' siempre dice quien va al lado de quien (TokenBudgetContentAggregator lo usa para
+ * unir trozos consecutivos).
+ *
+ * El id del embedding es un UUID derivado de (documento + hash). Asi, si el proceso muere
+ * despues de escribir el store pero antes del manifiesto, reintentar reemplaza el mismo id
+ * en lugar de duplicar el vector.
+ *
+ * El embed y la escritura los hace EmbeddingPipeline (etapas en paralelo con colas acotadas).
+ *
+ * Opcionalmente vigila un directorio (WatchService) y re-sincroniza los archivos que cambian.
+ */
+@Slf4j
+public class IncrementalIngestor implements Closeable {
+
+    public record Resultado(int nuevos, int borrados, int sinCambios) {
+    }
+
+    static final String POSICION = "index";
+
+    private final EmbeddingPipeline pipeline;
+    private final LexicalEmbeddingStore embeddingStore;
+    private final DocumentSplitter splitter;
+    private final Path manifestPath;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // documento -> hashes de sus segmentos ya presentes en el store, en orden de posicion
+    private final Map<String, List<String>> manifest;
+
+    // Sube cada vez que el corpus cambia (segmentos nuevos o borrados). Lo usan las caches para invalidar.
+    private final AtomicLong corpusVersion = new AtomicLong();
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    public IncrementalIngestor(EmbeddingPipeline pipeline, LexicalEmbeddingStore embeddingStore,
+                               DocumentSplitter splitter, Path manifestPath) {
+        this.pipeline = pipeline;
+        this.embeddingStore = embeddingStore;
+        this.splitter = splitter;
+        this.manifestPath = manifestPath;
+        this.manifest = loadManifest();
+    }
+
+    // ============================================
+    // SINCRONIZACION
+    // ============================================
+
+    /**
+     * Sincroniza un documento identificado por 'fuente' (ruta o nombre logico).
+     */
+    public Resultado ingest(String fuente, Document document) {
+        return ingestAll(List.of(new EmbeddingPipeline.Source(fuente, () -> document)));
+    }
+
+    /**
+     * Sincroniza varios documentos en una sola pasada del pipeline (carga, split y embed en paralelo).
+     * El manifiesto se actualiza al final, cuando todos los vectores ya estan en el store.
+     */
+    public synchronized Resultado ingestAll(List<EmbeddingPipeline.Source> fuentes) {
+        Map<String, List<String>> hashesActuales = new ConcurrentHashMap<>();
+        List<String> idsBorrados = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Metadata> reestampar = new ConcurrentHashMap<>();
+        AtomicInteger sinCambios = new AtomicInteger();
+
+        // Planner: corre en la etapa de split del pipeline y decide que segmentos embeddear
+        EmbeddingPipeline.Report report = pipeline.run(fuentes, (fuente, document) -> {
+            Map<String, TextSegment> porHash = new LinkedHashMap<>();
+            for (TextSegment segmento : splitter.split(document)) {
+                porHash.putIfAbsent(sha256(segmento.text()), segmento);
+            }
+            List<String> previos = manifest.getOrDefault(fuente, List.of());
+            Map<String, Integer> posicionPrevia = new HashMap<>();
+            for (int i = 0; i < previos.size(); i++) {
+                posicionPrevia.put(previos.get(i), i);
+            }
+            List<EmbeddingPipeline.Item> nuevos = new ArrayList<>();
+            int posicion = 0;
+            for (Map.Entry<String, TextSegment> entry : porHash.entrySet()) {
+                String hash = entry.getKey();
+                Metadata metadata = entry.getValue().metadata().copy().put(POSICION, String.valueOf(posicion));
+                Integer previa = posicionPrevia.get(hash);
+                if (previa == null) {
+                    nuevos.add(new EmbeddingPipeline.Item(idFor(fuente, hash), TextSegment.from(entry.getValue().text(), metadata)));
+                } else {
+                    sinCambios.incrementAndGet();
+                    if (previa != posicion) {
+                        reestampar.put(idFor(fuente, hash), metadata);
+                    }
+                }
+                posicion++;
+            }
+            previos.stream()
+                    .filter(hash -> !porHash.containsKey(hash))
+                    .forEach(hash -> idsBorrados.add(idFor(fuente, hash)));
+            hashesActuales.put(fuente, new ArrayList<>(porHash.keySet()));
+            return nuevos;
+        });
+
+        if (!idsBorrados.isEmpty()) {
+            embeddingStore.removeAll(idsBorrados);
+        }
+        // Antes del manifiesto: si el proceso muere aqui, la proxima pasada vuelve a re-estampar
+        embeddingStore.updateMetadata(reestampar);
+        manifest.putAll(hashesActuales);
+        saveManifest();
+        if (report.segments() > 0 || !idsBorrados.isEmpty()) {
+            corpusVersion.incrementAndGet();
+        }
+
+        Resultado resultado = new Resultado(report.segments(), idsBorrados.size(), sinCambios.get());
+        log.info("Ingesta incremental de {} documento(s): {}", fuentes.size(), resultado);
+        return resultado;
+    }
+
+    /**
+     * Quita del store todos los segmentos de un documento (por ejemplo, archivo borrado).
+     */
+    public synchronized void remove(String fuente) {
+        List<String> previos = manifest.remove(fuente);
+        if (previos == null || previos.isEmpty()) {
+            return;
+        }
+        embeddingStore.removeAll(previos.stream().map(hash -> idFor(fuente, hash)).toList());
+        saveManifest();
+        corpusVersion.incrementAndGet();
+        log.info("Documento eliminado del store: {} ({} segmentos)", fuente, previos.size());
+    }
+
+    public long corpusVersion() {
+        return corpusVersion.get();
+    }
+
+    public Resultado ingestFile(Path archivo) {
+        return ingestAll(List.of(fileSource(archivo.toAbsolutePath().normalize())));
+    }
+
+    /**
+     * Sincroniza todos los archivos del directorio y borra los documentos que ya no existen.
+     */
+    public synchronized void syncDirectory(Path directorio) throws IOException {
+        Path base = directorio.toAbsolutePath().normalize();
+        List<EmbeddingPipeline.Source> fuentes;
+        try (Stream<Path> archivos = Files.list(base)) {
+            fuentes = archivos.filter(Files::isRegularFile).map(IncrementalIngestor::fileSource).toList();
+        }
+        if (!fuentes.isEmpty()) {
+            ingestAll(fuentes);
+        }
+        Set<String> presentes = new HashSet<>();
+        fuentes.forEach(fuente -> presentes.add(fuente.name()));
+        for (String fuente : List.copyOf(manifest.keySet())) {
+            if (fuente.startsWith(base + base.getFileSystem().getSeparator()) && !presentes.contains(fuente)) {
+                remove(fuente);
+            }
+        }
+    }
+
+    private static EmbeddingPipeline.Source fileSource(Path archivo) {
+        return new EmbeddingPipeline.Source(archivo.toString(),
+                () -> FileSystemDocumentLoader.loadDocument(archivo, new TextDocumentParser()));
+    }
+
+    // ============================================
+    // VIGILANCIA DEL DIRECTORIO EN RUNTIME
+    // ============================================
+
+    public synchronized void watch(Path directorio) throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Ya se esta vigilando un directorio");
+        }
+        Path base = directorio.toAbsolutePath().normalize();
+        watchService = FileSystems.getDefault().newWatchService();
+        base.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // OVERFLOW: se perdieron eventos, se re-sincroniza el directorio entero
+                        Path archivo = event.kind() == StandardWatchEventKinds.OVERFLOW
+                                ? base : base.resolve((Path) event.context());
+                        try {
+                            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                                syncDirectory(base);
+                            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                                remove(archivo.toString());
+                            } else if (Files.isRegularFile(archivo)) {
+                                ingestFile(archivo);
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            // Un evento fallido no detiene la vigilancia
+                            log.warn("No se pudo re-ingestar {}: {}", archivo, e.getMessage());
+                        }
+                    }
+                    if (!key.reset()) {
+                        log.warn("El directorio {} ya no es accesible, se detiene la vigilancia", base);
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // cierre normal
+            }
+        }, "rag-docs-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Vigilando cambios en {}", base);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        watcher = null;
+    }
+
+    // ============================================
+    // MANIFIESTO
+    // ============================================
+
+    /**
+     * Alinea manifiesto y store antes de la primera ingesta (lee el store: abrirlo primero).
+     * - Store creado antes de existir el manifiesto: sus ids no son reconocibles, se vacia una vez.
+     * - Manifiesto sin vectores (p. ej. se paso a rag.store.shards=N y los shards estan vacios):
+     *   diria "nada cambio" y no se reingestaria nada, asi que se descarta.
+     */
+    public synchronized void reconciliar() throws IOException {
+        boolean hayManifiesto = Files.exists(manifestPath);
+        if (!hayManifiesto && embeddingStore.size() > 0) {
+            log.info("Store sin manifiesto de ingesta: se vacia para reingestar");
+            embeddingStore.removeAll();
+        } else if (hayManifiesto && embeddingStore.size() == 0) {
+            log.info("Manifiesto sin vectores en el store: se descarta {}", manifestPath);
+            manifest.clear();
+            Files.delete(manifestPath);
+        }
+    }
+
+    private Map<String, List<String>> loadManifest() {
+        if (!Files.exists(manifestPath)) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(manifestPath.toFile(), new TypeReference<HashMap<String, List<String>>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Manifiesto de ingesta corrupto: " + manifestPath, e);
+        }
+    }
+
+    private void saveManifest() {
+        // Escritura atomica: archivo temporal + move, para no dejar un manifiesto a medias
+        Path tmp = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(manifestPath.toAbsolutePath().getParent());
+            objectMapper.writeValue(tmp.toFile(), manifest);
+            Files.move(tmp, manifestPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el manifiesto " + manifestPath, e);
+        }
+    }
+
+    private static String idFor(String fuente, String hash) {
+        return UUID.nameUUIDFromBytes((fuente + ":" + hash).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String sha256(String texto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * EmbeddingModel que se crea en el PRIMER USO, no al arrancar.
+ *
+ * POR QUE: crear AllMiniLmL6V2EmbeddingModel carga el modelo ONNX (varios segundos y ~100 MB).
+ * Si el corpus no cambio desde el ultimo arranque (manifiesto de IncrementalIngestor), la
+ * ingesta no necesita ningun embedding: el modelo se carga recien con la primera pregunta.
+ *
+ * Thread-safe: varios hilos que lo usan a la vez esperan a una sola carga.
+ */
+@Slf4j
+public class LazyEmbeddingModel implements EmbeddingModel {
+
+    private final Supplier<EmbeddingModel> fabrica;
+    private final Consumer<Duration> alCargar;
+    private volatile EmbeddingModel delegate;
+
+    /**
+     * @param alCargar recibe cuanto tardo la carga (para el reporte de arranque)
+     */
+    public LazyEmbeddingModel(Supplier<EmbeddingModel> fabrica, Consumer<Duration> alCargar) {
+        this.fabrica = fabrica;
+        this.alCargar = alCargar;
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+        return delegate().embedAll(segments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate().dimension();
+    }
+
+    @Override
+    public String modelName() {
+        return delegate().modelName();
+    }
+
+    public boolean isLoaded() {
+        return delegate != null;
+    }
+
+    private EmbeddingModel delegate() {
+        EmbeddingModel actual = delegate;
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (this) {
+            if (delegate == null) {
+                long inicio = System.nanoTime();
+                EmbeddingModel creado = fabrica.get();
+                Duration carga = Duration.ofNanos(System.nanoTime() - inicio);
+                log.info("Modelo de embeddings cargado en {} ms", carga.toMillis());
+                delegate = creado;
+                alCargar.accept(carga);
+            }
+            return delegate;
+        }
+    }
+}
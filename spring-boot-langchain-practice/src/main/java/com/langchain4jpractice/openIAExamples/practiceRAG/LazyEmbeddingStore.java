@@ -0,0 +1,149 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.filter.Filter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LexicalEmbeddingStore que se abre en el PRIMER USO (o con abrir()), no al crear el bean.
+ *
+ * POR QUE: abrir un MappedEmbeddingStore relee todo segments.log, reconstruye el grafo HNSW
+ * (efConstruction por nodo) y compacta si quedaron borrados. Con un corpus grande son segundos
+ * que, hechos al crear el bean, retrasan el momento en que Tomcat acepta conexiones.
+ * RagConfig lo abre en la fase "store" del hilo rag-warmup, detras del gate de readiness.
+ *
+ * hasLexicalIndex() se responde sin abrir (lo consulta HybridContentRetriever al crearse).
+ * Thread-safe: varios hilos que lo usan a la vez esperan a una sola apertura.
+ */
+@Slf4j
+public class LazyEmbeddingStore implements LexicalEmbeddingStore {
+
+    private final Supplier<LexicalEmbeddingStore> fabrica;
+    private final boolean lexico;
+    private volatile LexicalEmbeddingStore delegate;
+
+    /**
+     * @param fabrica abre el store (y lo compacta si hace falta)
+     * @param lexico  si el store que crea la fabrica tiene indice BM25
+     */
+    public LazyEmbeddingStore(Supplier<LexicalEmbeddingStore> fabrica, boolean lexico) {
+        this.fabrica = fabrica;
+        this.lexico = lexico;
+    }
+
+    /** Abre el store si aun no esta abierto. */
+    public void abrir() {
+        delegate();
+    }
+
+    public boolean isOpen() {
+        return delegate != null;
+    }
+
+    @Override
+    public String add(Embedding embedding) {
+        return delegate().add(embedding);
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        delegate().add(id, embedding);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        return delegate().add(embedding, textSegment);
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        return delegate().addAll(embeddings);
+    }
+
+    @Override
+    public void addAll(List<String> ids, List<Embedding> embeddings, List<TextSegment> embedded) {
+        delegate().addAll(ids, embeddings, embedded);
+    }
+
+    @Override
+    public void removeAll(Collection<String> ids) {
+        delegate().removeAll(ids);
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        delegate().removeAll(filter);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate().removeAll();
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        return delegate().search(request);
+    }
+
+    @Override
+    public List<EmbeddingMatch<TextSegment>> searchLexical(String consulta, int maxResults) {
+        return delegate().searchLexical(consulta, maxResults);
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> searchPrefiltered(EmbeddingSearchRequest request, String consulta,
+                                                                int maxCandidates) {
+        return delegate().searchPrefiltered(request, consulta, maxCandidates);
+    }
+
+    @Override
+    public boolean hasLexicalIndex() {
+        return lexico;
+    }
+
+    @Override
+    public void updateMetadata(Map<String, Metadata> metadataById) {
+        delegate().updateMetadata(metadataById);
+    }
+
+    @Override
+    public int size() {
+        return delegate().size();
+    }
+
+    /** Cierra el store solo si llego a abrirse. */
+    @Override
+    public synchronized void close() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+
+    private LexicalEmbeddingStore delegate() {
+        LexicalEmbeddingStore actual = delegate;
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (this) {
+            if (delegate == null) {
+                long inicio = System.nanoTime();
+                LexicalEmbeddingStore abierto = fabrica.get();
+                log.info("Embedding store abierto en {} ms ({} segmentos)",
+                        Duration.ofNanos(System.nanoTime() - inicio).toMillis(), abierto.size());
+                delegate = abierto;
+            }
+            return delegate;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.EmbeddingStore;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lo que HybridContentRetriever y RagConfig necesitan de un store: busqueda densa (EmbeddingStore)
+ * y, opcionalmente, lexica (BM25).
+ *
+ * IMPLEMENTACIONES:
+ * - MappedEmbeddingStore  : un solo store (archivo mapeado + log).
+ * - ShardedEmbeddingStore : N MappedEmbeddingStore consultados en paralelo (scatter-gather).
+ */
+public interface LexicalEmbeddingStore extends EmbeddingStore<TextSegment>, Closeable {
+
+    /** Solo BM25; el score es el de BM25 (no esta en [0, 1]). */
+    List<EmbeddingMatch<TextSegment>> searchLexical(String consulta, int maxResults);
+
+    /** BM25 elige hasta 'maxCandidates' segmentos y solo ellos se puntuan con el coseno. */
+    EmbeddingSearchResult<TextSegment> searchPrefiltered(EmbeddingSearchRequest request, String consulta,
+                                                         int maxCandidates);
+
+    boolean hasLexicalIndex();
+
+    /** Reemplaza la metadata de segmentos ya guardados (mismo texto, mismo vector). Ignora ids desconocidos. */
+    void updateMetadata(Map<String, Metadata> metadataById);
+
+    /** Segmentos vivos. */
+    int size();
+
+    @Override
+    void close();
+}
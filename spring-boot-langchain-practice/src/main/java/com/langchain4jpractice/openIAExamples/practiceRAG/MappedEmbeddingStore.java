@@ -0,0 +1,1052 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.RelevanceScore;
+import dev.langchain4j.store.embedding.filter.Filter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * EmbeddingStore persistente: los vectores viven en un archivo float32 contiguo
+ * mapeado en memoria (NIO) y el texto + metadata en un archivo lateral.
+ *
+ * ARCHIVOS (dentro del directorio configurado):
+ * - vectors.f32  : cabecera (magic + dimension) seguida de un vector float32 por slot.
+ * - segments.log : log append-only, una linea JSON por operacion (add / del / clear).
+ *                  Es la fuente de verdad al arrancar.
+ *
+ * APPEND SEGURO ANTE CRASH:
+ * 1. Se escribe el vector en su slot y se hace force() del mapeo.
+ * 2. Se agrega la linea al log y se hace force() del canal.
+ * Si el proceso muere entre 1 y 2, el slot queda huerfano y se sobrescribe en el siguiente add.
+ * Si muere a mitad de una linea, esa linea incompleta se trunca al abrir el store.
+ *
+ * HEAP: solo se guardan ids, normas y offsets del log. El texto de un segmento
+ * se lee del disco unicamente cuando aparece en el top-k (o cuando hay filtro).
+ *
+ * COMPACTACION: compact() reescribe solo los vectores vivos y hace el swap con move atomico.
+ *
+ * BUSQUEDA: por defecto es un escaneo exacto. Si se pasa un HnswIndex.Config, search() usa
+ * un grafo HNSW (reconstruido al abrir e insertado de forma incremental en cada add).
+ * Las busquedas con filtro de metadata siguen usando el escaneo exacto. Los nodos borrados o
+ * reemplazados siguen en el grafo (HNSW no soporta quitar nodos): search() pide tantos
+ * candidatos extra como nodos muertos haya, y cuando superan MAX_DEAD_RATIO del grafo se
+ * reconstruye solo con los slots vivos.
+ *
+ * LEXICO (opcional): con un Bm25Index.Config, el texto de cada segmento tambien se indexa en un
+ * indice invertido BM25 (reconstruido al abrir, igual que HNSW). Sirve para searchLexical()
+ * (palabras exactas: nombres, codigos) y para searchPrefiltered(), que solo calcula el coseno
+ * de los candidatos lexicos en lugar de todo el corpus.
+ *
+ * CUANTIZACION (opcional, alternativa a HNSW): con un QuantizedIndex.Config, search() recorre
+ * una copia int8 (~4x menos) o binaria (~32x menos) de los vectores en el heap y solo re-puntua
+ * con los float32 del mapeo los maxResults * oversample mejores candidatos.
+ */
+@Slf4j
+public class MappedEmbeddingStore implements LexicalEmbeddingStore {
+
+    private static final int MAGIC = 0x4C34564D;
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EXACT_BLOCK = 256;
+    // Fraccion de nodos muertos en el grafo a partir de la cual se reconstruye
+    private static final double MAX_DEAD_RATIO = 0.25;
+
+    private static final String VECTORS_FILE = "vectors.f32";
+    private static final String LOG_FILE = "segments.log";
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private final Path vectorsPath;
+    private final Path logPath;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final HnswIndex index;
+    private final Bm25Index lexical;
+    private final QuantizedIndex quantized;
+    private final SimilarityKernel kernel = SimilarityKernels.actual();
+
+    private FileChannel vectorsChannel;
+    private FileChannel logChannel;
+    private ByteBuffer vectors;
+    private FloatBuffer floats;
+
+    private int dimension;
+    private int capacity;
+    private int slotCount;
+    private int liveCount;
+    // Nodos del grafo HNSW cuyo slot ya esta borrado (ocupan candidatos de efSearch)
+    private int deadInGraph;
+
+    // Indices en heap (por slot). ids[slot] == null significa slot borrado.
+    private String[] ids = new String[0];
+    private float[] norms = new float[0];
+    private long[] logOffsets = new long[0];
+    private int[] logLengths = new int[0];
+    private final Map<String, Integer> slotById = new HashMap<>();
+
+    public MappedEmbeddingStore(Path directory) {
+        this(directory, null);
+    }
+
+    public MappedEmbeddingStore(Path directory, HnswIndex.Config hnsw) {
+        this(directory, hnsw, null);
+    }
+
+    public MappedEmbeddingStore(Path directory, HnswIndex.Config hnsw, Bm25Index.Config bm25) {
+        this(directory, hnsw, bm25, null);
+    }
+
+    public MappedEmbeddingStore(Path directory, HnswIndex.Config hnsw, Bm25Index.Config bm25,
+                                QuantizedIndex.Config quantization) {
+        if (hnsw != null && quantization != null) {
+            throw new IllegalArgumentException("HNSW y cuantizacion son alternativas: configura solo una");
+        }
+        this.quantized = quantization == null ? null : new QuantizedIndex(quantization);
+        this.lexical = bm25 == null ? null : new Bm25Index(bm25);
+        this.index = hnsw == null ? null : new HnswIndex(hnsw, new HnswIndex.VectorSource() {
+            @Override
+            public float[] unitVector(int node) {
+                return HnswIndex.normalize(readVector(node));
+            }
+
+            @Override
+            public double similarity(float[] unitQuery, int node) {
+                return cosine(unitQuery, 1f, node);
+            }
+        });
+        this.vectorsPath = directory.resolve(VECTORS_FILE);
+        this.logPath = directory.resolve(LOG_FILE);
+        try {
+            Files.createDirectories(directory);
+            recoverInterruptedCompaction();
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el embedding store en " + directory, e);
+        }
+    }
+
+    // ============================================
+    // ESCRITURA
+    // ============================================
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), textSegment == null ? null : List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> newIds = generateIds(embeddings.size());
+        addAll(newIds, embeddings, null);
+        return newIds;
+    }
+
+    @Override
+    public void addAll(List<String> newIds, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (newIds.size() != embeddings.size() || (embedded != null && embedded.size() != embeddings.size())) {
+            throw new IllegalArgumentException("ids, embeddings y segmentos deben tener el mismo tamano");
+        }
+        if (embeddings.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // PASO 0: validar TODO antes de escribir nada; un vector invalido a mitad del lote
+            // dejaria persistidos los borrados de los ids que iba a reemplazar
+            int esperada = dimension == 0 ? embeddings.get(0).vector().length : dimension;
+            for (Embedding embedding : embeddings) {
+                if (embedding.vector().length != esperada) {
+                    throw new IllegalArgumentException(
+                            "Dimension " + embedding.vector().length + " no coincide con la del store (" + esperada + ")");
+                }
+            }
+
+            // Un id repetido reemplaza al anterior (mismo comportamiento que InMemoryEmbeddingStore)
+            List<String> reemplazados = newIds.stream().filter(slotById::containsKey).toList();
+            if (!reemplazados.isEmpty()) {
+                appendDeletes(reemplazados);
+            }
+
+            // PASO 1: vectores al mapeo + force()
+            int firstSlot = slotCount;
+            float[] newNorms = new float[embeddings.size()];
+            for (int i = 0; i < embeddings.size(); i++) {
+                float[] vector = embeddings.get(i).vector();
+                ensureDimension(vector.length);
+                ensureCapacity(firstSlot + i + 1);
+                floats.put(floatIndex(firstSlot + i), vector);
+                newNorms[i] = norm(vector);
+            }
+            forceVectors();
+
+            // PASO 2: lineas del log + force(). Solo ahora el add es "oficial".
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            long offset = logChannel.size();
+            long[] offsets = new long[embeddings.size()];
+            int[] lengths = new int[embeddings.size()];
+            for (int i = 0; i < embeddings.size(); i++) {
+                byte[] line = addLine(newIds.get(i), firstSlot + i, embedded == null ? null : embedded.get(i));
+                offsets[i] = offset + lines.size();
+                lengths[i] = line.length;
+                lines.write(line);
+                lines.write('\n');
+            }
+            appendToLog(lines.toByteArray());
+
+            for (int i = 0; i < embeddings.size(); i++) {
+                registerSlot(firstSlot + i, newIds.get(i), newNorms[i], offsets[i], lengths[i]);
+                if (index != null) {
+                    index.insert(firstSlot + i);
+                }
+                if (lexical != null && embedded != null) {
+                    lexical.add(firstSlot + i, embedded.get(i).text());
+                }
+                if (quantized != null) {
+                    quantized.set(firstSlot + i, embeddings.get(i).vector());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reescribe la metadata de segmentos existentes SIN tocar su vector: ni HNSW, ni BM25, ni la
+     * copia cuantizada cambian. En el log es una nueva linea 'add' que apunta al MISMO slot; al
+     * reabrir, la ultima linea de ese id gana. Los ids que no estan en el store se ignoran.
+     */
+    @Override
+    public void updateMetadata(Map<String, Metadata> metadataById) {
+        if (metadataById.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            long offset = logChannel.size();
+            // slot, offset y largo de la nueva linea de cada segmento
+            List<long[]> posiciones = new ArrayList<>();
+            for (Map.Entry<String, Metadata> entry : metadataById.entrySet()) {
+                Integer slot = slotById.get(entry.getKey());
+                TextSegment actual = slot == null ? null : readSegment(slot);
+                if (actual == null) {
+                    continue;
+                }
+                byte[] line = addLine(entry.getKey(), slot, TextSegment.from(actual.text(), entry.getValue()));
+                posiciones.add(new long[]{slot, offset + lines.size(), line.length});
+                lines.write(line);
+                lines.write('\n');
+            }
+            if (posiciones.isEmpty()) {
+                return;
+            }
+            appendToLog(lines.toByteArray());
+            for (long[] posicion : posiciones) {
+                int slot = (int) posicion[0];
+                logOffsets[slot] = posicion[1];
+                logLengths[slot] = (int) posicion[2];
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty()) {
+            throw new IllegalArgumentException("ids no puede ser null ni vacio");
+        }
+        lock.writeLock().lock();
+        try {
+            List<String> existentes = idsToRemove.stream().filter(slotById::containsKey).toList();
+            if (!existentes.isEmpty()) {
+                appendDeletes(existentes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter no puede ser null");
+        }
+        List<String> coincidencias = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != null && matchesFilter(filter, slot)) {
+                    coincidencias.add(ids[slot]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!coincidencias.isEmpty()) {
+            removeAll(coincidencias);
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        lock.writeLock().lock();
+        try {
+            appendToLog((objectMapper.writeValueAsString(Map.of("op", "clear")) + "\n").getBytes(StandardCharsets.UTF_8));
+            for (int slot = 0; slot < slotCount; slot++) {
+                ids[slot] = null;
+            }
+            slotById.clear();
+            liveCount = 0;
+            if (index != null) {
+                index.clear();
+                deadInGraph = 0;
+            }
+            if (lexical != null) {
+                lexical.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================================
+    // BUSQUEDA
+    // ============================================
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        if (quantized != null && request.filter() == null) {
+            return searchQuantized(request);
+        }
+        if (index == null || request.filter() != null) {
+            return searchExact(request);
+        }
+        lock.readLock().lock();
+        try {
+            checkQueryDimension(request.queryEmbedding().vector());
+            // El grafo devuelve efSearch candidatos; aqui aplicamos minScore y maxResults.
+            // Se piden deadInGraph extra: aunque todos los muertos caigan entre los
+            // candidatos, quedan maxResults vivos.
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(request.maxResults());
+            for (HnswIndex.Candidate candidato : index.search(request.queryEmbedding().vector(), request.maxResults() + deadInGraph)) {
+                if (matches.size() == request.maxResults()) {
+                    break;
+                }
+                int slot = candidato.node();
+                double score = RelevanceScore.fromCosineSimilarity(candidato.similarity());
+                if (ids[slot] == null) {
+                    continue;
+                }
+                if (score < request.minScore()) {
+                    break;
+                }
+                matches.add(new EmbeddingMatch<>(score, ids[slot], Embedding.from(readVector(slot)), readSegment(slot)));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Escaneo exacto (fuerza bruta) sobre el mapeo. Es la referencia de recall para HNSW.
+     */
+    public EmbeddingSearchResult<TextSegment> searchExact(EmbeddingSearchRequest request) {
+        float[] query = request.queryEmbedding().vector();
+        float queryNorm = norm(query);
+        Filter filter = request.filter();
+
+        lock.readLock().lock();
+        try {
+            checkQueryDimension(query);
+            // Min-heap de tamano maxResults: la cabeza es el peor de los mejores
+            PriorityQueue<double[]> topK = new PriorityQueue<>(Comparator.comparingDouble(candidato -> candidato[0]));
+            // Por bloques de slots contiguos: el nucleo recorre la memoria mapeada en orden
+            float[] dots = new float[EXACT_BLOCK];
+            for (int slot = 0; slot < slotCount; slot++) {
+                int enBloque = slot % EXACT_BLOCK;
+                if (enBloque == 0) {
+                    kernel.dotBatch(query, vectors, floatIndex(slot) * Float.BYTES, Math.min(EXACT_BLOCK, slotCount - slot), dots);
+                }
+                if (ids[slot] == null) {
+                    continue;
+                }
+                double score = RelevanceScore.fromCosineSimilarity(cosine(dots[enBloque], queryNorm, slot));
+                if (score < request.minScore()) {
+                    continue;
+                }
+                if (topK.size() == request.maxResults() && score <= topK.peek()[0]) {
+                    continue;
+                }
+                if (filter != null && !matchesFilter(filter, slot)) {
+                    continue;
+                }
+                topK.offer(new double[]{score, slot});
+                if (topK.size() > request.maxResults()) {
+                    topK.poll();
+                }
+            }
+
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(topK.size());
+            while (!topK.isEmpty()) {
+                double[] candidato = topK.poll();
+                int slot = (int) candidato[1];
+                matches.add(new EmbeddingMatch<>(candidato[0], ids[slot], Embedding.from(readVector(slot)), readSegment(slot)));
+            }
+            matches.sort(Comparator.comparingDouble((EmbeddingMatch<TextSegment> m) -> m.score()).reversed());
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dos pasadas: 1) similitud aproximada sobre los codigos cuantizados de TODOS los vectores vivos,
+     * quedandose con maxResults * oversample candidatos; 2) coseno exacto (float32 del mapeo) solo
+     * para esos candidatos, y ahi se aplican minScore y maxResults.
+     */
+    private EmbeddingSearchResult<TextSegment> searchQuantized(EmbeddingSearchRequest request) {
+        float[] query = request.queryEmbedding().vector();
+        float queryNorm = norm(query);
+        lock.readLock().lock();
+        try {
+            checkQueryDimension(query);
+            QuantizedIndex.Consulta consulta = quantized.preparar(query);
+            int candidatos = request.maxResults() * quantized.oversample();
+            PriorityQueue<double[]> primeraPasada = new PriorityQueue<>(Comparator.comparingDouble(candidato -> candidato[0]));
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] == null) {
+                    continue;
+                }
+                double aproximado = quantized.similarity(consulta, slot);
+                if (primeraPasada.size() == candidatos && aproximado <= primeraPasada.peek()[0]) {
+                    continue;
+                }
+                primeraPasada.offer(new double[]{aproximado, slot});
+                if (primeraPasada.size() > candidatos) {
+                    primeraPasada.poll();
+                }
+            }
+
+            List<double[]> repuntuados = new ArrayList<>(primeraPasada.size());
+            for (double[] candidato : primeraPasada) {
+                int slot = (int) candidato[1];
+                double score = RelevanceScore.fromCosineSimilarity(cosine(query, queryNorm, slot));
+                if (score >= request.minScore()) {
+                    repuntuados.add(new double[]{score, slot});
+                }
+            }
+            repuntuados.sort(Comparator.comparingDouble((double[] candidato) -> candidato[0]).reversed());
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(request.maxResults());
+            for (double[] candidato : repuntuados.subList(0, Math.min(request.maxResults(), repuntuados.size()))) {
+                int slot = (int) candidato[1];
+                matches.add(new EmbeddingMatch<>(candidato[0], ids[slot], Embedding.from(readVector(slot)), readSegment(slot)));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Bytes en heap por vector de la copia cuantizada; 0 si el store no cuantiza. */
+    public int quantizedBytesPerVector() {
+        lock.readLock().lock();
+        try {
+            return quantized == null ? 0 : quantized.bytesPerVector();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busqueda solo lexica (BM25): no usa vectores. El score de cada match es el de BM25
+     * (no esta en [0, 1]); sirve para ordenar, no para compararlo con un minScore de coseno.
+     */
+    @Override
+    public List<EmbeddingMatch<TextSegment>> searchLexical(String consulta, int maxResults) {
+        requireLexical();
+        lock.readLock().lock();
+        try {
+            List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+            for (Bm25Index.Candidate candidato : lexical.search(consulta, maxResults)) {
+                int slot = candidato.node();
+                matches.add(new EmbeddingMatch<>(candidato.score(), ids[slot], null, readSegment(slot)));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Prefiltro lexico: BM25 elige hasta 'maxCandidates' segmentos y el coseno exacto se calcula
+     * SOLO sobre ellos. El costo denso queda acotado por maxCandidates, no por el corpus.
+     * Si la consulta no comparte ningun termino con el corpus (parafrasis), cae en search().
+     */
+    @Override
+    public EmbeddingSearchResult<TextSegment> searchPrefiltered(EmbeddingSearchRequest request, String consulta,
+                                                                int maxCandidates) {
+        requireLexical();
+        float[] query = request.queryEmbedding().vector();
+        float queryNorm = norm(query);
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            checkQueryDimension(query);
+            List<Bm25Index.Candidate> candidatos = lexical.search(consulta, maxCandidates);
+            if (candidatos.isEmpty()) {
+                return search(request);
+            }
+            List<double[]> puntuados = new ArrayList<>(candidatos.size());
+            for (Bm25Index.Candidate candidato : candidatos) {
+                int slot = candidato.node();
+                double score = RelevanceScore.fromCosineSimilarity(cosine(query, queryNorm, slot));
+                if (score >= request.minScore()
+                        && (request.filter() == null || matchesFilter(request.filter(), slot))) {
+                    puntuados.add(new double[]{score, slot});
+                }
+            }
+            puntuados.sort(Comparator.comparingDouble((double[] candidato) -> candidato[0]).reversed());
+            for (double[] candidato : puntuados.subList(0, Math.min(request.maxResults(), puntuados.size()))) {
+                int slot = (int) candidato[1];
+                matches.add(new EmbeddingMatch<>(candidato[0], ids[slot], Embedding.from(readVector(slot)), readSegment(slot)));
+            }
+            return new EmbeddingSearchResult<>(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasLexicalIndex() {
+        return lexical != null;
+    }
+
+    private void requireLexical() {
+        if (lexical == null) {
+            throw new IllegalStateException("El store no tiene indice lexico (BM25) configurado");
+        }
+    }
+
+    // ============================================
+    // COMPACTACION
+    // ============================================
+
+    /**
+     * Reescribe los archivos dejando solo los vectores vivos (slots contiguos).
+     *
+     * Orden de commit: vectors.f32.compact se mueve primero y segments.log.compact despues.
+     * Si el proceso muere en medio, recoverInterruptedCompaction() decide al abrir
+     * si descartar (aun existe el .compact de vectores) o completar el swap.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (liveCount == slotCount) {
+                return;
+            }
+            Path tmpVectors = compactPath(vectorsPath);
+            Path tmpLog = compactPath(logPath);
+
+            try (FileChannel out = FileChannel.open(tmpVectors, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(dimension).flip();
+                writeFully(out, buffer);
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (ids[slot] == null) {
+                        continue;
+                    }
+                    buffer.clear();
+                    buffer.asFloatBuffer().put(readVector(slot));
+                    buffer.limit(dimension * Float.BYTES);
+                    writeFully(out, buffer);
+                }
+                out.force(true);
+            }
+
+            try (FileChannel out = FileChannel.open(tmpLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                int newSlot = 0;
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (ids[slot] == null) {
+                        continue;
+                    }
+                    ObjectNode node = (ObjectNode) objectMapper.readTree(readLogLine(slot));
+                    node.put("slot", newSlot++);
+                    writeFully(out, ByteBuffer.wrap((objectMapper.writeValueAsString(node) + "\n").getBytes(StandardCharsets.UTF_8)));
+                }
+                out.force(true);
+            }
+
+            int antes = slotCount;
+            closeChannels();
+            Files.move(tmpVectors, vectorsPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmpLog, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            open();
+            log.info("Compactacion del embedding store: {} slots -> {} slots", antes, slotCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fallo la compactacion del embedding store", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta efSearch del grafo HNSW en caliente (no requiere reconstruir el indice).
+     */
+    public void setEfSearch(int efSearch) {
+        if (index == null) {
+            throw new IllegalStateException("El store no tiene indice HNSW configurado");
+        }
+        lock.writeLock().lock();
+        try {
+            index.setEfSearch(efSearch);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajusta cuantos candidatos por resultado se re-puntuan en modo cuantizado (en caliente).
+     */
+    public void setOversample(int oversample) {
+        if (quantized == null) {
+            throw new IllegalStateException("El store no tiene cuantizacion configurada");
+        }
+        lock.writeLock().lock();
+        try {
+            quantized.setOversample(oversample);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return slotCount - liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closeChannels();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ============================================
+    // APERTURA Y RECUPERACION
+    // ============================================
+
+    private void recoverInterruptedCompaction() throws IOException {
+        Path tmpVectors = compactPath(vectorsPath);
+        Path tmpLog = compactPath(logPath);
+        if (Files.exists(tmpVectors)) {
+            // El swap nunca empezo: los archivos originales siguen intactos
+            Files.deleteIfExists(tmpVectors);
+            Files.deleteIfExists(tmpLog);
+        } else if (Files.exists(tmpLog)) {
+            // Los vectores ya se movieron: completamos el swap del log
+            Files.move(tmpLog, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void open() throws IOException {
+        vectorsChannel = FileChannel.open(vectorsPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        dimension = 0;
+        capacity = 0;
+        slotCount = 0;
+        liveCount = 0;
+        ids = new String[0];
+        norms = new float[0];
+        logOffsets = new long[0];
+        logLengths = new int[0];
+        slotById.clear();
+        vectors = null;
+        floats = null;
+        if (lexical != null) {
+            lexical.clear(); // replayLog() lo vuelve a llenar con el texto de cada linea "add"
+        }
+        if (quantized != null) {
+            quantized.clear(); // idem con los vectores
+        }
+
+        if (vectorsChannel.size() >= HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            vectorsChannel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("El archivo " + vectorsPath + " no es un store de vectores valido");
+            }
+            dimension = header.getInt();
+            long slotsEnDisco = (vectorsChannel.size() - HEADER_BYTES) / ((long) dimension * Float.BYTES);
+            map((int) Math.max(slotsEnDisco, INITIAL_CAPACITY));
+        }
+        replayLog();
+
+        rebuildIndex();
+    }
+
+    private void replayLog() throws IOException {
+        long offset = 0;
+        long validUntil = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(logPath))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] bytes = line.toByteArray();
+                line.reset();
+                applyLogLine(bytes, offset);
+                offset += bytes.length + 1;
+                validUntil = offset;
+            }
+            if (line.size() > 0) {
+                // Ultima linea sin '\n': append interrumpido por un crash
+                log.warn("Se descarta una linea incompleta al final de {} ({} bytes)", logPath, line.size());
+            }
+        }
+        if (logChannel.size() > validUntil) {
+            logChannel.truncate(validUntil);
+            logChannel.force(true);
+        }
+    }
+
+    private void applyLogLine(byte[] bytes, long offset) throws IOException {
+        var node = objectMapper.readTree(bytes);
+        switch (node.get("op").asText()) {
+            case "add" -> {
+                int slot = node.get("slot").asInt();
+                String id = node.get("id").asText();
+                if (slot >= capacity) {
+                    throw new IOException("El log referencia el slot " + slot + " que no existe en " + vectorsPath);
+                }
+                Integer previo = slotById.get(id);
+                if (previo != null) {
+                    markDeleted(previo);
+                }
+                slotCount = Math.max(slotCount, slot + 1);
+                ensureIndexCapacity(slotCount);
+                float[] vector = readVector(slot);
+                registerSlot(slot, id, norm(vector), offset, bytes.length);
+                if (quantized != null) {
+                    quantized.set(slot, vector);
+                }
+                if (lexical != null && node.has("text")) {
+                    lexical.add(slot, node.get("text").asText());
+                }
+            }
+            case "del" -> {
+                Integer slot = slotById.remove(node.get("id").asText());
+                if (slot != null) {
+                    markDeleted(slot);
+                }
+            }
+            case "clear" -> {
+                Arrays.fill(ids, null);
+                slotById.clear();
+                liveCount = 0;
+                if (lexical != null) {
+                    lexical.clear();
+                }
+            }
+            default -> throw new IOException("Operacion desconocida en " + logPath + ": " + node.get("op"));
+        }
+    }
+
+    // ============================================
+    // UTILIDADES INTERNAS
+    // ============================================
+
+    private void registerSlot(int slot, String id, float norm, long offset, int length) {
+        ensureIndexCapacity(slot + 1);
+        ids[slot] = id;
+        norms[slot] = norm;
+        logOffsets[slot] = offset;
+        logLengths[slot] = length;
+        slotById.put(id, slot);
+        slotCount = Math.max(slotCount, slot + 1);
+        liveCount++;
+    }
+
+    private void appendDeletes(List<String> idsToRemove) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (String id : idsToRemove) {
+            lines.append(objectMapper.writeValueAsString(Map.of("op", "del", "id", id))).append('\n');
+        }
+        appendToLog(lines.toString().getBytes(StandardCharsets.UTF_8));
+        for (String id : idsToRemove) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                markDeleted(slot);
+            }
+        }
+        if (index != null && deadInGraph > MAX_DEAD_RATIO * index.size()) {
+            log.info("Reconstruyendo el grafo HNSW: {} de {} nodos borrados", deadInGraph, index.size());
+            rebuildIndex();
+        }
+    }
+
+    /** Rehace el grafo HNSW solo con los slots vivos. */
+    private void rebuildIndex() {
+        if (index == null) {
+            return;
+        }
+        index.clear();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != null) {
+                index.insert(slot);
+            }
+        }
+        deadInGraph = 0;
+    }
+
+    private void markDeleted(int slot) {
+        ids[slot] = null;
+        liveCount--;
+        deadInGraph++;
+        if (lexical != null) {
+            lexical.remove(slot);
+        }
+    }
+
+    private byte[] addLine(String id, int slot, TextSegment segment) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("op", "add");
+        node.put("id", id);
+        node.put("slot", slot);
+        if (segment != null) {
+            node.put("text", segment.text());
+            node.set("metadata", objectMapper.valueToTree(segment.metadata().toMap()));
+        }
+        return objectMapper.writeValueAsBytes(node);
+    }
+
+    private void appendToLog(byte[] bytes) throws IOException {
+        writeFully(logChannel, ByteBuffer.wrap(bytes), logChannel.size());
+        logChannel.force(true);
+    }
+
+    private void checkQueryDimension(float[] query) {
+        if (slotCount > 0 && query.length != dimension) {
+            throw new IllegalArgumentException(
+                    "La dimension de la consulta (" + query.length + ") no coincide con la del store (" + dimension + ")");
+        }
+    }
+
+    private boolean matchesFilter(Filter filter, int slot) {
+        TextSegment segment = readSegment(slot);
+        return segment != null && filter.test(segment.metadata());
+    }
+
+    private TextSegment readSegment(int slot) {
+        try {
+            var node = objectMapper.readTree(readLogLine(slot));
+            if (!node.has("text")) {
+                return null;
+            }
+            Map<String, Object> metadata = node.has("metadata")
+                    ? objectMapper.convertValue(node.get("metadata"), objectMapper.getTypeFactory()
+                            .constructMapType(Map.class, String.class, Object.class))
+                    : Map.of();
+            return TextSegment.from(node.get("text").asText(), Metadata.from(metadata));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] readLogLine(int slot) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(logLengths[slot]);
+        long position = logOffsets[slot];
+        while (buffer.hasRemaining()) {
+            int leidos = logChannel.read(buffer, position);
+            if (leidos < 0) {
+                throw new IOException("Fin inesperado de " + logPath);
+            }
+            position += leidos;
+        }
+        return buffer.array();
+    }
+
+    private float[] readVector(int slot) {
+        float[] vector = new float[dimension];
+        floats.get(floatIndex(slot), vector);
+        return vector;
+    }
+
+    private double cosine(float[] query, float queryNorm, int slot) {
+        return cosine(kernel.dot(query, vectors, floatIndex(slot) * Float.BYTES), queryNorm, slot);
+    }
+
+    private double cosine(float dot, float queryNorm, int slot) {
+        double denominador = (double) queryNorm * norms[slot];
+        return denominador == 0 ? 0 : dot / denominador;
+    }
+
+    private static float norm(float[] vector) {
+        double suma = 0;
+        for (float v : vector) {
+            suma += v * v;
+        }
+        return (float) Math.sqrt(suma);
+    }
+
+    private int floatIndex(int slot) {
+        return HEADER_BYTES / Float.BYTES + slot * dimension;
+    }
+
+    private void ensureDimension(int length) throws IOException {
+        if (dimension == 0) {
+            dimension = length;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(dimension).flip();
+            writeFully(vectorsChannel, header, 0);
+            map(INITIAL_CAPACITY);
+        } else if (dimension != length) {
+            throw new IllegalArgumentException(
+                    "Dimension " + length + " no coincide con la del store (" + dimension + ")");
+        }
+    }
+
+    private void ensureCapacity(int slots) throws IOException {
+        if (slots > capacity) {
+            // Duplicar, pero sin pasar del maximo de un mapeo: cerca del limite, duplicar pediria
+            // mas de 2 GB y fallaria mucho antes de llenar el archivo
+            long maximo = (Integer.MAX_VALUE - HEADER_BYTES) / ((long) dimension * Float.BYTES);
+            map((int) Math.max(slots, Math.min(capacity * 2L, maximo)));
+        }
+    }
+
+    private void map(int slots) throws IOException {
+        long bytes = HEADER_BYTES + (long) slots * dimension * Float.BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            // Un MappedByteBuffer indexa con int: ~1.4M vectores de 384 dims por archivo
+            throw new IllegalStateException("El store supera el maximo de un solo mapeo (2 GB)");
+        }
+        vectors = vectorsChannel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        floats = vectors.asFloatBuffer();
+        capacity = slots;
+        ensureIndexCapacity(slots);
+    }
+
+    private void ensureIndexCapacity(int slots) {
+        if (ids.length < slots) {
+            int nuevo = Math.max(slots, ids.length * 2);
+            ids = Arrays.copyOf(ids, nuevo);
+            norms = Arrays.copyOf(norms, nuevo);
+            logOffsets = Arrays.copyOf(logOffsets, nuevo);
+            logLengths = Arrays.copyOf(logLengths, nuevo);
+        }
+    }
+
+    private void forceVectors() {
+        if (vectors instanceof java.nio.MappedByteBuffer mapped) {
+            mapped.force();
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        forceVectors();
+        if (vectorsChannel != null && vectorsChannel.isOpen()) {
+            vectorsChannel.close();
+        }
+        if (logChannel != null && logChannel.isOpen()) {
+            logChannel.close();
+        }
+    }
+
+    private static Path compactPath(Path path) {
+        return path.resolveSibling(path.getFileName() + COMPACT_SUFFIX);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
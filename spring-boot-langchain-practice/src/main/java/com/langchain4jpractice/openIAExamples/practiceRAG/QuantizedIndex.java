@@ -0,0 +1,164 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.util.Arrays;
+
+/**
+ * Copia COMPRIMIDA de los vectores en el heap para la primera pasada de la busqueda.
+ *
+ * IDEA: un vector MiniLM de 384 dims ocupa 1.5 KB en float32. Para decidir que candidatos
+ * merecen el coseno exacto basta una aproximacion mucho mas pequena:
+ * - INT8   : cada componente del vector unitario pasa a un byte (-127..127) con una escala
+ *            por vector. 384 B + 4 B (~4x menos). Coseno aproximado con error muy bajo.
+ * - BINARY : solo el signo de cada componente, 1 bit. 48 B (~32x menos). La similitud es
+ *            1 - 2 * hamming / dims; mas gruesa, necesita mas sobremuestreo.
+ *
+ * FLUJO: se recorren los codigos comprimidos (caben en cache de CPU), se quedan los
+ * maxResults * oversample mejores y SOLO esos se re-puntuan con los float32 del archivo
+ * mapeado (el nivel "frio": el sistema operativo puede sacarlo de RAM).
+ *
+ * Los nodos son los slots del store (igual que en HnswIndex). No es thread-safe: el store que
+ * lo usa lo protege con su propio lock.
+ */
+public class QuantizedIndex {
+
+    public enum Tipo { INT8, BINARY }
+
+    /**
+     * @param oversample candidatos de la primera pasada por cada resultado pedido
+     */
+    public record Config(Tipo tipo, int oversample) {
+        public Config {
+            if (tipo == null || oversample < 1) {
+                throw new IllegalArgumentException("Cuantizacion invalida: tipo requerido y oversample>=1");
+            }
+        }
+    }
+
+    /** Consulta preparada una sola vez por busqueda (vector unitario o sus bits de signo). */
+    public static final class Consulta {
+        private final float[] unit;
+        private final long[] bits;
+
+        private Consulta(float[] unit, long[] bits) {
+            this.unit = unit;
+            this.bits = bits;
+        }
+    }
+
+    private final Tipo tipo;
+    private final SimilarityKernel kernel = SimilarityKernels.actual();
+    private int oversample;
+
+    private int dimension;
+    private int palabras; // longs por vector en BINARY
+    private int capacity;
+
+    private byte[] codes = new byte[0];
+    private float[] scales = new float[0];
+    private long[] bits = new long[0];
+
+    public QuantizedIndex(Config config) {
+        this.tipo = config.tipo();
+        this.oversample = config.oversample();
+    }
+
+    public void set(int node, float[] vector) {
+        if (dimension == 0) {
+            dimension = vector.length;
+            palabras = (dimension + 63) / 64;
+        }
+        ensureCapacity(node + 1);
+        float[] unit = HnswIndex.normalize(vector);
+        if (tipo == Tipo.INT8) {
+            float maxAbs = 0;
+            for (float v : unit) {
+                maxAbs = Math.max(maxAbs, Math.abs(v));
+            }
+            float escala = maxAbs == 0 ? 0 : maxAbs / 127f;
+            int base = node * dimension;
+            for (int i = 0; i < dimension; i++) {
+                codes[base + i] = escala == 0 ? 0 : (byte) Math.round(unit[i] / escala);
+            }
+            scales[node] = escala;
+        } else {
+            int base = node * palabras;
+            Arrays.fill(bits, base, base + palabras, 0L);
+            for (int i = 0; i < dimension; i++) {
+                if (unit[i] > 0) {
+                    bits[base + (i >>> 6)] |= 1L << (i & 63);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        dimension = 0;
+        palabras = 0;
+        capacity = 0;
+        codes = new byte[0];
+        scales = new float[0];
+        bits = new long[0];
+    }
+
+    public Consulta preparar(float[] query) {
+        float[] unit = HnswIndex.normalize(query);
+        if (tipo == Tipo.INT8) {
+            return new Consulta(unit, null);
+        }
+        long[] signos = new long[palabras];
+        for (int i = 0; i < dimension; i++) {
+            if (unit[i] > 0) {
+                signos[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return new Consulta(null, signos);
+    }
+
+    /** Coseno aproximado entre la consulta y el nodo. */
+    public double similarity(Consulta consulta, int node) {
+        if (tipo == Tipo.INT8) {
+            // Asimetrico: la consulta sigue en float, solo el documento esta cuantizado
+            return kernel.dotInt8(consulta.unit, codes, node * dimension) * scales[node];
+        }
+        int base = node * palabras;
+        int distintos = 0;
+        for (int i = 0; i < palabras; i++) {
+            distintos += Long.bitCount(consulta.bits[i] ^ bits[base + i]);
+        }
+        return 1 - 2.0 * distintos / dimension;
+    }
+
+    public int oversample() {
+        return oversample;
+    }
+
+    public void setOversample(int oversample) {
+        if (oversample < 1) {
+            throw new IllegalArgumentException("oversample debe ser >= 1");
+        }
+        this.oversample = oversample;
+    }
+
+    public Tipo tipo() {
+        return tipo;
+    }
+
+    /** Bytes en heap por vector (frente a dimension * 4 en float32). */
+    public int bytesPerVector() {
+        return tipo == Tipo.INT8 ? dimension + Float.BYTES : palabras * Long.BYTES;
+    }
+
+    private void ensureCapacity(int nodos) {
+        if (nodos <= capacity) {
+            return;
+        }
+        int nueva = Math.max(nodos, Math.max(1024, capacity * 2));
+        if (tipo == Tipo.INT8) {
+            codes = Arrays.copyOf(codes, nueva * dimension);
+            scales = Arrays.copyOf(scales, nueva);
+        } else {
+            bits = Arrays.copyOf(bits, nueva * palabras);
+        }
+        capacity = nueva;
+    }
+}
@@ -1,12 +1,23 @@
 package com.langchain4jpractice.openIAExamples.practiceRAG;
 
+import dev.langchain4j.service.MemoryId;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
+
 // Ojo: Esto es una INTERFAZ, no una clase
-public interface RagAssistantService {
+// Extiende ChatMemoryAccess para poder soltar la memoria de una sesion desalojada (evictChatMemory)
+public interface RagAssistantService extends ChatMemoryAccess {
 
     // LangChain4j hará lo siguiente automáticamente:
     // 1. Tomará tu pregunta.
     // 2. Buscará en el EmbeddingStore info relevante.
     // 3. Pegará esa info en el prompt del sistema.
     // 4. Enviará todo a OpenAI.
-    String chatear(String userMessage);
-}
\ No newline at end of file
+    // @MemoryId: cada sesión tiene su propia conversación (no se mezclan los usuarios).
+    String chatear(@MemoryId String sessionId, @UserMessage String userMessage);
+
+    // Misma conversación, pero la respuesta llega token a token (StreamingChatModel).
+    // El TokenStream avisa primero de los trozos recuperados (onRetrieved) y luego de cada token.
+    TokenStream chatearStream(@MemoryId String sessionId, @UserMessage String userMessage);
+}
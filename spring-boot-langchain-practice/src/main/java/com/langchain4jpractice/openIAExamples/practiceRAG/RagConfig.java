@@ -5,103 +5,285 @@ import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
 import dev.langchain4j.data.document.parser.TextDocumentParser;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.embedding.Embedding;
-import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.memory.chat.ChatMemoryProvider;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
-import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.rag.DefaultRetrievalAugmentor;
 import dev.langchain4j.rag.content.retriever.ContentRetriever;
-import dev.langchain4j.rag.content.retriever.EmbeddingStoreContentRetriever;
 import dev.langchain4j.service.AiServices;
-import dev.langchain4j.store.embedding.EmbeddingStore;
-import dev.langchain4j.store.embedding.EmbeddingStoreIngestor;
-import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.PropertySource;
 
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Locale;
 
 @Configuration
+@PropertySource("classpath:rag.properties")
 public class RagConfig {
 
     // 1. EL TRADUCTOR (Texto -> Números)
     // Usamos 'all-minilm-l6-v2'. Es un modelo pequeño, rápido y GRATIS que corre en tu RAM.
     // Transforma "Hola" en un vector de [0.1, -0.5, 0.8, ...]
+    // Executor "mismo hilo": el paralelismo de la ingesta masiva lo controla EmbeddingPipeline
+    // (rag.ingest.workers), así no se anidan dos pools de inferencia ONNX compitiendo por los cores.
+    // Perezoso: el modelo ONNX se carga en el primer embedding, no al crear el bean.
+    // Este es el modelo "crudo": lo usa la ingesta, cuyos segmentos casi nunca se repiten.
     @Bean
-    EmbeddingModel embeddingModel() {
-        return new AllMiniLmL6V2EmbeddingModel();
+    LazyEmbeddingModel onnxEmbeddingModel(ObjectProvider<RagStartup> ragStartup) {
+        return new LazyEmbeddingModel(() -> new AllMiniLmL6V2EmbeddingModel(Runnable::run),
+                carga -> ragStartup.ifAvailable(startup -> startup.registrar("modelo", carga)));
+    }
+
+    // Las CONSULTAS pasan por una cache LRU: las preguntas repetidas no vuelven a pasar por ONNX.
+    // La ingesta no la usa: una ingesta masiva llenaria la LRU de segmentos y desalojaria las preguntas.
+    @Bean
+    CachingEmbeddingModel embeddingModel(LazyEmbeddingModel onnxEmbeddingModel,
+                                         @Value("${rag.embedding-cache.max-size:10000}") int maxSize) {
+        return new CachingEmbeddingModel(onnxEmbeddingModel, maxSize);
     }
 
     // 2. LA MEMORIA (Base de Datos Vectorial)
-    // Aquí guardamos los vectores. En producción usarías Pinecone o Mongo.
+    // Aquí guardamos los vectores. Antes era un InMemoryEmbeddingStore (se perdía al reiniciar);
+    // ahora los vectores viven en un archivo mapeado en memoria fuera del heap y sobreviven reinicios.
+    // La búsqueda usa un índice HNSW (aproximado) en lugar de comparar contra TODOS los vectores.
+    // rag.store.index=exact vuelve al escaneo completo; m / ef-* ajustan recall vs latencia.
+    // rag.store.index=int8|binary: primera pasada sobre vectores cuantizados en heap (4x / 32x menos)
+    // y re-puntuación exacta de los mejores candidatos con los float32 del archivo mapeado.
+    // Con rag.retrieval.mode=prefilter|rrf, el texto también se indexa en BM25 (búsqueda por palabras).
+    // rag.store.shards=N (>1): N stores en data/rag-store/shard-i consultados en paralelo
+    // (scatter-gather). Con rag.store.partition=collection, cada valor de la clave
+    // rag.store.collection-key cae en un solo shard y un filtro por esa clave solo toca ese shard.
+    // Perezoso: abrir el store relee segments.log, reconstruye el grafo HNSW y compacta. Eso corre en
+    // la fase "store" del hilo rag-warmup (detrás del gate de readiness), no al crear el bean.
+    @Bean(destroyMethod = "close")
+    LazyEmbeddingStore embeddingStore(@Value("${rag.store.directory:data/rag-store}") String directorio,
+                                         @Value("${rag.store.index:hnsw}") String tipoIndice,
+                                         @Value("${rag.hnsw.m:16}") int m,
+                                         @Value("${rag.hnsw.ef-construction:200}") int efConstruction,
+                                         @Value("${rag.hnsw.ef-search:64}") int efSearch,
+                                         @Value("${rag.retrieval.mode:dense}") String modo,
+                                         @Value("${rag.bm25.k1:1.2}") double k1,
+                                         @Value("${rag.bm25.b:0.75}") double b,
+                                         @Value("${rag.quantization.oversample:16}") int oversample,
+                                         @Value("${rag.store.shards:1}") int shards,
+                                         @Value("${rag.store.partition:hash}") String particion,
+                                         @Value("${rag.store.collection-key:file_name}") String claveColeccion,
+                                         @Value("${rag.store.search-parallelism:0}") int paralelismo) {
+        HnswIndex.Config hnsw = "hnsw".equalsIgnoreCase(tipoIndice)
+                ? new HnswIndex.Config(m, efConstruction, efSearch)
+                : null;
+        QuantizedIndex.Config cuantizacion = switch (tipoIndice.toLowerCase(Locale.ROOT)) {
+            case "int8" -> new QuantizedIndex.Config(QuantizedIndex.Tipo.INT8, oversample);
+            case "binary" -> new QuantizedIndex.Config(QuantizedIndex.Tipo.BINARY, oversample);
+            default -> null;
+        };
+        Bm25Index.Config bm25 = "dense".equalsIgnoreCase(modo) ? null : new Bm25Index.Config(k1, b);
+        ShardedEmbeddingStore.Config sharding = shards <= 1 ? null : new ShardedEmbeddingStore.Config(shards,
+                ShardedEmbeddingStore.Particion.valueOf(particion.toUpperCase(Locale.ROOT)), claveColeccion,
+                paralelismo > 0 ? paralelismo : Math.min(shards, Runtime.getRuntime().availableProcessors()));
+        return new LazyEmbeddingStore(() -> {
+            if (sharding == null) {
+                MappedEmbeddingStore store = new MappedEmbeddingStore(Paths.get(directorio), hnsw, bm25, cuantizacion);
+                // Si quedaron vectores borrados de la ejecución anterior, recuperamos el espacio
+                if (store.deletedCount() > 0) {
+                    store.compact();
+                }
+                return store;
+            }
+            ShardedEmbeddingStore store = new ShardedEmbeddingStore(Paths.get(directorio), sharding,
+                    shard -> new MappedEmbeddingStore(shard, hnsw, bm25, cuantizacion));
+            store.compact();
+            return store;
+        }, bm25 != null);
+    }
+
+    // 3. EL INGESTADOR INCREMENTAL
+    // Guarda un manifiesto con el hash de cada segmento: solo se embeddea lo nuevo o modificado
+    // y se borran del store los segmentos que ya no existen en el documento.
+    // Pipeline de ingesta: carga -> split -> embed (N workers, micro-lotes) -> store, con colas acotadas
     @Bean
-    EmbeddingStore<TextSegment> embeddingStore() {
-        return new InMemoryEmbeddingStore<>();
+    EmbeddingPipeline embeddingPipeline(LazyEmbeddingModel onnxEmbeddingModel,
+                                        LexicalEmbeddingStore embeddingStore,
+                                        @Value("${rag.ingest.workers:0}") int workers,
+                                        @Value("${rag.ingest.batch-size:32}") int batchSize,
+                                        @Value("${rag.ingest.queue-capacity:16}") int queueCapacity) {
+        int hilos = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        return new EmbeddingPipeline(onnxEmbeddingModel, embeddingStore,
+                new EmbeddingPipeline.Config(hilos, batchSize, queueCapacity));
     }
 
-    // 3. EL INGESTADOR (ETL)
-    // Este método se ejecuta AUTOMÁTICAMENTE al iniciar Spring Boot.
+    @Bean(destroyMethod = "close")
+    IncrementalIngestor incrementalIngestor(EmbeddingPipeline embeddingPipeline,
+                                            LexicalEmbeddingStore embeddingStore,
+                                            @Value("${rag.store.directory:data/rag-store}") String directorio) {
+        // No toca el store: manifiesto y store se alinean en la fase "store" (ver reconciliar())
+        return new IncrementalIngestor(embeddingPipeline, embeddingStore,
+                DocumentSplitters.recursive(300, 0), // Corta en trozos de 300 caracteres
+                Paths.get(directorio, "ingest-manifest.json"));
+    }
+
+    // 4. EL ARRANQUE DE LA INGESTA (ETL), EN SEGUNDO PLANO
+    // Antes corría dentro del arranque de Spring y el HTTP no respondía hasta terminar.
+    // Ahora el runner solo lanza el calentamiento en el hilo "rag-warmup" y Spring sigue:
+    // mientras el índice se calienta, readiness = OUT_OF_SERVICE y /api/rag/ask responde 503.
+    // @DependsOn: al apagar, este bean (y su hilo) se cierra ANTES que el ingestor y el store.
+    @Bean(destroyMethod = "close")
+    @DependsOn("incrementalIngestor")
+    RagStartup ragStartup(@Value("${rag.startup.retry-after:PT5S}") Duration retryAfter) {
+        return new RagStartup(retryAfter);
+    }
+
+    // Readiness de Actuator: el grupo "readiness" incluye este indicador (ver rag.properties).
+    // Liveness no lo incluye: la app está viva aunque el índice se esté calentando.
     @Bean
-    ApplicationRunner ingestor(EmbeddingModel embeddingModel, EmbeddingStore<TextSegment> embeddingStore) {
-        return args -> {
-            // A. Cargar el archivo
-            URL url = getClass().getClassLoader().getResource("datos_empresa.txt");
-            if (url == null) {
-                System.out.println("❌ ERROR: No encontré datos_empresa.txt en resources");
-                return;
-            }
-            Path path = Paths.get(url.toURI());
-            Document document = FileSystemDocumentLoader.loadDocument(path, new TextDocumentParser());
+    HealthIndicator ragIndexHealthIndicator(RagStartup ragStartup) {
+        return () -> {
+            Health.Builder health = switch (ragStartup.estado()) {
+                case LISTO -> Health.up();
+                case CALENTANDO -> Health.outOfService();
+                case FALLIDO -> Health.down();
+            };
+            return health.withDetails(ragStartup.reporte()).build();
+        };
+    }
 
-            // B. Configurar el Ingestor
-            EmbeddingStoreIngestor ingestor = EmbeddingStoreIngestor.builder()
-                    .documentSplitter(DocumentSplitters.recursive(300, 0)) // Corta en trozos de 300 caracteres
-                    .embeddingModel(embeddingModel)
-                    .embeddingStore(embeddingStore)
-                    .build();
+    @Bean
+    ApplicationRunner ingestor(RagStartup ragStartup,
+                               CachingEmbeddingModel embeddingModel,
+                               LazyEmbeddingStore embeddingStore,
+                               IncrementalIngestor incrementalIngestor,
+                               @Value("${rag.documents.directory:}") String directorioDocumentos,
+                               @Value("${rag.startup.inspect-vector:false}") boolean inspeccionarVector) {
+        return args -> ragStartup.iniciar(() -> {
+            // 0. Abrir el store: replay de segments.log, grafo HNSW, compactación y manifiesto
+            ragStartup.fase("store", () -> {
+                embeddingStore.abrir();
+                incrementalIngestor.reconciliar();
+            });
 
-            // C. Procesar
-            ingestor.ingest(document);
-            System.out.println("✅ DATOS INGESTADOS: El sistema ya conoce la política de la empresa.");
+            // A. Cargar el archivo base.
+            // B. Procesar: solo se generan embeddings de los segmentos que cambiaron
+            //    (si no cambió nada, el modelo ONNX ni siquiera se carga)
+            ragStartup.fase("classpath", () -> {
+                URL url = getClass().getClassLoader().getResource("datos_empresa.txt");
+                if (url == null) {
+                    System.out.println("❌ ERROR: No encontré datos_empresa.txt en resources");
+                    return;
+                }
+                Path path = Paths.get(url.toURI());
+                Document document = FileSystemDocumentLoader.loadDocument(path, new TextDocumentParser());
+                IncrementalIngestor.Resultado resultado = incrementalIngestor.ingest("classpath:datos_empresa.txt", document);
+                System.out.println("✅ DATOS INGESTADOS: " + resultado.nuevos() + " nuevos, "
+                        + resultado.borrados() + " borrados, " + resultado.sinCambios() + " sin cambios.");
+            });
 
-            // --- 🔬 ZONA DE LABORATORIO: VER LA MATRIX ---
-            System.out.println("\n--- 🕵️‍♂️ INSPECCIONANDO LA MATRIZ (VECTORES) ---");
+            // C. Directorio opcional de documentos: sincroniza al arrancar y vigila cambios en caliente
+            if (!directorioDocumentos.isBlank()) {
+                ragStartup.fase("directorio", () -> {
+                    Path documentos = Paths.get(directorioDocumentos);
+                    Files.createDirectories(documentos);
+                    incrementalIngestor.syncDirectory(documentos);
+                    incrementalIngestor.watch(documentos);
+                });
+            }
 
-            String frasePrueba = "El CEO es Pandebono";
+            // --- 🔬 ZONA DE LABORATORIO: VER LA MATRIX (rag.startup.inspect-vector=true) ---
+            // Apagada por defecto: obliga a cargar el modelo aunque el corpus no haya cambiado.
+            if (inspeccionarVector) {
+                System.out.println("\n--- 🕵️‍♂️ INSPECCIONANDO LA MATRIZ (VECTORES) ---");
 
-            // 1. Convertimos la frase a números usando el modelo
-            Embedding vector = embeddingModel.embed(frasePrueba).content();
+                String frasePrueba = "El CEO es Pandebono";
 
-            // 2. Imprimimos los datos técnicos
-            System.out.println("Texto analizado: \"" + frasePrueba + "\"");
-            System.out.println("Dimensiones del vector: " + vector.dimension()); // Debería ser 384
+                // 1. Convertimos la frase a números usando el modelo
+                Embedding vector = embeddingModel.embed(frasePrueba).content();
 
-            // 3. Imprimimos solo los primeros 10 números para no llenar la pantalla
-            float[] vectorArray = vector.vector();
-            System.out.println("Primeros 10 valores: " + Arrays.toString(Arrays.copyOfRange(vectorArray, 0, 10)) + "...");
+                // 2. Imprimimos los datos técnicos
+                System.out.println("Texto analizado: \"" + frasePrueba + "\"");
+                System.out.println("Dimensiones del vector: " + vector.dimension()); // Debería ser 384
 
-            // Si quieres ver TODO el vector (384 números), descomenta la siguiente línea:
-            System.out.println("Vector completo: " + Arrays.toString(vectorArray));
+                // 3. Imprimimos solo los primeros 10 números para no llenar la pantalla
+                float[] vectorArray = vector.vector();
+                System.out.println("Primeros 10 valores: " + Arrays.toString(Arrays.copyOfRange(vectorArray, 0, 10)) + "...");
 
-            System.out.println("----------------------------------------------\n");
-        };
+                System.out.println("----------------------------------------------\n");
+            }
+        });
+    }
+
+    // 5. LA MEMORIA DE CONVERSACIÓN (una por sesión)
+    // Antes había UNA sola ChatMemory compartida: todos los usuarios veían el historial de todos.
+    // Ahora cada sesión tiene la suya, en un store con locks por stripe (sin contención global),
+    // expiración por inactividad y un tope total de mensajes retenidos (desalojo LRU).
+    // rag.memory.directory (opcional) persiste cada sesión en un archivo JSON.
+    @Bean(destroyMethod = "close")
+    SessionChatMemoryStore sessionChatMemoryStore(@Value("${rag.memory.stripes:16}") int stripes,
+                                                  @Value("${rag.memory.idle-timeout:PT30M}") Duration idleTimeout,
+                                                  @Value("${rag.memory.max-total-messages:50000}") int maxTotalMessages,
+                                                  @Value("${rag.memory.directory:}") String directorio) {
+        return new SessionChatMemoryStore(new SessionChatMemoryStore.Config(stripes, idleTimeout, maxTotalMessages,
+                directorio.isBlank() ? null : Paths.get(directorio)));
     }
 
-    // 4. EL SERVICIO AI (El Ensamblador)
+    // 6. EL CONTEXTO DEL PROMPT (presupuesto de tokens)
+    // El retriever trae varios candidatos; esta etapa quita los casi repetidos, une los trozos
+    // consecutivos del mismo documento, ordena por score y mete solo lo que cabe en el presupuesto,
+    // contado con el tokenizer local del modelo (jtokkit, sin llamadas a OpenAI).
+    @Bean
+    TokenBudgetContentAggregator contextAggregator(@Value("${rag.context.token-budget:150}") int presupuesto,
+                                                   @Value("${rag.context.dedup-threshold:0.8}") double umbralDedup,
+                                                   @Value("${rag.context.tokenizer-model:gpt-4o-mini}") String modeloTokenizer) {
+        return new TokenBudgetContentAggregator(new OpenAiTokenCountEstimator(modeloTokenizer),
+                new TokenBudgetContentAggregator.Config(presupuesto, umbralDedup));
+    }
+
+    // 7. EL SERVICIO AI (El Ensamblador)
     // Aquí conectamos el ChatModel (OpenAI) con nuestra Memoria (EmbeddingStore)
     @Bean
-    RagAssistantService ragAssistant(ChatModel chatModel, EmbeddingStore<TextSegment> embeddingStore, EmbeddingModel embeddingModel) {
-
-        // El 'ContentRetriever' es el bibliotecario que busca la info relevante
-        ContentRetriever contentRetriever = EmbeddingStoreContentRetriever.builder()
-                .embeddingStore(embeddingStore)
-                .embeddingModel(embeddingModel)
-                .maxResults(2)   // Solo trae los 2 trozos más parecidos
-                .minScore(0.6)   // Que se parezcan al menos un 60%
+    RagAssistantService ragAssistant(ChatModel chatModel, LexicalEmbeddingStore embeddingStore, CachingEmbeddingModel embeddingModel,
+                                     StreamingChatModel streamingChatModel,
+                                     IncrementalIngestor incrementalIngestor,
+                                     SessionChatMemoryStore sessionChatMemoryStore,
+                                     TokenBudgetContentAggregator contextAggregator,
+                                     @Value("${rag.memory.max-messages:10}") int maxMensajes,
+                                     @Value("${rag.answer-cache.enabled:false}") boolean cacheRespuestas,
+                                     @Value("${rag.answer-cache.threshold:0.92}") double umbral,
+                                     @Value("${rag.answer-cache.ttl:PT1H}") Duration ttl,
+                                     @Value("${rag.answer-cache.max-entries:1000}") int maxEntradas,
+                                     @Value("${rag.retrieval.mode:dense}") String modo,
+                                     @Value("${rag.retrieval.candidates:50}") int candidatos,
+                                     @Value("${rag.retrieval.rrf-k:60}") int rrfK,
+                                     @Value("${rag.context.candidates:8}") int candidatosContexto) {
+
+        // El 'ContentRetriever' es el bibliotecario que busca la info relevante.
+        // Híbrido: vectores (significado) + BM25 (palabras exactas), ver HybridContentRetriever
+        ContentRetriever contentRetriever = new HybridContentRetriever(embeddingStore, embeddingModel,
+                new HybridContentRetriever.Config(
+                        HybridContentRetriever.Modo.valueOf(modo.toUpperCase(Locale.ROOT)),
+                        candidatosContexto, // Candidatos para el contexto; contextAggregator decide cuáles entran
+                        0.6,   // Que se parezcan al menos un 60% (en rrf, los aciertos solo léxicos también entran)
+                        candidatos,
+                        rrfK));
+
+        // Cada sesión (memoryId) obtiene su propia ventana de los últimos N mensajes
+        ChatMemoryProvider memoriaPorSesion = sessionId -> MessageWindowChatMemory.builder()
+                .id(sessionId)
+                .maxMessages(maxMensajes)
+                .chatMemoryStore(sessionChatMemoryStore)
                 .build();
 
         /*
@@ -109,10 +291,25 @@ public class RagConfig {
          LangChain4j lee tu interface RagAssistantService.class en tiempo de ejecución y genera el código sucio
          (el de arriba) automáticamente en la memoria RAM.
          */
-        return AiServices.builder(RagAssistantService.class)
+        RagAssistantService assistant = AiServices.builder(RagAssistantService.class)
                 .chatModel(chatModel)
-                .contentRetriever(contentRetriever) // <--- AQUÍ ACTIVAMOS RAG
-                .chatMemory(MessageWindowChatMemory.withMaxMessages(10))
+                .streamingChatModel(streamingChatModel) // para chatearStream (SSE)
+                .retrievalAugmentor(DefaultRetrievalAugmentor.builder() // <--- AQUÍ ACTIVAMOS RAG
+                        .contentRetriever(contentRetriever)
+                        .contentAggregator(contextAggregator)
+                        .build())
+                .chatMemoryProvider(memoriaPorSesion)
                 .build();
+        // Cuando el store desaloja una sesión, el AiService también suelta su ChatMemory
+        sessionChatMemoryStore.setEvictionListener(assistant::evictChatMemory);
+
+        // Cache semántica (opt-in): preguntas parecidas a una ya respondida no vuelven a llamar a OpenAI.
+        // Se invalida sola cuando la ingesta cambia el corpus (corpusVersion).
+        if (!cacheRespuestas) {
+            return assistant;
+        }
+        // Una sesión con historia no usa la cache: su respuesta depende de su propia conversación.
+        return new SemanticAnswerCache(assistant, sessionChatMemoryStore, embeddingModel, incrementalIngestor::corpusVersion,
+                umbral, ttl, maxEntradas);
     }
 }
\ No newline at end of file
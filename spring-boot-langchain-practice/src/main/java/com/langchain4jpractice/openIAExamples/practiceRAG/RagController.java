@@ -1,23 +1,217 @@
 package com.langchain4jpractice.openIAExamples.practiceRAG;
 
+import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.service.TokenStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/rag")
 public class RagController {
 
+    static final String SESSION_HEADER = "X-Session-Id";
+    static final String SESSION_COOKIE = "RAG_SESSION";
+    private static final long STREAM_TIMEOUT_MILLIS = 120_000;
+
+    // Solo ids "seguros": tambien se usan como nombre de archivo si la memoria se persiste
+    private static final Pattern SESSION_ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
     private final RagAssistantService assistant;
+    private final CachingEmbeddingModel embeddingModel;
+    private final SessionChatMemoryStore sessionChatMemoryStore;
+    private final RagStartup ragStartup;
+    private final TokenBudgetContentAggregator contextAggregator;
 
     // Inyectamos la interfaz que definimos en el Config
-    public RagController(RagAssistantService assistant) {
+    public RagController(RagAssistantService assistant, CachingEmbeddingModel embeddingModel,
+                         SessionChatMemoryStore sessionChatMemoryStore, RagStartup ragStartup,
+                         TokenBudgetContentAggregator contextAggregator) {
         this.assistant = assistant;
+        this.embeddingModel = embeddingModel;
+        this.sessionChatMemoryStore = sessionChatMemoryStore;
+        this.ragStartup = ragStartup;
+        this.contextAggregator = contextAggregator;
     }
 
+    // La sesion sale del header X-Session-Id o de la cookie RAG_SESSION.
+    // Si no llega ninguna (o no es valida) se crea una nueva y se devuelve en la cookie.
     @GetMapping("/ask")
-    public String preguntar(@RequestParam String query) {
-        return assistant.chatear(query);
+    public String preguntar(@RequestParam String query,
+                            @RequestHeader(value = SESSION_HEADER, required = false) String sessionHeader,
+                            @CookieValue(value = SESSION_COOKIE, required = false) String sessionCookie,
+                            HttpServletResponse response) {
+        exigirIndiceListo();
+        String sessionId = resolverSesion(sessionHeader, sessionCookie, response);
+        return assistant.chatear(sessionId, query);
+    }
+
+    // Version streaming (Server-Sent Events). Eventos, en orden:
+    //   retrieval -> trozos recuperados con su score (antes del primer token)
+    //   token     -> cada fragmento de la respuesta
+    //   done      -> consumo de tokens | error -> mensaje de error
+    // Si el cliente se desconecta, se cancela el stream y OpenAI deja de generar (y de cobrar).
+    @GetMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter preguntarStream(@RequestParam String query,
+                                      @RequestHeader(value = SESSION_HEADER, required = false) String sessionHeader,
+                                      @CookieValue(value = SESSION_COOKIE, required = false) String sessionCookie,
+                                      HttpServletResponse response) {
+        exigirIndiceListo();
+        String sessionId = resolverSesion(sessionHeader, sessionCookie, response);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        AtomicBoolean cancelado = new AtomicBoolean();
+        emitter.onCompletion(() -> cancelado.set(true));
+        emitter.onTimeout(() -> cancelado.set(true));
+        emitter.onError(e -> cancelado.set(true));
+
+        TokenStream stream = assistant.chatearStream(sessionId, query);
+        stream.onRetrieved(contenidos -> enviar(emitter, cancelado, "retrieval", describir(contenidos)))
+                .onPartialResponseWithContext((parcial, contexto) -> {
+                    if (!enviar(emitter, cancelado, "token", parcial.text())) {
+                        contexto.streamingHandle().cancel();
+                    }
+                })
+                .onCompleteResponse(respuesta -> {
+                    Map<String, Object> consumo = new LinkedHashMap<>();
+                    TokenUsage usage = respuesta.tokenUsage();
+                    if (usage != null) {
+                        consumo.put("inputTokens", usage.inputTokenCount());
+                        consumo.put("outputTokens", usage.outputTokenCount());
+                    }
+                    enviar(emitter, cancelado, "done", consumo);
+                    emitter.complete();
+                })
+                .onError(error -> {
+                    enviar(emitter, cancelado, "error", String.valueOf(error.getMessage()));
+                    emitter.complete();
+                })
+                .start();
+        return emitter;
+    }
+
+    // Mientras el indice se calienta (o si la ingesta fallo) no se llama a OpenAI:
+    // respondera sin contexto. 503 inmediato con Retry-After para que el cliente reintente.
+    private void exigirIndiceListo() {
+        if (!ragStartup.isReady()) {
+            throw new RagStartup.IndiceNoListoException(ragStartup.estado(), ragStartup.retryAfter());
+        }
+    }
+
+    @ExceptionHandler(RagStartup.IndiceNoListoException.class)
+    public ResponseEntity<Map<String, String>> indiceNoListo(RagStartup.IndiceNoListoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(Map.of(
+                        "error", e.getMessage(),
+                        "estado", e.getEstado().name()
+                ));
+    }
+
+    // Devuelve false si el cliente ya no esta (desconexion, timeout): hay que cancelar el stream
+    private static boolean enviar(SseEmitter emitter, AtomicBoolean cancelado, String evento, Object datos) {
+        if (cancelado.get()) {
+            return false;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(evento).data(datos));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            cancelado.set(true);
+            return false;
+        }
+    }
+
+    private static List<Map<String, Object>> describir(List<Content> contenidos) {
+        return contenidos.stream()
+                .map(contenido -> {
+                    Map<String, Object> trozo = new LinkedHashMap<>();
+                    trozo.put("text", contenido.textSegment().text());
+                    trozo.put("score", contenido.metadata().get(ContentMetadata.SCORE));
+                    trozo.put("embeddingId", contenido.metadata().get(ContentMetadata.EMBEDDING_ID));
+                    return trozo;
+                })
+                .toList();
+    }
+
+    private static String resolverSesion(String header, String cookie, HttpServletResponse response) {
+        if (header != null && SESSION_ID_VALIDO.matcher(header).matches()) {
+            return header;
+        }
+        if (cookie != null && SESSION_ID_VALIDO.matcher(cookie).matches()) {
+            return cookie;
+        }
+        String nueva = UUID.randomUUID().toString();
+        Cookie sesion = new Cookie(SESSION_COOKIE, nueva);
+        sesion.setHttpOnly(true);
+        sesion.setPath("/api/rag");
+        response.addCookie(sesion);
+        response.setHeader(SESSION_HEADER, nueva);
+        return nueva;
+    }
+
+    // Estadisticas de las caches del pipeline RAG (hit rate, tamano, evicciones)
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("startup", ragStartup.reporte());
+        CachingEmbeddingModel.Stats embeddings = embeddingModel.stats();
+        stats.put("embeddingCache", Map.of(
+                "hits", embeddings.hits(),
+                "misses", embeddings.misses(),
+                "hitRate", embeddings.hitRate(),
+                "evictions", embeddings.evictions(),
+                "size", embeddings.size(),
+                "maxSize", embeddings.maxSize()
+        ));
+        TokenBudgetContentAggregator.Stats contexto = contextAggregator.stats();
+        stats.put("context", Map.of(
+                "requests", contexto.requests(),
+                "candidates", contexto.candidates(),
+                "duplicates", contexto.duplicates(),
+                "merged", contexto.merged(),
+                "included", contexto.included(),
+                "tokensSent", contexto.tokensSent(),
+                "tokensDropped", contexto.tokensDropped(),
+                "avgTokensSent", contexto.avgTokensSent()
+        ));
+        stats.put("sessions", Map.of(
+                "active", sessionChatMemoryStore.sessionCount(),
+                "retainedMessages", sessionChatMemoryStore.totalMessages()
+        ));
+        // Solo existe si rag.answer-cache.enabled=true
+        if (assistant instanceof SemanticAnswerCache answerCache) {
+            SemanticAnswerCache.Stats respuestas = answerCache.stats();
+            stats.put("answerCache", Map.of(
+                    "hits", respuestas.hits(),
+                    "misses", respuestas.misses(),
+                    "bypassed", respuestas.bypassed(),
+                    "hitRate", respuestas.hitRate(),
+                    "invalidations", respuestas.invalidations(),
+                    "size", respuestas.size(),
+                    "maxEntries", respuestas.maxEntries()
+            ));
+        }
+        return stats;
     }
 }
\ No newline at end of file
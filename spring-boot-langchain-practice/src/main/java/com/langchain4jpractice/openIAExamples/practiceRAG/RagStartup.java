@@ -0,0 +1,151 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranque del RAG en SEGUNDO PLANO.
+ *
+ * ANTES: el ApplicationRunner cargaba el modelo ONNX y embeddeaba todo el corpus dentro del
+ * arranque de Spring; el puerto HTTP no respondia hasta terminar y los despliegues esperaban.
+ *
+ * AHORA:
+ * 1. Spring termina de arrancar enseguida (HTTP arriba, liveness UP).
+ * 2. La ingesta corre en el hilo "rag-warmup". Mientras tanto el indice esta CALENTANDO:
+ *    readiness (/actuator/health/readiness) da OUT_OF_SERVICE y /api/rag/ask responde 503
+ *    con Retry-After.
+ * 3. Al terminar pasa a LISTO (o FALLIDO si la ingesta lanzo una excepcion) y se imprime el
+ *    reporte de tiempos por fase.
+ */
+@Slf4j
+public class RagStartup implements AutoCloseable {
+
+    public enum Estado { CALENTANDO, LISTO, FALLIDO }
+
+    /** Una fase del arranque que puede lanzar excepciones comprobadas (IO, URI...). */
+    @FunctionalInterface
+    public interface Fase {
+        void ejecutar() throws Exception;
+    }
+
+    /** El indice aun no esta listo: se traduce a 503 + Retry-After en RagController. */
+    public static class IndiceNoListoException extends RuntimeException {
+        private final Estado estado;
+        private final Duration retryAfter;
+
+        public IndiceNoListoException(Estado estado, Duration retryAfter) {
+            super(estado == Estado.FALLIDO
+                    ? "El indice RAG no se pudo construir, revisa /actuator/health/readiness"
+                    : "El indice RAG se esta calentando, intenta de nuevo en unos segundos");
+            this.estado = estado;
+            this.retryAfter = retryAfter;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+
+    private final Duration retryAfter;
+    private final Map<String, Duration> fases = new LinkedHashMap<>();
+    private volatile Estado estado = Estado.CALENTANDO;
+    private volatile String error;
+    private Thread hilo;
+
+    public RagStartup(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /** Lanza el calentamiento en segundo plano. Se llama una sola vez. */
+    public synchronized void iniciar(Fase calentamiento) {
+        if (hilo != null) {
+            throw new IllegalStateException("El arranque del RAG ya se inicio");
+        }
+        // Lo que tardo Spring en llegar hasta aqui (HTTP ya escucha)
+        registrar("spring", Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime()));
+        hilo = new Thread(() -> ejecutar(calentamiento), "rag-warmup");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /** Ejecuta una fase del calentamiento y registra su duracion. */
+    public void fase(String nombre, Fase fase) throws Exception {
+        long inicio = System.nanoTime();
+        try {
+            fase.ejecutar();
+        } finally {
+            registrar(nombre, Duration.ofNanos(System.nanoTime() - inicio));
+        }
+    }
+
+    /** Registra una duracion medida en otro lado (p. ej. la carga perezosa del modelo). */
+    public void registrar(String nombre, Duration duracion) {
+        synchronized (fases) {
+            fases.merge(nombre, duracion, Duration::plus);
+        }
+    }
+
+    public boolean isReady() {
+        return estado == Estado.LISTO;
+    }
+
+    public Estado estado() {
+        return estado;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /** Estado y milisegundos por fase, para /api/rag/stats y el health check. */
+    public Map<String, Object> reporte() {
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("estado", estado);
+        if (error != null) {
+            reporte.put("error", error);
+        }
+        Map<String, Long> milis = new LinkedHashMap<>();
+        synchronized (fases) {
+            fases.forEach((nombre, duracion) -> milis.put(nombre, duracion.toMillis()));
+        }
+        reporte.put("fasesMs", milis);
+        return reporte;
+    }
+
+    private void ejecutar(Fase calentamiento) {
+        long inicio = System.nanoTime();
+        try {
+            calentamiento.ejecutar();
+            estado = Estado.LISTO;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Interrumpido";
+            estado = Estado.FALLIDO;
+            return;
+        } catch (Exception e) {
+            log.error("Fallo el calentamiento del RAG", e);
+            error = e.toString();
+            estado = Estado.FALLIDO;
+        }
+        registrar("calentamiento", Duration.ofNanos(System.nanoTime() - inicio));
+        log.info("Arranque RAG {}: {}", estado, reporte().get("fasesMs"));
+    }
+
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (hilo != null && hilo.isAlive()) {
+            // Que no siga escribiendo en el store mientras este se cierra
+            hilo.interrupt();
+            hilo.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Nucleo escalar: un elemento por iteracion. Es la referencia de resultados y el fallback
+ * cuando jdk.incubator.vector no esta disponible.
+ */
+final class ScalarSimilarityKernel implements SimilarityKernel {
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        float dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    @Override
+    public float dot(float[] query, ByteBuffer vectors, int byteOffset) {
+        float dot = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * vectors.getFloat(byteOffset + i * Float.BYTES);
+        }
+        return dot;
+    }
+
+    @Override
+    public void dotBatch(float[] query, ByteBuffer vectors, int byteOffset, int count, float[] out) {
+        int stride = query.length * Float.BYTES;
+        for (int v = 0; v < count; v++) {
+            out[v] = dot(query, vectors, byteOffset + v * stride);
+        }
+    }
+
+    @Override
+    public float dotInt8(float[] query, byte[] codes, int offset) {
+        float dot = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * codes[offset + i];
+        }
+        return dot;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
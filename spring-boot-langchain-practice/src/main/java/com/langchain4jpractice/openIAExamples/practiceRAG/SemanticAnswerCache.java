@@ -0,0 +1,182 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache SEMANTICA de respuestas alrededor de RagAssistantService (opt-in).
+ *
+ * IDEA: "¿Quien es el CEO?" y "¿Como se llama el CEO de la empresa?" son la misma pregunta.
+ * Si el embedding de la pregunta nueva se parece (coseno >= umbral) al de una pregunta ya
+ * respondida, devolvemos esa respuesta sin retrieval ni llamada a OpenAI.
+ *
+ * INVALIDACION:
+ * - Version del corpus: cada entrada recuerda la version con la que se respondio. Si la
+ *   ingesta cambia el corpus, la version sube y las entradas viejas dejan de servir.
+ * - TTL: una entrada expira pasado 'ttl' aunque el corpus no cambie.
+ * - Tamano: LRU con 'maxEntries' como maximo.
+ *
+ * SESIONES: las respuestas se comparten entre sesiones, asi que solo sirven las que no dependen
+ * de la conversacion. Si la sesion ya tiene historia en su ChatMemory, la respuesta puede
+ * depender de ella ("¿como me llamo?", "¿y lo anterior?"): esa pregunta ni se busca ni se guarda
+ * en la cache (bypassed) y va directa al AiService. Asi una sesion nunca recibe una respuesta
+ * armada con los datos de otra.
+ *
+ * OJO: un hit no pasa por el AiService, asi que esa pregunta no queda en la ChatMemory de la
+ * sesion. Por eso es opt-in: sirve para preguntas tipo FAQ, no para conversaciones de seguimiento.
+ */
+@Slf4j
+public class SemanticAnswerCache implements RagAssistantService {
+
+    public record Stats(long hits, long misses, long bypassed, long invalidations, int size, int maxEntries) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Entry(float[] unitVector, String answer, long corpusVersion, long createdAtMillis) {
+    }
+
+    private final RagAssistantService delegate;
+    private final ChatMemoryStore historial;
+    private final EmbeddingModel embeddingModel;
+    private final LongSupplier corpusVersion;
+    private final double threshold;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // clave = pregunta normalizada; orden de acceso = LRU
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * @param historial el mismo ChatMemoryStore que usa el AiService, para saber si la sesion ya tiene historia
+     */
+    public SemanticAnswerCache(RagAssistantService delegate, ChatMemoryStore historial, EmbeddingModel embeddingModel,
+                               LongSupplier corpusVersion, double threshold, Duration ttl, int maxEntries) {
+        this.delegate = delegate;
+        this.historial = historial;
+        this.embeddingModel = embeddingModel;
+        this.corpusVersion = corpusVersion;
+        this.threshold = threshold;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SemanticAnswerCache.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public String chatear(String sessionId, String userMessage) {
+        if (!historial.getMessages(sessionId).isEmpty()) {
+            bypassed.incrementAndGet();
+            return delegate.chatear(sessionId, userMessage);
+        }
+        String clave = CachingEmbeddingModel.normalize(userMessage);
+        // El EmbeddingModel es el mismo (cacheado) que usa el retriever: en un miss no se embeddea dos veces
+        float[] consulta = HnswIndex.normalize(embeddingModel.embed(userMessage).content().vector());
+        long version = corpusVersion.getAsLong();
+
+        String cacheada = lookup(clave, consulta, version);
+        if (cacheada != null) {
+            hits.incrementAndGet();
+            return cacheada;
+        }
+        misses.incrementAndGet();
+
+        String respuesta = delegate.chatear(sessionId, userMessage);
+        synchronized (entries) {
+            entries.put(clave, new Entry(consulta, respuesta, version, System.currentTimeMillis()));
+        }
+        return respuesta;
+    }
+
+    // El streaming no pasa por la cache: quien pide stream quiere ver la respuesta generarse
+    @Override
+    public TokenStream chatearStream(String sessionId, String userMessage) {
+        return delegate.chatearStream(sessionId, userMessage);
+    }
+
+    @Override
+    public ChatMemory getChatMemory(Object memoryId) {
+        return delegate.getChatMemory(memoryId);
+    }
+
+    @Override
+    public boolean evictChatMemory(Object memoryId) {
+        return delegate.evictChatMemory(memoryId);
+    }
+
+    private String lookup(String clave, float[] consulta, long version) {
+        long ahora = System.currentTimeMillis();
+        synchronized (entries) {
+            // 1. Pregunta identica (tras normalizar): sin calcular similitudes
+            Entry exacta = entries.get(clave);
+            if (exacta != null && isValid(exacta, version, ahora)) {
+                return exacta.answer();
+            }
+
+            // 2. Pregunta parecida: mejor coseno por encima del umbral. De paso, purgamos lo invalido.
+            Entry mejor = null;
+            String mejorClave = null;
+            double mejorSimilitud = threshold;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> e = it.next();
+                if (!isValid(e.getValue(), version, ahora)) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                    continue;
+                }
+                double similitud = dot(consulta, e.getValue().unitVector());
+                if (similitud >= mejorSimilitud) {
+                    mejorSimilitud = similitud;
+                    mejor = e.getValue();
+                    mejorClave = e.getKey();
+                }
+            }
+            if (mejor == null) {
+                return null;
+            }
+            entries.get(mejorClave); // marca el acceso para el LRU
+            log.debug("Cache semantica: '{}' ~ '{}' (coseno {})", clave, mejorClave, mejorSimilitud);
+            return mejor.answer();
+        }
+    }
+
+    private boolean isValid(Entry entry, long version, long ahora) {
+        return entry.corpusVersion() == version && ahora - entry.createdAtMillis() < ttlMillis;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double suma = 0;
+        for (int i = 0; i < a.length; i++) {
+            suma += a[i] * b[i];
+        }
+        return suma;
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), bypassed.get(), invalidations.get(), entries.size(), maxEntries);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * ChatMemoryStore con una conversacion por sesion, pensado para muchos usuarios concurrentes.
+ *
+ * CONCURRENCIA (striping): las sesiones se reparten en N "stripes" por hash del id, cada una
+ * con su propio lock. Dos usuarios solo compiten si caen en la misma stripe.
+ *
+ * LIMITES DE MEMORIA:
+ * - Idle timeout: un hilo barrendero elimina las sesiones sin actividad reciente.
+ * - Tope global de mensajes: si la suma de mensajes de todas las sesiones supera el tope,
+ *   se desalojan las sesiones menos usadas (LRU) hasta volver por debajo.
+ *
+ * PERSISTENCIA OPCIONAL: si hay directorio, cada sesion se escribe en un archivo JSON.
+ * Una sesion desalojada por el tope se recarga del disco en su siguiente pregunta; una
+ * sesion expirada por inactividad se borra tambien del disco.
+ *
+ * El listener de desalojo sirve para que el AiService suelte su ChatMemory de esa sesion.
+ */
+@Slf4j
+public class SessionChatMemoryStore implements ChatMemoryStore, Closeable {
+
+    public record Config(int stripes, Duration idleTimeout, int maxTotalMessages, Path persistDirectory) {
+    }
+
+    private static final class Session {
+        private List<ChatMessage> messages = List.of();
+        private long lastAccessMillis = System.currentTimeMillis();
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Object, Session> sessions = new HashMap<>();
+    }
+
+    private record Candidata(Object id, long lastAccessMillis) {
+    }
+
+    private final Stripe[] stripes;
+    private final long idleMillis;
+    private final int maxTotalMessages;
+    private final Path persistDirectory;
+    private final AtomicInteger totalMessages = new AtomicInteger();
+    private final ReentrantLock capLock = new ReentrantLock();
+    private final ScheduledExecutorService sweeper;
+    private volatile Consumer<Object> evictionListener = id -> { };
+
+    public SessionChatMemoryStore(Config config) {
+        this.stripes = new Stripe[config.stripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.idleMillis = config.idleTimeout().toMillis();
+        this.maxTotalMessages = config.maxTotalMessages();
+        this.persistDirectory = config.persistDirectory();
+        if (persistDirectory != null) {
+            try {
+                Files.createDirectories(persistDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo crear el directorio de sesiones " + persistDirectory, e);
+            }
+        }
+
+        long periodo = Math.max(1000, idleMillis / 4);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "rag-session-sweeper");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        sweeper.scheduleAtFixedRate(this::evictIdle, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    public void setEvictionListener(Consumer<Object> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    // ============================================
+    // ChatMemoryStore
+    // ============================================
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        Stripe stripe = stripeFor(memoryId);
+        stripe.lock.lock();
+        try {
+            Session session = stripe.sessions.get(memoryId);
+            if (session == null) {
+                List<ChatMessage> persistidos = load(memoryId);
+                if (persistidos.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                session = new Session();
+                session.messages = persistidos;
+                stripe.sessions.put(memoryId, session);
+                totalMessages.addAndGet(persistidos.size());
+            }
+            session.lastAccessMillis = System.currentTimeMillis();
+            return new ArrayList<>(session.messages);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        Stripe stripe = stripeFor(memoryId);
+        stripe.lock.lock();
+        try {
+            Session session = stripe.sessions.computeIfAbsent(memoryId, id -> new Session());
+            totalMessages.addAndGet(messages.size() - session.messages.size());
+            session.messages = List.copyOf(messages);
+            session.lastAccessMillis = System.currentTimeMillis();
+            save(memoryId, session.messages);
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (totalMessages.get() > maxTotalMessages) {
+            enforceCap(memoryId);
+        }
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        Stripe stripe = stripeFor(memoryId);
+        stripe.lock.lock();
+        try {
+            Session session = stripe.sessions.remove(memoryId);
+            if (session != null) {
+                totalMessages.addAndGet(-session.messages.size());
+            }
+            deleteFile(memoryId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int sessionCount() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                total += stripe.sessions.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public int totalMessages() {
+        return totalMessages.get();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    // ============================================
+    // DESALOJO
+    // ============================================
+
+    // Package-private para que los tests no esperen al barrendero
+    void evictIdle() {
+        long limite = System.currentTimeMillis() - idleMillis;
+        List<Object> expiradas = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.sessions.entrySet().removeIf(e -> {
+                    if (e.getValue().lastAccessMillis >= limite) {
+                        return false;
+                    }
+                    totalMessages.addAndGet(-e.getValue().messages.size());
+                    deleteFile(e.getKey());
+                    expiradas.add(e.getKey());
+                    return true;
+                });
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        expiradas.forEach(evictionListener);
+        purgeExpiredFiles(limite);
+        if (!expiradas.isEmpty()) {
+            log.debug("Sesiones expiradas por inactividad: {}", expiradas.size());
+        }
+    }
+
+    /**
+     * Desaloja sesiones LRU hasta quedar bajo el tope global. Solo un hilo lo hace a la vez;
+     * los demas siguen sin esperar (el tope es "blando" por unos milisegundos).
+     */
+    private void enforceCap(Object actual) {
+        if (!capLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Candidata> candidatas = new ArrayList<>();
+            for (Stripe stripe : stripes) {
+                stripe.lock.lock();
+                try {
+                    stripe.sessions.forEach((id, s) -> candidatas.add(new Candidata(id, s.lastAccessMillis)));
+                } finally {
+                    stripe.lock.unlock();
+                }
+            }
+            candidatas.sort(Comparator.comparingLong(Candidata::lastAccessMillis));
+            for (Candidata candidata : candidatas) {
+                if (totalMessages.get() <= maxTotalMessages) {
+                    break;
+                }
+                if (candidata.id().equals(actual)) {
+                    continue;
+                }
+                Stripe stripe = stripeFor(candidata.id());
+                stripe.lock.lock();
+                try {
+                    Session session = stripe.sessions.remove(candidata.id());
+                    if (session != null) {
+                        totalMessages.addAndGet(-session.messages.size());
+                    }
+                } finally {
+                    stripe.lock.unlock();
+                }
+                evictionListener.accept(candidata.id());
+            }
+        } finally {
+            capLock.unlock();
+        }
+    }
+
+    // ============================================
+    // PERSISTENCIA EN ARCHIVOS
+    // ============================================
+
+    private List<ChatMessage> load(Object memoryId) {
+        if (persistDirectory == null) {
+            return List.of();
+        }
+        Path archivo = fileFor(memoryId);
+        if (!Files.exists(archivo)) {
+            return List.of();
+        }
+        try {
+            return List.copyOf(ChatMessageDeserializer.messagesFromJson(Files.readString(archivo, StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la sesion " + memoryId, e);
+        }
+    }
+
+    private void save(Object memoryId, List<ChatMessage> messages) {
+        if (persistDirectory == null) {
+            return;
+        }
+        Path archivo = fileFor(memoryId);
+        Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            Files.writeString(tmp, ChatMessageSerializer.messagesToJson(messages), StandardCharsets.UTF_8);
+            Files.move(tmp, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la sesion " + memoryId, e);
+        }
+    }
+
+    private void deleteFile(Object memoryId) {
+        if (persistDirectory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(fileFor(memoryId));
+        } catch (IOException e) {
+            log.warn("No se pudo borrar la sesion {}: {}", memoryId, e.getMessage());
+        }
+    }
+
+    // Sesiones que expiraron mientras la app estaba apagada. Solo *.json: el directorio puede
+    // tener otros archivos (un .tmp de una escritura en curso, lo que el operador deje ahi)
+    private void purgeExpiredFiles(long limite) {
+        if (persistDirectory == null) {
+            return;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(persistDirectory, "*.json")) {
+            for (Path archivo : archivos) {
+                if (Files.getLastModifiedTime(archivo).toMillis() < limite) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudieron purgar sesiones expiradas: {}", e.getMessage());
+        }
+    }
+
+    private Path fileFor(Object memoryId) {
+        // Los ids ya vienen validados por el controlador (solo [A-Za-z0-9_-])
+        return persistDirectory.resolve(memoryId + ".json");
+    }
+
+    private Stripe stripeFor(Object memoryId) {
+        return stripes[Math.floorMod(memoryId.hashCode(), stripes.length)];
+    }
+}
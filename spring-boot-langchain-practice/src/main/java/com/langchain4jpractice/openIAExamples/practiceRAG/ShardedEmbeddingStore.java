@@ -0,0 +1,402 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * EmbeddingStore PARTICIONADO: N MappedEmbeddingStore (uno por subdirectorio shard-i) que se
+ * consultan en paralelo.
+ *
+ * SCATTER-GATHER:
+ * 1. La busqueda se lanza en todos los shards a la vez (ForkJoinPool propio; el hilo que llama
+ *    resuelve el primer shard en lugar de quedarse esperando).
+ * 2. Cada shard devuelve su top-k.
+ * 3. Se mezclan con un min-heap acotado a k: nunca se ordenan mas de k resultados.
+ * Cada shard recorre (o navega con HNSW) 1/N del corpus, asi la latencia baja con los nucleos.
+ *
+ * PARTICION:
+ * - HASH       : por hash del id. Reparte parejo; toda consulta toca todos los shards.
+ * - COLLECTION : por el valor de una clave de metadata (p. ej. el tenant o el documento). Todos
+ *                los segmentos de una coleccion caen en el mismo shard, y una consulta con filtro
+ *                'clave = x' (o 'clave IN (...)') solo toca los shards de esas colecciones: un
+ *                tenant no paga el tamano del corpus de los demas. Sin la clave, se usa el id.
+ *
+ * La particion se guarda en shards.json: cambiar el numero de shards o la particion movería
+ * los ids de shard, asi que abrir el directorio con otra configuracion falla.
+ *
+ * BM25: cada shard tiene su propio indice, con su propia IDF. Los scores lexicos de shards
+ * distintos son comparables solo aproximadamente (lo mismo que hace un buscador distribuido por
+ * defecto); para RRF solo importa el orden.
+ */
+@Slf4j
+public class ShardedEmbeddingStore implements LexicalEmbeddingStore {
+
+    private static final String LAYOUT_FILE = "shards.json";
+
+    public enum Particion { HASH, COLLECTION }
+
+    /**
+     * @param collectionKey clave de metadata que define la coleccion (solo con COLLECTION)
+     * @param parallelism   hilos del pool de busqueda
+     */
+    public record Config(int shards, Particion particion, String collectionKey, int parallelism) {
+        public Config {
+            if (shards < 1 || parallelism < 1 || particion == null
+                    || (particion == Particion.COLLECTION && (collectionKey == null || collectionKey.isBlank()))) {
+                throw new IllegalArgumentException("Shards invalidos: shards>=1, parallelism>=1 y clave de coleccion");
+            }
+        }
+    }
+
+    private record Layout(int shards, Particion particion, String collectionKey) {
+    }
+
+    private final Config config;
+    private final List<MappedEmbeddingStore> shards;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param shardFactory abre (o crea) el store de cada subdirectorio, con su indice
+     */
+    public ShardedEmbeddingStore(Path directory, Config config, Function<Path, MappedEmbeddingStore> shardFactory) {
+        this.config = config;
+        checkLayout(directory, config);
+        List<MappedEmbeddingStore> abiertos = new ArrayList<>(config.shards());
+        for (int i = 0; i < config.shards(); i++) {
+            abiertos.add(shardFactory.apply(directory.resolve("shard-" + i)));
+        }
+        this.shards = List.copyOf(abiertos);
+        this.pool = new ForkJoinPool(config.parallelism());
+        log.info("Store particionado en {} shards ({}): {} segmentos por shard",
+                config.shards(), config.particion(), shards.stream().map(MappedEmbeddingStore::size).toList());
+    }
+
+    // ============================================
+    // ESCRITURA
+    // ============================================
+
+    @Override
+    public String add(Embedding embedding) {
+        String id = UUID.randomUUID().toString();
+        add(id, embedding);
+        return id;
+    }
+
+    @Override
+    public void add(String id, Embedding embedding) {
+        addAll(List.of(id), List.of(embedding), null);
+    }
+
+    @Override
+    public String add(Embedding embedding, TextSegment textSegment) {
+        String id = UUID.randomUUID().toString();
+        addAll(List.of(id), List.of(embedding), textSegment == null ? null : List.of(textSegment));
+        return id;
+    }
+
+    @Override
+    public List<String> addAll(List<Embedding> embeddings) {
+        List<String> newIds = generateIds(embeddings.size());
+        addAll(newIds, embeddings, null);
+        return newIds;
+    }
+
+    /** Agrupa el lote por shard y escribe los grupos en paralelo (cada shard tiene su lock). */
+    @Override
+    public void addAll(List<String> newIds, List<Embedding> embeddings, List<TextSegment> embedded) {
+        if (newIds.size() != embeddings.size() || (embedded != null && embedded.size() != embeddings.size())) {
+            throw new IllegalArgumentException("ids, embeddings y segmentos deben tener el mismo tamano");
+        }
+        List<List<Integer>> porShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            porShard.add(new ArrayList<>());
+        }
+        for (int i = 0; i < newIds.size(); i++) {
+            porShard.get(shardFor(newIds.get(i), embedded == null ? null : embedded.get(i))).add(i);
+        }
+        BitSet destino = new BitSet(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            destino.set(i, !porShard.get(i).isEmpty());
+        }
+        scatter(destino, shard -> {
+            List<Integer> posiciones = porShard.get(shard);
+            shards.get(shard).addAll(
+                    posiciones.stream().map(newIds::get).toList(),
+                    posiciones.stream().map(embeddings::get).toList(),
+                    embedded == null ? null : posiciones.stream().map(embedded::get).toList());
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAll(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty()) {
+            throw new IllegalArgumentException("ids no puede ser null ni vacio");
+        }
+        if (config.particion() == Particion.HASH) {
+            List<List<String>> porShard = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                porShard.add(new ArrayList<>());
+            }
+            idsToRemove.forEach(id -> porShard.get(hashShard(id)).add(id));
+            for (int i = 0; i < shards.size(); i++) {
+                if (!porShard.get(i).isEmpty()) {
+                    shards.get(i).removeAll(porShard.get(i));
+                }
+            }
+            return;
+        }
+        // Por coleccion el id no dice el shard: cada shard ignora los ids que no tiene
+        shards.forEach(shard -> shard.removeAll(idsToRemove));
+    }
+
+    @Override
+    public void updateMetadata(Map<String, Metadata> metadataById) {
+        if (config.particion() == Particion.HASH) {
+            List<Map<String, Metadata>> porShard = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                porShard.add(new HashMap<>());
+            }
+            metadataById.forEach((id, metadata) -> porShard.get(hashShard(id)).put(id, metadata));
+            for (int i = 0; i < shards.size(); i++) {
+                shards.get(i).updateMetadata(porShard.get(i));
+            }
+            return;
+        }
+        // Igual que removeAll: cada shard ignora los ids que no tiene
+        shards.forEach(shard -> shard.updateMetadata(metadataById));
+    }
+
+    @Override
+    public void removeAll(Filter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter no puede ser null");
+        }
+        shardsFor(filter).stream().forEach(shard -> shards.get(shard).removeAll(filter));
+    }
+
+    @Override
+    public void removeAll() {
+        shards.forEach(MappedEmbeddingStore::removeAll);
+    }
+
+    // ============================================
+    // BUSQUEDA (SCATTER-GATHER)
+    // ============================================
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> search(EmbeddingSearchRequest request) {
+        List<List<EmbeddingMatch<TextSegment>>> parciales = scatter(shardsFor(request.filter()),
+                shard -> shards.get(shard).search(request).matches());
+        return new EmbeddingSearchResult<>(merge(parciales, request.maxResults()));
+    }
+
+    @Override
+    public List<EmbeddingMatch<TextSegment>> searchLexical(String consulta, int maxResults) {
+        requireLexical();
+        BitSet todos = new BitSet(shards.size());
+        todos.set(0, shards.size());
+        return merge(scatter(todos, shard -> shards.get(shard).searchLexical(consulta, maxResults)), maxResults);
+    }
+
+    @Override
+    public EmbeddingSearchResult<TextSegment> searchPrefiltered(EmbeddingSearchRequest request, String consulta,
+                                                                int maxCandidates) {
+        requireLexical();
+        List<List<EmbeddingMatch<TextSegment>>> parciales = scatter(shardsFor(request.filter()),
+                shard -> shards.get(shard).searchPrefiltered(request, consulta, maxCandidates).matches());
+        return new EmbeddingSearchResult<>(merge(parciales, request.maxResults()));
+    }
+
+    @Override
+    public boolean hasLexicalIndex() {
+        return shards.get(0).hasLexicalIndex();
+    }
+
+    /**
+     * Shards que pueden tener resultados para el filtro. Sin filtro, o si el filtro no habla de
+     * la clave de coleccion, son todos.
+     */
+    BitSet shardsFor(Filter filter) {
+        BitSet destino = config.particion() == Particion.COLLECTION ? shardsDeColeccion(filter) : null;
+        if (destino == null) {
+            destino = new BitSet(shards.size());
+            destino.set(0, shards.size());
+        }
+        return destino;
+    }
+
+    // null = el filtro no restringe la coleccion
+    private BitSet shardsDeColeccion(Filter filter) {
+        if (filter instanceof IsEqualTo igual && igual.key().equals(config.collectionKey())) {
+            BitSet destino = new BitSet(shards.size());
+            destino.set(hashShard(String.valueOf(igual.comparisonValue())));
+            return destino;
+        }
+        if (filter instanceof IsIn en && en.key().equals(config.collectionKey())) {
+            BitSet destino = new BitSet(shards.size());
+            en.comparisonValues().forEach(valor -> destino.set(hashShard(String.valueOf(valor))));
+            return destino;
+        }
+        if (filter instanceof And y) {
+            BitSet izquierda = shardsDeColeccion(y.left());
+            BitSet derecha = shardsDeColeccion(y.right());
+            if (izquierda == null || derecha == null) {
+                return izquierda == null ? derecha : izquierda;
+            }
+            izquierda.and(derecha);
+            return izquierda;
+        }
+        return null;
+    }
+
+    // Lanza la tarea en los shards marcados. El hilo que llama ejecuta el primero.
+    private <T> List<T> scatter(BitSet destino, IntFunction<T> tarea) {
+        int primero = destino.nextSetBit(0);
+        if (primero < 0) {
+            return List.of();
+        }
+        List<ForkJoinTask<T>> enCurso = new ArrayList<>(destino.cardinality() - 1);
+        for (int shard = destino.nextSetBit(primero + 1); shard >= 0; shard = destino.nextSetBit(shard + 1)) {
+            int objetivo = shard;
+            enCurso.add(pool.submit(() -> tarea.apply(objetivo)));
+        }
+        List<T> resultados = new ArrayList<>(enCurso.size() + 1);
+        resultados.add(tarea.apply(primero));
+        for (ForkJoinTask<T> parcial : enCurso) {
+            resultados.add(parcial.join());
+        }
+        return resultados;
+    }
+
+    // Min-heap de tamano k: la cabeza es el peor de los mejores. Empates por id (orden estable).
+    private static List<EmbeddingMatch<TextSegment>> merge(List<List<EmbeddingMatch<TextSegment>>> parciales, int k) {
+        Comparator<EmbeddingMatch<TextSegment>> peorPrimero = Comparator
+                .comparingDouble((EmbeddingMatch<TextSegment> match) -> match.score())
+                .thenComparing(EmbeddingMatch::embeddingId, Comparator.reverseOrder());
+        PriorityQueue<EmbeddingMatch<TextSegment>> topK = new PriorityQueue<>(k + 1, peorPrimero);
+        for (List<EmbeddingMatch<TextSegment>> parcial : parciales) {
+            for (EmbeddingMatch<TextSegment> match : parcial) {
+                if (topK.size() < k) {
+                    topK.offer(match);
+                } else if (peorPrimero.compare(match, topK.peek()) > 0) {
+                    topK.poll();
+                    topK.offer(match);
+                } else if (match.score() < topK.peek().score()) {
+                    break; // cada parcial viene ordenado de mayor a menor: el resto tampoco entra
+                }
+            }
+        }
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>(topK.size());
+        while (!topK.isEmpty()) {
+            matches.add(topK.poll());
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    // ============================================
+    // PARTICION
+    // ============================================
+
+    private int shardFor(String id, TextSegment segmento) {
+        if (config.particion() == Particion.COLLECTION && segmento != null) {
+            Object coleccion = segmento.metadata().toMap().get(config.collectionKey());
+            if (coleccion != null) {
+                return hashShard(String.valueOf(coleccion));
+            }
+        }
+        return hashShard(id);
+    }
+
+    private int hashShard(String valor) {
+        // String.hashCode esta especificado: el mismo id cae en el mismo shard en cada arranque
+        return Math.floorMod(valor.hashCode(), config.shards());
+    }
+
+    private static void checkLayout(Path directory, Config config) {
+        Layout esperado = new Layout(config.shards(), config.particion(),
+                config.particion() == Particion.COLLECTION ? config.collectionKey() : null);
+        Path archivo = directory.resolve(LAYOUT_FILE);
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            if (Files.exists(archivo)) {
+                Layout actual = objectMapper.readValue(archivo.toFile(), Layout.class);
+                if (!actual.equals(esperado)) {
+                    throw new IllegalStateException("El store en " + directory + " se creo con " + actual
+                            + " y ahora se pide " + esperado + ". Los ids cambiarian de shard: "
+                            + "borra el directorio para reingestar o vuelve a la configuracion anterior");
+                }
+                return;
+            }
+            Files.createDirectories(directory);
+            objectMapper.writeValue(archivo.toFile(), esperado);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer/escribir " + archivo, e);
+        }
+    }
+
+    // ============================================
+    // MANTENIMIENTO
+    // ============================================
+
+    private void requireLexical() {
+        if (!hasLexicalIndex()) {
+            throw new IllegalStateException("El store no tiene indice lexico (BM25) configurado");
+        }
+    }
+
+    /** Compacta los shards que tengan vectores borrados. */
+    public void compact() {
+        shards.stream().filter(shard -> shard.deletedCount() > 0).forEach(MappedEmbeddingStore::compact);
+    }
+
+    public int deletedCount() {
+        return shards.stream().mapToInt(MappedEmbeddingStore::deletedCount).sum();
+    }
+
+    @Override
+    public int size() {
+        return shards.stream().mapToInt(MappedEmbeddingStore::size).sum();
+    }
+
+    /** Segmentos vivos por shard (para ver si la particion esta balanceada). */
+    public List<Integer> shardSizes() {
+        return shards.stream().map(MappedEmbeddingStore::size).toList();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        shards.forEach(MappedEmbeddingStore::close);
+    }
+}
@@ -0,0 +1,36 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Nucleos de similitud del store: el bucle mas caliente de la busqueda (se ejecuta por cada
+ * vector comparado).
+ *
+ * IMPLEMENTACIONES:
+ * - VectorApiSimilarityKernel : SIMD con jdk.incubator.vector (8 floats por instruccion con AVX2,
+ *                               16 con AVX-512). Requiere arrancar con --add-modules jdk.incubator.vector.
+ * - ScalarSimilarityKernel    : bucle escalar de siempre. Se usa si el modulo no esta disponible
+ *                               o con -Drag.simd=false.
+ *
+ * Los vectores del store se leen directamente del ByteBuffer mapeado (float32 little-endian),
+ * sin copiarlos a un float[].
+ */
+public interface SimilarityKernel {
+
+    /** Producto punto. Si ambos vectores estan normalizados, es el coseno. */
+    float dot(float[] a, float[] b);
+
+    /** Producto punto entre la consulta y el vector que empieza en 'byteOffset' del buffer. */
+    float dot(float[] query, ByteBuffer vectors, int byteOffset);
+
+    /**
+     * Una consulta contra 'count' vectores contiguos desde 'byteOffset':
+     * out[i] = dot(query, vector i). Es el camino del escaneo exacto.
+     */
+    void dotBatch(float[] query, ByteBuffer vectors, int byteOffset, int count, float[] out);
+
+    /** Producto punto entre una consulta float y un vector int8 (codes[offset .. offset + query.length)). */
+    float dotInt8(float[] query, byte[] codes, int offset);
+
+    String name();
+}
@@ -0,0 +1,81 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Elige el SimilarityKernel una sola vez por JVM.
+ *
+ * FLUJO:
+ * 1. -Drag.simd=false fuerza el escalar.
+ * 2. Si jdk.incubator.vector esta en el arranque (--add-modules), se carga el nucleo SIMD por
+ *    reflexion y se comprueba contra el escalar con un vector de prueba.
+ * 3. Cualquier fallo (modulo ausente, API distinta en otra version de la JDK) -> escalar.
+ */
+@Slf4j
+public final class SimilarityKernels {
+
+    private static final SimilarityKernel SCALAR = new ScalarSimilarityKernel();
+    private static final SimilarityKernel ACTUAL = elegir();
+
+    private SimilarityKernels() {
+    }
+
+    /** El nucleo en uso (SIMD si esta disponible). */
+    public static SimilarityKernel actual() {
+        return ACTUAL;
+    }
+
+    /** El nucleo escalar de referencia. */
+    public static SimilarityKernel scalar() {
+        return SCALAR;
+    }
+
+    private static SimilarityKernel elegir() {
+        if (!Boolean.parseBoolean(System.getProperty("rag.simd", "true"))) {
+            log.info("Nucleo de similitud: escalar (rag.simd=false)");
+            return SCALAR;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("Nucleo de similitud: escalar (arranca con --add-modules jdk.incubator.vector para SIMD)");
+            return SCALAR;
+        }
+        try {
+            SimilarityKernel simd = (SimilarityKernel) Class.forName(SimilarityKernels.class.getPackageName()
+                    + ".VectorApiSimilarityKernel").getDeclaredConstructor().newInstance();
+            verificar(simd);
+            log.info("Nucleo de similitud: {}", simd.name());
+            return simd;
+        } catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+            log.warn("Nucleo SIMD no disponible, se usa el escalar: {}", e.toString());
+            return SCALAR;
+        }
+    }
+
+    // Ejercita todas las operaciones (asi un NoSuchMethodError aparece aqui y no en una busqueda)
+    private static void verificar(SimilarityKernel simd) {
+        int dimension = 37; // no multiplo de los lanes: prueba tambien la cola escalar
+        float[] a = new float[dimension];
+        float[] b = new float[dimension];
+        byte[] codes = new byte[dimension];
+        ByteBuffer buffer = ByteBuffer.allocate(2 * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < dimension; i++) {
+            a[i] = (i % 7) - 3;
+            b[i] = (i % 5) - 2;
+            codes[i] = (byte) ((i % 11) - 5);
+            buffer.putFloat(i * Float.BYTES, b[i]);
+            buffer.putFloat((dimension + i) * Float.BYTES, a[i]);
+        }
+        float[] lote = new float[2];
+        simd.dotBatch(a, buffer, 0, 2, lote);
+        boolean iguales = simd.dot(a, b) == SCALAR.dot(a, b)
+                && simd.dot(a, buffer, 0) == SCALAR.dot(a, b)
+                && lote[1] == SCALAR.dot(a, a)
+                && simd.dotInt8(a, codes, 0) == SCALAR.dotInt8(a, codes, 0);
+        if (!iguales) {
+            throw new IllegalStateException("El nucleo SIMD no coincide con el escalar");
+        }
+    }
+}
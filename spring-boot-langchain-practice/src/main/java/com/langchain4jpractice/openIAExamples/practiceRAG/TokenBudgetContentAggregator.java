@@ -0,0 +1,252 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.TokenCountEstimator;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.content.aggregator.ContentAggregator;
+import dev.langchain4j.rag.query.Query;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Arma el contexto del prompt dentro de un PRESUPUESTO DE TOKENS.
+ *
+ * ANTES: el retriever traia 2 trozos de ~300 caracteres y se pegaban tal cual. Pocos candidatos
+ * (a veces falta el trozo bueno) y, si dos trozos decian lo mismo, se pagaba dos veces.
+ *
+ * AHORA el retriever trae mas candidatos y esta etapa decide que entra:
+ * 1. DEDUP    : trozos casi iguales (Jaccard de trigramas de palabras >= dedupThreshold) se
+ *               quedan con el de mayor score.
+ * 2. UNION    : trozos consecutivos del mismo documento (metadata 'index') se unen en uno solo,
+ *               sin repetir el solapamiento. El contexto queda continuo. 'index' es la posicion
+ *               que IncrementalIngestor mantiene al dia en cada sincronizacion (re-estampa los
+ *               segmentos que se corren tras una edicion), asi dos 'index' seguidos son vecinos
+ *               de verdad en la version actual del documento.
+ * 3. ORDEN    : por score, de mayor a menor (un trozo unido vale lo que su mejor parte).
+ * 4. PRESUPUESTO: se agregan mientras quepan en tokenBudget, contados con el tokenizer local
+ *               del modelo (jtokkit, sin red). Un trozo unido que no cabe cede su lugar a su
+ *               mejor parte que si quepa (el mejor contenido no se pierde por haberse unido);
+ *               un trozo simple que no cabe se salta y se prueba el siguiente, mas chico.
+ *
+ * Resultado: mas recall (mas candidatos) con menos tokens de entrada por /api/rag/ask.
+ */
+public class TokenBudgetContentAggregator implements ContentAggregator {
+
+    private static final Pattern NO_PALABRA = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}");
+    // Solapamientos mas cortos que esto son casualidad (una letra, un espacio), no del splitter
+    private static final int SOLAPE_MINIMO = 20;
+
+    /**
+     * @param tokenBudget    tokens maximos del contexto recuperado (sin contar la pregunta)
+     * @param dedupThreshold similitud a partir de la cual dos trozos se consideran el mismo
+     */
+    public record Config(int tokenBudget, double dedupThreshold) {
+        public Config {
+            if (tokenBudget < 1 || dedupThreshold <= 0 || dedupThreshold > 1) {
+                throw new IllegalArgumentException("Contexto invalido: tokenBudget>=1 y 0<dedupThreshold<=1");
+            }
+        }
+    }
+
+    public record Stats(long requests, long candidates, long duplicates, long merged, long included,
+                        long tokensSent, long tokensDropped) {
+        public double avgTokensSent() {
+            return requests == 0 ? 0 : (double) tokensSent / requests;
+        }
+    }
+
+    // 'partes': los trozos originales de un trozo unido, de mayor a menor score (vacio si no es unido)
+    private record Trozo(String documento, int index, String texto, double score, String id, Metadata metadata,
+                         Set<String> trigramas, List<Trozo> partes) {
+    }
+
+    private final TokenCountEstimator tokenizer;
+    private final Config config;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong included = new AtomicLong();
+    private final AtomicLong tokensSent = new AtomicLong();
+    private final AtomicLong tokensDropped = new AtomicLong();
+
+    public TokenBudgetContentAggregator(TokenCountEstimator tokenizer, Config config) {
+        this.tokenizer = tokenizer;
+        this.config = config;
+    }
+
+    @Override
+    public List<Content> aggregate(Map<Query, Collection<List<Content>>> queryToContents) {
+        List<Trozo> trozos = new ArrayList<>();
+        queryToContents.values().forEach(listas -> listas.forEach(lista -> lista.forEach(c -> trozos.add(trozo(c)))));
+        requests.incrementAndGet();
+        candidates.addAndGet(trozos.size());
+
+        List<Trozo> unicos = deduplicar(trozos);
+        List<Trozo> unidos = unirConsecutivos(unicos);
+        unidos.sort(Comparator.comparingDouble(Trozo::score).reversed());
+
+        List<Content> contexto = new ArrayList<>();
+        int restante = config.tokenBudget();
+        for (Trozo trozo : unidos) {
+            int tokens = tokenizer.estimateTokenCountInText(trozo.texto());
+            Trozo elegido = trozo;
+            int tokensElegido = tokens;
+            if (tokens > restante) {
+                // Unido y demasiado grande: la mejor parte que quepa
+                elegido = null;
+                tokensElegido = 0;
+                for (Trozo parte : trozo.partes()) {
+                    int tokensParte = tokenizer.estimateTokenCountInText(parte.texto());
+                    if (tokensParte <= restante) {
+                        elegido = parte;
+                        tokensElegido = tokensParte;
+                        break;
+                    }
+                }
+                tokensDropped.addAndGet(tokens - tokensElegido);
+                if (elegido == null) {
+                    continue;
+                }
+            }
+            restante -= tokensElegido;
+            tokensSent.addAndGet(tokensElegido);
+            contexto.add(Content.from(TextSegment.from(elegido.texto(), elegido.metadata()),
+                    Map.of(ContentMetadata.SCORE, elegido.score(), ContentMetadata.EMBEDDING_ID, elegido.id())));
+        }
+        included.addAndGet(contexto.size());
+        return contexto;
+    }
+
+    public Stats stats() {
+        return new Stats(requests.get(), candidates.get(), duplicates.get(), merged.get(), included.get(),
+                tokensSent.get(), tokensDropped.get());
+    }
+
+    // ============================================
+    // DEDUP Y UNION
+    // ============================================
+
+    // De mayor a menor score: un trozo se descarta si se parece demasiado a uno ya elegido
+    private List<Trozo> deduplicar(List<Trozo> trozos) {
+        List<Trozo> ordenados = new ArrayList<>(trozos);
+        ordenados.sort(Comparator.comparingDouble(Trozo::score).reversed());
+        List<Trozo> unicos = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (Trozo trozo : ordenados) {
+            boolean repetido = !ids.add(trozo.id())
+                    || unicos.stream().anyMatch(elegido -> jaccard(elegido.trigramas(), trozo.trigramas()) >= config.dedupThreshold());
+            if (repetido) {
+                duplicates.incrementAndGet();
+            } else {
+                unicos.add(trozo);
+            }
+        }
+        return unicos;
+    }
+
+    private List<Trozo> unirConsecutivos(List<Trozo> trozos) {
+        Map<String, List<Trozo>> porDocumento = new LinkedHashMap<>();
+        List<Trozo> resultado = new ArrayList<>();
+        for (Trozo trozo : trozos) {
+            if (trozo.documento() == null || trozo.index() < 0) {
+                resultado.add(trozo);
+            } else {
+                porDocumento.computeIfAbsent(trozo.documento(), k -> new ArrayList<>()).add(trozo);
+            }
+        }
+        for (List<Trozo> delDocumento : porDocumento.values()) {
+            delDocumento.sort(Comparator.comparingInt(Trozo::index));
+            Trozo actual = delDocumento.get(0);
+            for (Trozo siguiente : delDocumento.subList(1, delDocumento.size())) {
+                if (siguiente.index() == actual.index() + 1) {
+                    merged.incrementAndGet();
+                    String texto = unir(actual.texto(), siguiente.texto());
+                    List<Trozo> partes = new ArrayList<>(actual.partes().isEmpty() ? List.of(actual) : actual.partes());
+                    partes.add(siguiente);
+                    partes.sort(Comparator.comparingDouble(Trozo::score).reversed());
+                    actual = new Trozo(actual.documento(), siguiente.index(), texto,
+                            Math.max(actual.score(), siguiente.score()), actual.id(), actual.metadata(), Set.of(),
+                            List.copyOf(partes));
+                } else {
+                    resultado.add(actual);
+                    actual = siguiente;
+                }
+            }
+            resultado.add(actual);
+        }
+        return resultado;
+    }
+
+    // Si el splitter usa solapamiento, el final de 'a' se repite al inicio de 'b': se quita una vez
+    private static String unir(String a, String b) {
+        for (int largo = Math.min(a.length(), b.length()); largo >= SOLAPE_MINIMO; largo--) {
+            if (a.endsWith(b.substring(0, largo))) {
+                return largo >= b.length() ? a : a + b.substring(largo);
+            }
+        }
+        return a + "\n" + b;
+    }
+
+    private static Trozo trozo(Content content) {
+        TextSegment segmento = content.textSegment();
+        Map<String, Object> metadata = segmento.metadata().toMap();
+        Object documento = metadata.get("file_name");
+        Object directorio = metadata.get("absolute_directory_path");
+        Object index = metadata.get("index");
+        Object score = content.metadata().get(ContentMetadata.SCORE);
+        Object id = content.metadata().get(ContentMetadata.EMBEDDING_ID);
+        return new Trozo(
+                documento == null ? null : directorio + "/" + documento,
+                index == null ? -1 : Integer.parseInt(index.toString()),
+                segmento.text(),
+                score instanceof Number numero ? numero.doubleValue() : 0,
+                id == null ? segmento.text() : id.toString(),
+                segmento.metadata(),
+                trigramas(segmento.text()),
+                List.of());
+    }
+
+    private static Set<String> trigramas(String texto) {
+        String normalizado = ACENTOS.matcher(Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        String[] palabras = NO_PALABRA.split(normalizado.trim());
+        Set<String> trigramas = new HashSet<>();
+        if (palabras.length < 3) {
+            trigramas.add(String.join(" ", palabras));
+            return trigramas;
+        }
+        for (int i = 0; i + 2 < palabras.length; i++) {
+            trigramas.add(palabras[i] + " " + palabras[i + 1] + " " + palabras[i + 2]);
+        }
+        return trigramas;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int comunes = 0;
+        for (String trigrama : a) {
+            if (b.contains(trigrama)) {
+                comunes++;
+            }
+        }
+        return (double) comunes / (a.size() + b.size() - comunes);
+    }
+}
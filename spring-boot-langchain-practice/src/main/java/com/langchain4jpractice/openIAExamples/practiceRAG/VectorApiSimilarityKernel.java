@@ -0,0 +1,90 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Nucleo SIMD con la Vector API (jdk.incubator.vector).
+ *
+ * IDEA: en lugar de multiplicar y sumar un float por iteracion, se cargan LANES floats a la
+ * vez en un registro vectorial (8 con AVX2, 16 con AVX-512) y se acumula con fma lane a lane.
+ * Solo al final se suman los lanes entre si (reduceLanes). La cola (dims % LANES) va escalar.
+ *
+ * INT8: los bytes se cargan con una especie de igual numero de lanes y se convierten a float
+ * (castShape) antes del fma; la consulta sigue en float (asimetrico, como QuantizedIndex).
+ *
+ * Solo se carga por reflexion desde SimilarityKernels: si el modulo no esta en el arranque,
+ * esta clase nunca se enlaza.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = FLOATS.length();
+    private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(LANES * Byte.SIZE));
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        FloatVector acumulado = FloatVector.zero(FLOATS);
+        int limite = FLOATS.loopBound(a.length);
+        int i = 0;
+        for (; i < limite; i += LANES) {
+            acumulado = FloatVector.fromArray(FLOATS, a, i).fma(FloatVector.fromArray(FLOATS, b, i), acumulado);
+        }
+        float dot = acumulado.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+
+    @Override
+    public float dot(float[] query, ByteBuffer vectors, int byteOffset) {
+        FloatVector acumulado = FloatVector.zero(FLOATS);
+        int limite = FLOATS.loopBound(query.length);
+        int i = 0;
+        for (; i < limite; i += LANES) {
+            FloatVector guardado = FloatVector.fromByteBuffer(FLOATS, vectors, byteOffset + i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            acumulado = FloatVector.fromArray(FLOATS, query, i).fma(guardado, acumulado);
+        }
+        float dot = acumulado.reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            dot += query[i] * vectors.getFloat(byteOffset + i * Float.BYTES);
+        }
+        return dot;
+    }
+
+    @Override
+    public void dotBatch(float[] query, ByteBuffer vectors, int byteOffset, int count, float[] out) {
+        int stride = query.length * Float.BYTES;
+        for (int v = 0; v < count; v++) {
+            out[v] = dot(query, vectors, byteOffset + v * stride);
+        }
+    }
+
+    @Override
+    public float dotInt8(float[] query, byte[] codes, int offset) {
+        FloatVector acumulado = FloatVector.zero(FLOATS);
+        int limite = FLOATS.loopBound(query.length);
+        int i = 0;
+        for (; i < limite; i += LANES) {
+            FloatVector codigos = (FloatVector) ByteVector.fromArray(BYTES, codes, offset + i).castShape(FLOATS, 0);
+            acumulado = FloatVector.fromArray(FLOATS, query, i).fma(codigos, acumulado);
+        }
+        float dot = acumulado.reduceLanes(VectorOperators.ADD);
+        for (; i < query.length; i++) {
+            dot += query[i] * codes[offset + i];
+        }
+        return dot;
+    }
+
+    @Override
+    public String name() {
+        return "vector-api (" + LANES + " lanes)";
+    }
+}
@@ -0,0 +1,86 @@
+package com.langchain4jpractice.geminiExamples.tools;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrelloClientTest {
+
+	private static final String LISTAS = "[{\"id\":\"1\",\"name\":\"Pendientes\"}]";
+
+	private final AtomicInteger descargas = new AtomicInteger();
+	private final AtomicInteger noModificadas = new AtomicInteger();
+	private final AtomicInteger tarjetas = new AtomicInteger();
+	private HttpServer trello;
+
+	@BeforeEach
+	void arrancarTrelloFalso() throws IOException {
+		trello = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		trello.createContext("/boards/tablero/lists", exchange -> {
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				noModificadas.incrementAndGet();
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				descargas.incrementAndGet();
+				byte[] body = LISTAS.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("ETag", "\"v1\"");
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+			}
+			exchange.close();
+		});
+		trello.createContext("/cards", exchange -> {
+			tarjetas.incrementAndGet();
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		trello.start();
+	}
+
+	@AfterEach
+	void pararTrelloFalso() {
+		trello.stop(0);
+	}
+
+	@Test
+	void revalidaLasListasConPeticionCondicional() {
+		// TTL 0: cada llamada revalida, pero solo la primera descarga el JSON
+		TrelloClient client = client(Duration.ZERO);
+
+		assertThat(client.obtenerListas()).isEqualTo(LISTAS);
+		assertThat(client.obtenerListas()).isEqualTo(LISTAS);
+		assertThat(client.obtenerListas()).isEqualTo(LISTAS);
+
+		assertThat(descargas.get()).isEqualTo(1);
+		assertThat(noModificadas.get()).isEqualTo(2);
+	}
+
+	@Test
+	void creaVariasTarjetasALaVez() {
+		TrelloClient client = client(Duration.ofMinutes(5));
+
+		CompletableFuture<String> a = client.crearTarjeta("1", "A", "desc A");
+		CompletableFuture<String> b = client.crearTarjeta("1", "B", "desc B");
+
+		assertThat(a.join()).contains("\"name\":\"A\"").contains("\"idList\":\"1\"");
+		assertThat(b.join()).contains("\"name\":\"B\"");
+		assertThat(tarjetas.get()).isEqualTo(2);
+	}
+
+	private TrelloClient client(Duration listsTtl) {
+		return new TrelloClient(new TrelloClient.Config("http://127.0.0.1:" + trello.getAddress().getPort(),
+				"key", "token", "tablero", Duration.ofSeconds(1), Duration.ofSeconds(5), listsTtl));
+	}
+}
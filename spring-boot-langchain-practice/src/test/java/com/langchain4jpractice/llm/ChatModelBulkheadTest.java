@@ -0,0 +1,50 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatModelBulkheadTest {
+
+	@Test
+	void rechazaAlLlenarseLosPermisosYLaCola() throws Exception {
+		CountDownLatch enCurso = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		ChatModel lento = new ChatModel() {
+			@Override
+			public ChatResponse doChat(ChatRequest request) {
+				enCurso.countDown();
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return ChatResponse.builder().aiMessage(AiMessage.from("ok")).build();
+			}
+		};
+		ChatModelBulkhead bulkhead = new ChatModelBulkhead(lento, "lento",
+				new Bulkhead.Config(1, 0, Duration.ofMillis(50), Duration.ofSeconds(1)));
+
+		Thread ocupado = new Thread(() -> bulkhead.chat("hola"));
+		ocupado.start();
+		enCurso.await();
+
+		// 1 permiso ocupado y cola de 0: el segundo request falla enseguida
+		assertThatThrownBy(() -> bulkhead.chat("hola"))
+				.isInstanceOf(BulkheadFullException.class);
+		assertThat(bulkhead.stats().rejected()).isEqualTo(1);
+
+		liberar.countDown();
+		ocupado.join();
+		assertThat(bulkhead.chat("hola")).isEqualTo("ok");
+		assertThat(bulkhead.stats().active()).isZero();
+	}
+}
@@ -0,0 +1,46 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ChatModelMetricsListenerTest {
+
+	@Test
+	void registraLatenciaTokensYCostoPorModelo() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ChatModelMetricsListener listener = new ChatModelMetricsListener(registry,
+				LlmPriceTable.parse("gpt-4o:2.50:10.00,gpt-4o-mini:0.15:0.60"));
+		ChatRequest request = ChatRequest.builder()
+				.messages(UserMessage.from("hola"))
+				.modelName("gpt-4o-mini-2024-07-18")
+				.build();
+		ChatResponse response = ChatResponse.builder()
+				.aiMessage(AiMessage.from("hola!"))
+				.tokenUsage(new TokenUsage(1_000_000, 500_000))
+				.build();
+		Map<Object, Object> atributos = new HashMap<>();
+
+		listener.onRequest(new ChatModelRequestContext(request, null, atributos));
+		listener.onResponse(new ChatModelResponseContext(response, request, null, atributos));
+
+		String modelo = "gpt-4o-mini-2024-07-18";
+		assertThat(registry.get("llm.requests").tags("model", modelo, "endpoint", "background", "outcome", "success")
+				.timer().count()).isEqualTo(1);
+		assertThat(registry.get("llm.tokens").tags("type", "output").counter().count()).isEqualTo(500_000);
+		// Gana el prefijo mas largo (gpt-4o-mini): 0.15 + 0.5 * 0.60
+		assertThat(registry.get("llm.cost").tags("model", modelo).counter().count()).isCloseTo(0.45, within(1e-9));
+	}
+}
@@ -0,0 +1,73 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalescingChatModelTest {
+
+	@Test
+	void peticionesIdenticasEnVueloCompartenUnaLlamada() throws Exception {
+		AtomicInteger llamadas = new AtomicInteger();
+		CountDownLatch liberar = new CountDownLatch(1);
+		ChatModel lento = new ChatModel() {
+			@Override
+			public ChatResponse doChat(ChatRequest request) {
+				llamadas.incrementAndGet();
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return ChatResponse.builder().aiMessage(AiMessage.from("ok")).build();
+			}
+		};
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", registry);
+		CoalescingChatModel modelo = new CoalescingChatModel(lento, "lento",
+				LlmExecutionConfig.clave("full"), 0.5, beans.getBeanProvider(MeterRegistry.class));
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> respuestas = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				respuestas.add(executor.submit(() -> modelo.chat("hola")));
+			}
+			// Esperar a que los 3 seguidores se hayan unido al lider antes de liberarlo
+			while (modelo.stats().coalesced() < 3) {
+				Thread.sleep(5);
+			}
+			liberar.countDown();
+			for (Future<String> respuesta : respuestas) {
+				assertThat(respuesta.get()).isEqualTo("ok");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(llamadas.get()).isEqualTo(1);
+		assertThat(registry.counter("llm.coalescing.requests", "model", "lento", "result", "coalesced").count())
+				.isEqualTo(3);
+
+		// Temperatura por encima del umbral: no se agrupa
+		modelo.chat(ChatRequest.builder().messages(UserMessage.from("hola")).temperature(1.0).build());
+		assertThat(modelo.stats().bypassed()).isEqualTo(1);
+		assertThat(llamadas.get()).isEqualTo(2);
+	}
+}
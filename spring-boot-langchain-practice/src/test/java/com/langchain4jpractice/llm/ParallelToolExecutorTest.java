@@ -0,0 +1,101 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelToolExecutorTest {
+
+	interface Agente {
+		String chat(String mensaje);
+	}
+
+	static class Herramientas {
+		@Tool("Tarda 300 ms")
+		public String lenta(String x) throws InterruptedException {
+			Thread.sleep(300);
+			return "lenta " + x;
+		}
+
+		@Tool("Responde enseguida")
+		public String rapida(String x) {
+			return "rapida " + x;
+		}
+
+		@Tool("No responde nunca")
+		public String colgada() throws InterruptedException {
+			Thread.sleep(10_000);
+			return "nunca";
+		}
+	}
+
+	@Test
+	void ejecutaLasToolsDeUnTurnoEnParaleloYEnOrden() {
+		List<ToolExecutionResultMessage> resultados = new CopyOnWriteArrayList<>();
+		// Primera llamada: el modelo pide 4 tools. Segunda: recibe los resultados y contesta
+		ChatModel modelo = new ChatModel() {
+			@Override
+			public ChatResponse doChat(ChatRequest request) {
+				List<ToolExecutionResultMessage> recibidos = request.messages().stream()
+						.filter(ToolExecutionResultMessage.class::isInstance)
+						.map(ToolExecutionResultMessage.class::cast)
+						.toList();
+				if (!recibidos.isEmpty()) {
+					resultados.addAll(recibidos);
+					return ChatResponse.builder().aiMessage(AiMessage.from("listo")).build();
+				}
+				return ChatResponse.builder().aiMessage(AiMessage.from(List.of(
+						tool("1", "lenta", "{\"x\":\"a\"}"),
+						tool("2", "lenta", "{\"x\":\"b\"}"),
+						tool("3", "rapida", "{\"x\":\"c\"}"),
+						tool("4", "colgada", "{}")))).build();
+			}
+		};
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		StaticListableBeanFactory beans = new StaticListableBeanFactory();
+		beans.addBean("registry", registry);
+
+		try (ParallelToolExecutor tools = new ParallelToolExecutor(new ParallelToolExecutor.Config(
+				8, Duration.ofSeconds(5), Map.of("colgada", Duration.ofMillis(100))),
+				beans.getBeanProvider(MeterRegistry.class))) {
+			Agente agente = AiServices.builder(Agente.class)
+					.chatModel(modelo)
+					.tools(tools.herramientas(new Herramientas()))
+					.executeToolsConcurrently(tools.executor())
+					.build();
+
+			long inicio = System.nanoTime();
+			assertThat(agente.chat("hola")).isEqualTo("listo");
+			long millis = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+
+			// En serie serian 300 + 300 + 100 ms; en paralelo manda la mas lenta
+			assertThat(millis).isLessThan(600);
+			assertThat(resultados).extracting(ToolExecutionResultMessage::id).containsExactly("1", "2", "3", "4");
+			assertThat(resultados.get(0).text()).isEqualTo("lenta a");
+			assertThat(resultados.get(2).text()).isEqualTo("rapida c");
+			assertThat(resultados.get(3).text()).contains("no respondio en 100 ms");
+			assertThat(registry.timer("llm.tool.duration", "tool", "colgada", "outcome", "timeout").count()).isEqualTo(1);
+			assertThat(registry.timer("llm.tool.duration", "tool", "lenta", "outcome", "ok").count()).isEqualTo(2);
+		}
+	}
+
+	private static ToolExecutionRequest tool(String id, String nombre, String argumentos) {
+		return ToolExecutionRequest.builder().id(id).name(nombre).arguments(argumentos).build();
+	}
+}
@@ -0,0 +1,54 @@
+package com.langchain4jpractice.llm;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingChatModelDecoratorOrderTest {
+
+	private static final StreamingChatModel MODELO = new StreamingChatModel() {
+		@Override
+		public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	@Configuration(proxyBeanMethods = false)
+	static class Modelos {
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		StreamingChatModel streamingChatModel() {
+			return MODELO;
+		}
+	}
+
+	@Test
+	void elTimerDelPrimerTokenEnvuelveAlBulkheadSinImportarElOrdenDeRegistro() {
+		// LlmMetricsConfig primero: sin Ordered, su BeanPostProcessor envolveria al modelo antes
+		new ApplicationContextRunner()
+				// Como en la app: @Value("PT30S") -> Duration
+				.withInitializer(context -> context.getBeanFactory()
+						.setConversionService(ApplicationConversionService.getSharedInstance()))
+				.withUserConfiguration(Modelos.class, LlmMetricsConfig.class, LlmExecutionConfig.class)
+				.run(context -> {
+					StreamingChatModel bean = context.getBean(StreamingChatModel.class);
+					assertThat(bean).isInstanceOf(StreamingChatModelFirstTokenTimer.class);
+					StreamingChatModel interno = ((StreamingChatModelFirstTokenTimer) bean).delegate();
+					assertThat(interno).isInstanceOf(StreamingChatModelBulkhead.class);
+					assertThat(((StreamingChatModelBulkhead) interno).delegate()).isSameAs(MODELO);
+				});
+	}
+}
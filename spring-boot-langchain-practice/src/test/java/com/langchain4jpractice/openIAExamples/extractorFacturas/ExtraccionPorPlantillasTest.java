@@ -0,0 +1,73 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExtraccionPorPlantillasTest {
+
+	private final ExtraccionPorPlantillas extraccion = new ExtraccionPorPlantillas(
+			List.of(new ExtractorFacturasConfig().plantillaFacturaEmitida()), 1.0);
+
+	@Test
+	void extraeElFormatoConocidoSinIA() {
+		FacturaDTO factura = extraccion.extraer("""
+				Factura #123 emitida a Juan Pérez el 15 de enero de 2024.
+				Productos adquiridos: Laptop Dell XPS $1200, Mouse Logitech $50.
+				Total a pagar: $1250.00.
+				""");
+
+		assertThat(factura).isNotNull();
+		assertThat(factura.cliente()).isEqualTo("Juan Pérez");
+		assertThat(factura.fecha()).isEqualTo("2024-01-15");
+		assertThat(factura.total()).isEqualTo(1250.0);
+		assertThat(factura.productos()).containsExactly("Laptop Dell XPS", "Mouse Logitech");
+	}
+
+	@Test
+	void unNumeroSinMonedaEsParteDelNombreDelProducto() {
+		FacturaDTO factura = extraccion.extraer("""
+				Factura #124 emitida a Juan Pérez el 16 de enero de 2024.
+				Productos adquiridos: Monitor Samsung 27 $1,200.00, Cable HDMI 2.1 $15 y Hub USB 3.
+				Total a pagar: $1218.00.
+				""");
+
+		assertThat(factura).isNotNull();
+		assertThat(factura.productos()).containsExactly("Monitor Samsung 27", "Cable HDMI 2.1", "Hub USB 3");
+	}
+
+	@Test
+	void unTotalConSeparadoresDeOtroLocaleOAmbiguosNoSeAdivina() {
+		String factura = "Factura #7 emitida a Ana Gómez el 2 de mayo de 2024. Productos adquiridos: Silla $80. Total a pagar: $%s.";
+
+		// La plantilla es es-MX (punto decimal): "1.250,50" no se lee como 1.2505, va a la IA
+		assertThat(extraccion.extraer(factura.formatted("1.250,50"))).isNull();
+		// Un solo separador y 3 digitos: ¿1250 o 1,25? Tampoco se adivina
+		assertThat(extraccion.extraer(factura.formatted("1,250"))).isNull();
+		assertThat(extraccion.extraer(factura.formatted("1,250.50")).total()).isEqualTo(1250.5);
+		assertThat(extraccion.extraer(factura.formatted("80")).total()).isEqualTo(80.0);
+
+		// Con una plantilla es (coma decimal) el mismo texto si es un importe valido
+		PlantillaRegex espanola = new PlantillaRegex("es", "emitida a", Pattern.compile("(?<total>[\\d.,]+)"),
+				DateTimeFormatter.ofPattern("d/M/yyyy", Locale.forLanguageTag("es")));
+		assertThat(espanola.importe("1.250,50")).isEqualTo(1250.5);
+		assertThat(espanola.importe("1,250.50")).isNull();
+	}
+
+	@Test
+	void textoDesconocidoVaALaIAYCuentaEnElHitRate() {
+		assertThat(extraccion.extraer("Juan compro un mouse por 50 dolares ayer")).isNull();
+		// Formato conocido pero incompleto: por debajo del umbral
+		assertThat(extraccion.extraer("Factura #9 emitida a Ana el 3 de marzo de 2024. Productos adquiridos: . Total a pagar: $abc"))
+				.isNull();
+
+		ExtraccionPorPlantillas.Stats stats = extraccion.stats();
+		assertThat(stats.intentos()).isEqualTo(2);
+		assertThat(stats.aciertos()).isZero();
+	}
+}
@@ -0,0 +1,53 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtractorFacturasServiceTest {
+
+	@Test
+	void alVencerElTimeoutCancelaElStream() throws Exception {
+		CountDownLatch cancelado = new CountDownLatch(1);
+		// Modelo colgado: manda un token y despues no termina nunca
+		StreamingChatModel modelo = new StreamingChatModel() {
+			@Override
+			public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+				StreamingHandle handle = new StreamingHandle() {
+					@Override
+					public void cancel() {
+						cancelado.countDown();
+					}
+
+					@Override
+					public boolean isCancelled() {
+						return cancelado.getCount() == 0;
+					}
+				};
+				Thread hilo = new Thread(() ->
+						handler.onPartialResponse(new PartialResponse("{\"cliente\": \"Ju"), new PartialResponseContext(handle)));
+				hilo.setDaemon(true);
+				hilo.start();
+			}
+		};
+		ExtractorFacturasService service = new ExtractorFacturasService(modelo,
+				new FacturaCache(new FacturaCache.Config(100, Duration.ofMinutes(5), null)),
+				new ExtraccionPorPlantillas(List.of(), 1.0), Duration.ofMillis(200));
+
+		assertThatThrownBy(() -> service.analizarTexto("Factura colgada"))
+				.hasMessageContaining("no respondio");
+		assertThat(cancelado.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+}
@@ -0,0 +1,70 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacturaCacheTest {
+
+	private static final FacturaDTO FACTURA = new FacturaDTO("Juan", "2024-01-15", 10.5, new String[]{"Mouse"});
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void peticionesConcurrentesIgualesHacenUnaSolaLlamada() throws Exception {
+		FacturaCache cache = new FacturaCache(new FacturaCache.Config(10, Duration.ofMinutes(5), null));
+		AtomicInteger llamadas = new AtomicInteger();
+		CountDownLatch enCurso = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+
+		CompletableFuture<FacturaDTO> primera = CompletableFuture.supplyAsync(() -> cache.get("Factura a Juan", () -> {
+			llamadas.incrementAndGet();
+			enCurso.countDown();
+			await(liberar);
+			return FACTURA;
+		}));
+		assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+		// Mismo texto con otros espacios: misma clave, espera a la llamada en vuelo
+		CompletableFuture<FacturaDTO> segunda = CompletableFuture.supplyAsync(() -> cache.get("  Factura   a Juan\n", () -> {
+			llamadas.incrementAndGet();
+			return FACTURA;
+		}));
+		Thread.sleep(100);
+		liberar.countDown();
+
+		assertThat(primera.get(5, TimeUnit.SECONDS)).isSameAs(FACTURA);
+		assertThat(segunda.get(5, TimeUnit.SECONDS)).isSameAs(FACTURA);
+		assertThat(llamadas.get()).isEqualTo(1);
+		assertThat(cache.get("Factura a Juan", () -> null)).isSameAs(FACTURA);
+	}
+
+	@Test
+	void elNivelEnDiscoSobreviveAUnaNuevaInstancia() {
+		FacturaCache.Config config = new FacturaCache.Config(10, Duration.ofMinutes(5), dir);
+		new FacturaCache(config).get("Factura a Juan", () -> FACTURA);
+
+		FacturaCache reiniciada = new FacturaCache(config);
+		FacturaDTO leida = reiniciada.get("Factura a Juan", () -> null);
+
+		assertThat(leida.cliente()).isEqualTo("Juan");
+		assertThat(leida.productos()).containsExactly("Mouse");
+		assertThat(reiniciada.stats().diskHits()).isEqualTo(1);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FacturaJsonStreamParserTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void armaLaFacturaAunqueLosTokensCortenValoresAMedias() {
+		FacturaJsonStreamParser parser = new FacturaJsonStreamParser(objectMapper);
+		for (String token : new String[]{"{\"clie", "nte\": \"Juan Pé", "rez\", \"fecha\": \"2024-01-15\", \"to",
+				"tal\": 12", "50.5, \"productos\": [\"Laptop\", \"Mou", "se\"]}"}) {
+			parser.feed(token);
+		}
+
+		assertThat(parser.isComplete()).isTrue();
+		FacturaDTO factura = parser.finish();
+		assertThat(factura.cliente()).isEqualTo("Juan Pérez");
+		assertThat(factura.total()).isEqualTo(1250.5);
+		assertThat(factura.productos()).containsExactly("Laptop", "Mouse");
+	}
+
+	@Test
+	void abortaEnCuantoLaSalidaSeSaleDelEsquema() {
+		FacturaJsonStreamParser texto = new FacturaJsonStreamParser(objectMapper);
+		assertThatThrownBy(() -> texto.feed("Claro, aqui tienes"))
+				.isInstanceOf(FacturaJsonStreamParser.FacturaMalformadaException.class);
+
+		FacturaJsonStreamParser campoExtra = new FacturaJsonStreamParser(objectMapper);
+		campoExtra.feed("{\"cliente\": \"Juan\", ");
+		assertThatThrownBy(() -> campoExtra.feed("\"iva\": 21"))
+				.isInstanceOf(FacturaJsonStreamParser.FacturaMalformadaException.class);
+
+		FacturaJsonStreamParser totalTexto = new FacturaJsonStreamParser(objectMapper);
+		assertThatThrownBy(() -> totalTexto.feed("{\"total\": \"mucho\""))
+				.isInstanceOf(FacturaJsonStreamParser.FacturaMalformadaException.class);
+	}
+
+	@Test
+	void productosNuloQuedaComoListaVacia() {
+		FacturaJsonStreamParser parser = new FacturaJsonStreamParser(objectMapper);
+		parser.feed("{\"cliente\": \"Juan\", \"fecha\": \"2024-01-15\", \"total\": 10, \"productos\": null}");
+
+		assertThat(parser.finish().productos()).isEmpty();
+	}
+}
@@ -0,0 +1,119 @@
+package com.langchain4jpractice.openIAExamples.extractorFacturas;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacturasBatchServiceTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void emiteUnaLineaPorFacturaYReanudaSinRepetirLlamadas() throws Exception {
+		AtomicInteger llamadas = new AtomicInteger();
+		StreamingChatModel modelo = modelo(llamadas);
+		String entrada = "Factura 1 a Juan\n\nFactura ROTA\n{\"factura\": \"Factura 3 a Juan\"}\n";
+
+		try (FacturasBatchService service = servicio(modelo)) {
+			List<String> primera = new CopyOnWriteArrayList<>();
+			FacturasBatchService.Resumen resumen = service.procesar("job-1", stream(entrada), primera::add).get();
+
+			assertThat(resumen.total()).isEqualTo(3);
+			assertThat(resumen.ok()).isEqualTo(2);
+			assertThat(resumen.errores()).isEqualTo(1);
+			assertThat(primera).hasSize(4); // 3 facturas + resumen
+			assertThat(primera.get(3)).contains("\"status\":\"done\"");
+			// La factura ROTA se aborta en el primer token y se reintenta una vez
+			assertThat(llamadas.get()).isEqualTo(4);
+
+			// Reanudar: solo se reintenta la factura que fallo
+			List<String> segunda = new CopyOnWriteArrayList<>();
+			FacturasBatchService.Resumen reanudado = service.procesar("job-1", stream(entrada), segunda::add).get();
+			assertThat(reanudado.reanudadas()).isEqualTo(2);
+			assertThat(llamadas.get()).isEqualTo(6);
+			assertThat(segunda).hasSize(4);
+		}
+	}
+
+	@Test
+	void unaLineaMalFormadaEsUnErrorDeEseItemYNoCortaElLote() throws Exception {
+		AtomicInteger llamadas = new AtomicInteger();
+		String entrada = "Factura 1 a Juan\n{\"factura\": \"sin cerrar\nFactura 3 a Juan\nFactura 4 a Juan\n";
+
+		try (FacturasBatchService service = servicio(modelo(llamadas))) {
+			List<String> lineas = new CopyOnWriteArrayList<>();
+			FacturasBatchService.Resumen resumen = service.procesar("job-2", stream(entrada), lineas::add).get();
+
+			assertThat(resumen.total()).isEqualTo(4);
+			assertThat(resumen.ok()).isEqualTo(3);
+			assertThat(resumen.errores()).isEqualTo(1);
+			assertThat(lineas).hasSize(5);
+			assertThat(lineas).anyMatch(l -> l.contains("\"index\":1") && l.contains("\"status\":\"error\""));
+			// Todas las facturas en vuelo quedaron en el archivo del job antes de cerrarlo
+			assertThat(Files.readAllLines(service.jobFile("job-2"))).hasSize(4);
+		}
+	}
+
+	private static StreamingChatModel modelo(AtomicInteger llamadas) {
+		return new StreamingChatModel() {
+			@Override
+			public void doChat(ChatRequest request, StreamingChatResponseHandler handler) {
+				llamadas.incrementAndGet();
+				String prompt = request.messages().get(0).toString();
+				String respuesta = prompt.contains("ROTA") ? "no es json"
+						: "{\"cliente\": \"Juan\", \"fecha\": \"2024-01-15\", \"total\": 10.5, \"productos\": [\"Mouse\"]}";
+				StreamingHandle handle = new StreamingHandle() {
+					private boolean cancelado;
+
+					@Override
+					public void cancel() {
+						cancelado = true;
+					}
+
+					@Override
+					public boolean isCancelled() {
+						return cancelado;
+					}
+				};
+				// Respuesta en trozos de 7 caracteres, como llegarian los tokens
+				for (int i = 0; i < respuesta.length() && !handle.isCancelled(); i += 7) {
+					handler.onPartialResponse(new PartialResponse(respuesta.substring(i, Math.min(respuesta.length(), i + 7))),
+							new PartialResponseContext(handle));
+				}
+				if (!handle.isCancelled()) {
+					handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from(respuesta)).build());
+				}
+			}
+		};
+	}
+
+	private FacturasBatchService servicio(StreamingChatModel modelo) {
+		return new FacturasBatchService(new ExtractorFacturasService(modelo,
+				new FacturaCache(new FacturaCache.Config(100, Duration.ofMinutes(5), null)),
+				new ExtraccionPorPlantillas(List.of(), 1.0)),
+				new FacturasBatchService.Config(2, 1, dir));
+	}
+
+	private static ByteArrayInputStream stream(String texto) {
+		return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8));
+	}
+}
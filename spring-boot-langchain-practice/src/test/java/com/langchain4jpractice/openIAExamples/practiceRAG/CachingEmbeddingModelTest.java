@@ -0,0 +1,50 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingEmbeddingModelTest {
+
+	@Test
+	void cuentaAciertosFallosYDesalojosLru() {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		CachingEmbeddingModel cache = new CachingEmbeddingModel(modelo, 2);
+
+		Embedding original = cache.embed("Hola mundo").content();
+		// Misma clave normalizada: no vuelve al modelo
+		assertThat(cache.embed("  hola   MUNDO ").content()).isEqualTo(original);
+		cache.embed("a");
+		cache.embed("hola mundo"); // "hola mundo" pasa a ser la mas reciente
+		cache.embed("b");          // desaloja "a", no "hola mundo"
+		cache.embed("hola mundo");
+		cache.embed("a");          // fallo: ya no estaba; desaloja "b"
+
+		CachingEmbeddingModel.Stats stats = cache.stats();
+		assertThat(stats.hits()).isEqualTo(3);
+		assertThat(stats.misses()).isEqualTo(4);
+		assertThat(stats.evictions()).isEqualTo(2);
+		assertThat(stats.size()).isEqualTo(2);
+		assertThat(stats.hitRate()).isEqualTo(3 / 7.0);
+		assertThat(modelo.textos.get()).isEqualTo(4);
+	}
+
+	@Test
+	void unLoteSoloMandaAlModeloLosFaltantesYRespetaElOrden() {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		CachingEmbeddingModel cache = new CachingEmbeddingModel(modelo, 10);
+		cache.embed("b");
+
+		List<Embedding> vectores = cache.embedAll(List.of(TextSegment.from("a"), TextSegment.from("B"),
+				TextSegment.from("c"))).content();
+
+		assertThat(vectores).containsExactly(ContadorEmbeddingModel.vector("a"), ContadorEmbeddingModel.vector("b"),
+				ContadorEmbeddingModel.vector("c"));
+		assertThat(modelo.textos.get()).isEqualTo(3);
+		assertThat(cache.stats().hits()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,40 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EmbeddingModel de prueba: vector determinista por texto (sin ONNX) y cuenta los textos embeddeados.
+ */
+class ContadorEmbeddingModel implements EmbeddingModel {
+
+	private static final int DIMENSION = 8;
+
+	final AtomicInteger textos = new AtomicInteger();
+
+	@Override
+	public Response<List<Embedding>> embedAll(List<TextSegment> segmentos) {
+		List<Embedding> embeddings = new ArrayList<>(segmentos.size());
+		for (TextSegment segmento : segmentos) {
+			textos.incrementAndGet();
+			embeddings.add(vector(segmento.text()));
+		}
+		return Response.from(embeddings);
+	}
+
+	static Embedding vector(String texto) {
+		Random random = new Random(texto.hashCode());
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return Embedding.from(vector);
+	}
+}
@@ -0,0 +1,93 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.inmemory.InMemoryEmbeddingStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class EmbeddingPipelineTest {
+
+	// Colas de 1 lugar: cualquier etapa que no drene deja bloqueadas a las demas
+	private static final EmbeddingPipeline.Config CONFIG = new EmbeddingPipeline.Config(3, 4, 1);
+
+	@Test
+	void guardaCadaSegmentoConSuVectorYSuId() {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		InMemoryEmbeddingStore<TextSegment> store = new InMemoryEmbeddingStore<>();
+
+		EmbeddingPipeline.Report report = assertTimeoutPreemptively(Duration.ofSeconds(10),
+				() -> new EmbeddingPipeline(modelo, store, CONFIG).run(fuentes(20), porLinea()));
+
+		assertThat(report.documents()).isEqualTo(20);
+		assertThat(report.segments()).isEqualTo(100);
+		assertThat(report.batches()).isEqualTo(25);
+		assertThat(modelo.textos.get()).isEqualTo(100);
+
+		// Los lotes llegan en cualquier orden entre workers, pero dentro de cada lote
+		// cada id debe quedar con el vector de SU texto
+		List<EmbeddingMatch<TextSegment>> guardados = store.search(EmbeddingSearchRequest.builder()
+				.queryEmbedding(ContadorEmbeddingModel.vector("consulta"))
+				.maxResults(1_000)
+				.minScore(0.0)
+				.build()).matches();
+		assertThat(guardados).hasSize(100);
+		for (EmbeddingMatch<TextSegment> guardado : guardados) {
+			assertThat(guardado.embeddingId()).isEqualTo(guardado.embedded().text());
+			assertThat(guardado.embedding()).isEqualTo(ContadorEmbeddingModel.vector(guardado.embedded().text()));
+		}
+	}
+
+	@Test
+	void unFalloDelEmbedSaleDeRunSinColgarElPipeline() {
+		ContadorEmbeddingModel falla = new ContadorEmbeddingModel() {
+			@Override
+			public Response<List<Embedding>> embedAll(List<TextSegment> segmentos) {
+				if (segmentos.stream().anyMatch(s -> s.text().equals("doc-3#2"))) {
+					throw new IllegalStateException("modelo caido");
+				}
+				return super.embedAll(segmentos);
+			}
+		};
+		EmbeddingPipeline pipeline = new EmbeddingPipeline(falla, new InMemoryEmbeddingStore<>(), CONFIG);
+
+		// Quedan muchos documentos por cargar: carga y split estan bloqueados en colas llenas
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+				assertThatThrownBy(() -> pipeline.run(fuentes(200), porLinea()))
+						.isInstanceOf(IllegalStateException.class)
+						.hasRootCauseMessage("modelo caido"));
+	}
+
+	/** Documentos "doc-N" con 5 lineas "doc-N#i". */
+	private static List<EmbeddingPipeline.Source> fuentes(int documentos) {
+		List<EmbeddingPipeline.Source> fuentes = new ArrayList<>();
+		for (int d = 0; d < documentos; d++) {
+			String nombre = "doc-" + d;
+			StringBuilder texto = new StringBuilder();
+			for (int i = 0; i < 5; i++) {
+				texto.append(nombre).append('#').append(i).append('\n');
+			}
+			fuentes.add(new EmbeddingPipeline.Source(nombre, () -> Document.from(texto.toString())));
+		}
+		return fuentes;
+	}
+
+	/** Un segmento por linea, con el propio texto como id. */
+	private static BiFunction<String, Document, List<EmbeddingPipeline.Item>> porLinea() {
+		return (nombre, documento) -> documento.text().lines()
+				.map(linea -> new EmbeddingPipeline.Item(linea, TextSegment.from(linea)))
+				.toList();
+	}
+}
@@ -0,0 +1,118 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Reporte recall vs latencia de HNSW contra el escaneo exacto.
+ *
+ * No corre en el build normal. Para ejecutarlo:
+ * mvn test -Dtest=HnswRecallReport -Drag.report=true [-Drag.report.vectors=20000]
+ *
+ * Usa vectores sinteticos agrupados en clusters (384 dims, como MiniLM) para
+ * que la distribucion se parezca a embeddings reales y no a ruido uniforme.
+ */
+@EnabledIfSystemProperty(named = "rag.report", matches = "true")
+class HnswRecallReport {
+
+	private static final int DIMENSIONES = 384;
+	private static final int CONSULTAS = 200;
+	private static final int K = 10;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void recallVsLatencia() {
+		int n = Integer.getInteger("rag.report.vectors", 10_000);
+		Random random = new Random(7);
+		List<float[]> centros = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			centros.add(ruido(random, 1f));
+		}
+		List<Embedding> vectores = new ArrayList<>(n);
+		List<TextSegment> segmentos = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			vectores.add(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)));
+			segmentos.add(TextSegment.from("segmento " + i));
+		}
+		List<Embedding> consultas = new ArrayList<>(CONSULTAS);
+		for (int i = 0; i < CONSULTAS; i++) {
+			consultas.add(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)));
+		}
+
+		System.out.printf("%nHNSW vs escaneo exacto: %d vectores, %d consultas, top-%d%n", n, CONSULTAS, K);
+		System.out.printf("%-4s %-6s %-6s %-10s %-12s %-12s %-10s%n",
+				"M", "efC", "efS", "recall@" + K, "exacto(us)", "hnsw(us)", "build(s)");
+
+		for (int m : new int[]{8, 16, 32}) {
+			for (int efConstruction : new int[]{100, 200}) {
+				Path directorio = dir.resolve("m" + m + "-ef" + efConstruction);
+				try (MappedEmbeddingStore store = new MappedEmbeddingStore(directorio,
+						new HnswIndex.Config(m, efConstruction, 16))) {
+					long inicio = System.nanoTime();
+					store.addAll(vectores, segmentos);
+					double build = (System.nanoTime() - inicio) / 1e9;
+
+					for (int efSearch : new int[]{16, 32, 64, 128, 256}) {
+						store.setEfSearch(efSearch);
+						long exacto = 0;
+						long aproximado = 0;
+						double recall = 0;
+						for (Embedding consulta : consultas) {
+							EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+									.queryEmbedding(consulta)
+									.maxResults(K)
+									.build();
+							long t0 = System.nanoTime();
+							Set<String> verdad = ids(store.searchExact(request).matches());
+							long t1 = System.nanoTime();
+							Set<String> hnsw = ids(store.search(request).matches());
+							long t2 = System.nanoTime();
+							exacto += t1 - t0;
+							aproximado += t2 - t1;
+							hnsw.retainAll(verdad);
+							recall += (double) hnsw.size() / verdad.size();
+						}
+						System.out.printf("%-4d %-6d %-6d %-10.3f %-12d %-12d %-10.1f%n", m, efConstruction, efSearch,
+								recall / CONSULTAS, exacto / CONSULTAS / 1000, aproximado / CONSULTAS / 1000, build);
+					}
+				}
+			}
+		}
+	}
+
+	private static Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+		Set<String> ids = new HashSet<>();
+		matches.forEach(m -> ids.add(m.embeddingId()));
+		return ids;
+	}
+
+	private static float[] ruido(Random random, float escala) {
+		float[] v = new float[DIMENSIONES];
+		for (int i = 0; i < DIMENSIONES; i++) {
+			v[i] = (float) random.nextGaussian() * escala;
+		}
+		return v;
+	}
+
+	private static float[] cerca(float[] centro, Random random) {
+		float[] v = ruido(random, 0.6f);
+		for (int i = 0; i < DIMENSIONES; i++) {
+			v[i] += centro[i];
+		}
+		return v;
+	}
+}
@@ -0,0 +1,117 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalIngestorTest {
+
+	@TempDir
+	Path dir;
+
+	// Un parrafo por segmento: recursive(60, 0) no junta dos parrafos de ~40 caracteres
+	private static final String A = "El CEO de la empresa es Pandebono.";
+	private static final String B = "La oficina central queda en Bogota.";
+	private static final String C = "Hay vacaciones ilimitadas para todos.";
+	private static final String D = "El almuerzo de los viernes es gratis.";
+
+	@Test
+	void soloEmbeddeaLoNuevoYBorraLoQueDesaparece() throws Exception {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("store"));
+			 IncrementalIngestor ingestor = ingestor(modelo, store)) {
+			assertThat(ingestor.ingest("doc", documento(A, B, C))).isEqualTo(new IncrementalIngestor.Resultado(3, 0, 0));
+			long version = ingestor.corpusVersion();
+
+			// Sin cambios: nada se embeddea y el corpus no cambia de version
+			assertThat(ingestor.ingest("doc", documento(A, B, C))).isEqualTo(new IncrementalIngestor.Resultado(0, 0, 3));
+			assertThat(modelo.textos.get()).isEqualTo(3);
+			assertThat(ingestor.corpusVersion()).isEqualTo(version);
+
+			// B cambia por D: se embeddea D y se borra B
+			assertThat(ingestor.ingest("doc", documento(A, D, C))).isEqualTo(new IncrementalIngestor.Resultado(1, 1, 2));
+			assertThat(modelo.textos.get()).isEqualTo(4);
+			assertThat(ingestor.corpusVersion()).isGreaterThan(version);
+			assertThat(textos(store)).containsExactly(A, D, C);
+
+			ingestor.remove("doc");
+			assertThat(store.size()).isZero();
+		}
+	}
+
+	@Test
+	void reestampaLaPosicionDeLosSegmentosQueNoCambiaron() throws Exception {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("store"));
+			 IncrementalIngestor ingestor = ingestor(modelo, store)) {
+			ingestor.ingest("doc", documento(A, B, C));
+			// D entra en el medio: B y C se corren una posicion sin volver a embeddearse
+			ingestor.ingest("doc", documento(A, D, B, C));
+			assertThat(modelo.textos.get()).isEqualTo(4);
+			assertThat(textos(store)).containsExactly(A, D, B, C);
+			// A sale del principio: todos los demas se corren
+			ingestor.ingest("doc", documento(D, B, C));
+			assertThat(textos(store)).containsExactly(D, B, C);
+		}
+		// La metadata re-estampada sobrevive al reinicio del store
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("store"))) {
+			assertThat(textos(store)).containsExactly(D, B, C);
+		}
+	}
+
+	@Test
+	void noAbreElStoreHastaReconciliarYDescartaUnManifiestoSinVectores() throws Exception {
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("store"));
+			 IncrementalIngestor ingestor = ingestor(modelo, store)) {
+			ingestor.ingest("doc", documento(A, B, C));
+		}
+
+		// Otro store (vacio) con el mismo manifiesto: como al pasar a rag.store.shards=N
+		try (LazyEmbeddingStore store = new LazyEmbeddingStore(() -> new MappedEmbeddingStore(dir.resolve("vacio")), false);
+			 IncrementalIngestor ingestor = ingestor(modelo, store)) {
+			assertThat(store.isOpen()).isFalse();
+
+			ingestor.reconciliar();
+			assertThat(store.isOpen()).isTrue();
+			assertThat(dir.resolve("manifest.json")).doesNotExist();
+			// Sin el manifiesto viejo, todo se vuelve a embeddear
+			assertThat(ingestor.ingest("doc", documento(A, B, C))).isEqualTo(new IncrementalIngestor.Resultado(3, 0, 0));
+		}
+	}
+
+	private IncrementalIngestor ingestor(ContadorEmbeddingModel modelo, LexicalEmbeddingStore store) {
+		EmbeddingPipeline pipeline = new EmbeddingPipeline(modelo, store, new EmbeddingPipeline.Config(2, 2, 4));
+		return new IncrementalIngestor(pipeline, store, DocumentSplitters.recursive(60, 0), dir.resolve("manifest.json"));
+	}
+
+	private static Document documento(String... parrafos) {
+		return Document.from(String.join("\n\n", parrafos));
+	}
+
+	// Textos del store ordenados por la metadata 'index', que debe ser 0, 1, 2... sin huecos
+	private static List<String> textos(MappedEmbeddingStore store) {
+		List<TextSegment> segmentos = store.searchExact(EmbeddingSearchRequest.builder()
+						.queryEmbedding(ContadorEmbeddingModel.vector("consulta"))
+						.maxResults(100)
+						.minScore(0.0)
+						.build()).matches().stream()
+				.map(EmbeddingMatch::embedded)
+				.sorted(Comparator.comparingInt((TextSegment s) -> Integer.parseInt(s.metadata().getString(IncrementalIngestor.POSICION))))
+				.toList();
+		for (int i = 0; i < segmentos.size(); i++) {
+			assertThat(segmentos.get(i).metadata().getString(IncrementalIngestor.POSICION)).isEqualTo(String.valueOf(i));
+		}
+		return segmentos.stream().map(TextSegment::text).toList();
+	}
+}
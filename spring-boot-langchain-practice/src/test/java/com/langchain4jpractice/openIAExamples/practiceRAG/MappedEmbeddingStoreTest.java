@@ -0,0 +1,265 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedEmbeddingStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void sobreviveReinicioYDescartaLineaIncompleta() throws Exception {
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			store.add(Embedding.from(new float[]{1, 0, 0}), TextSegment.from("CEO Pandebono"));
+			store.add(Embedding.from(new float[]{0, 1, 0}), TextSegment.from("Vacaciones ilimitadas"));
+		}
+		// Simulamos un crash a mitad de un append
+		Files.write(dir.resolve("segments.log"), "{\"op\":\"add\",\"id\":\"x\"".getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			assertThat(store.size()).isEqualTo(2);
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{0.9f, 0.1f, 0}))
+					.maxResults(1)
+					.build()).matches();
+			assertThat(matches).hasSize(1);
+			assertThat(matches.get(0).embedded().text()).isEqualTo("CEO Pandebono");
+		}
+	}
+
+	@Test
+	void compactarConservaSoloLosVivos() {
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			String borrado = store.add(Embedding.from(new float[]{1, 0}), TextSegment.from("viejo"));
+			store.add(Embedding.from(new float[]{0, 1}), TextSegment.from("nuevo"));
+			store.remove(borrado);
+			store.compact();
+
+			assertThat(store.deletedCount()).isZero();
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{0, 1}))
+					.maxResults(5)
+					.build()).matches();
+			assertThat(matches).extracting(m -> m.embedded().text()).containsExactly("nuevo");
+		}
+	}
+
+	@Test
+	void alAbrirRecuperaUnaCompactacionInterrumpida() throws Exception {
+		Path log = dir.resolve("segments.log");
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			store.remove(store.add(Embedding.from(new float[]{1, 0}), TextSegment.from("viejo")));
+			store.add(Embedding.from(new float[]{0, 1}), TextSegment.from("nuevo"));
+		}
+		byte[] logSinCompactar = Files.readAllBytes(log);
+
+		// Crash antes del swap: los .compact a medio escribir se descartan
+		Files.write(dir.resolve("vectors.f32.compact"), new byte[]{1, 2, 3});
+		Files.write(dir.resolve("segments.log.compact"), "{\"op\":".getBytes(StandardCharsets.UTF_8));
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			assertThat(store.size()).isEqualTo(1);
+			assertThat(store.deletedCount()).isEqualTo(1);
+			store.compact();
+		}
+		assertThat(dir.resolve("vectors.f32.compact")).doesNotExist();
+		assertThat(dir.resolve("segments.log.compact")).doesNotExist();
+
+		// Crash entre los dos moves: vectores ya compactados, log viejo + segments.log.compact
+		Files.move(log, dir.resolve("segments.log.compact"));
+		Files.write(log, logSinCompactar);
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			assertThat(store.size()).isEqualTo(1);
+			assertThat(store.deletedCount()).isZero();
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{0, 1}))
+					.maxResults(5)
+					.build()).matches();
+			assertThat(matches).extracting(m -> m.embedded().text()).containsExactly("nuevo");
+		}
+		assertThat(dir.resolve("segments.log.compact")).doesNotExist();
+	}
+
+	@Test
+	void unVectorConOtraDimensionNoBorraLosIdsQueIbaAReemplazar() {
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			store.addAll(List.of("a"), List.of(Embedding.from(new float[]{1, 0, 0})), List.of(TextSegment.from("original")));
+
+			assertThatThrownBy(() -> store.addAll(List.of("a", "b"),
+					List.of(Embedding.from(new float[]{0, 1, 0}), Embedding.from(new float[]{0, 1})),
+					List.of(TextSegment.from("reemplazo"), TextSegment.from("invalido"))))
+					.isInstanceOf(IllegalArgumentException.class);
+			assertThat(store.size()).isEqualTo(1);
+		}
+
+		// Nada del lote rechazado llego al log
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir)) {
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{1, 0, 0}))
+					.maxResults(5)
+					.build()).matches();
+			assertThat(matches).extracting(m -> m.embedded().text()).containsExactly("original");
+			assertThat(store.deletedCount()).isZero();
+		}
+	}
+
+	@Test
+	void indiceLexicoSigueAlStoreYAcotaElPrefiltro() {
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, null, Bm25Index.Config.defaults())) {
+			store.add(Embedding.from(new float[]{1, 0}), TextSegment.from("El CEO es Pandebono"));
+			String borrado = store.add(Embedding.from(new float[]{0, 1}), TextSegment.from("Poliza PX-4471 de salud"));
+			store.add(Embedding.from(new float[]{0.7f, 0.7f}), TextSegment.from("Las vacaciones son ilimitadas"));
+			store.remove(borrado);
+		}
+
+		// Al reabrir, el indice BM25 se reconstruye desde el log (sin el segmento borrado)
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, null, Bm25Index.Config.defaults())) {
+			assertThat(store.searchLexical("¿Quién es pandebono?", 5))
+					.extracting(m -> m.embedded().text()).containsExactly("El CEO es Pandebono");
+			assertThat(store.searchLexical("PX-4471", 5)).isEmpty();
+
+			// El vector de la consulta se parece mas a "vacaciones", pero solo se puntua el candidato lexico
+			List<EmbeddingMatch<TextSegment>> prefiltrados = store.searchPrefiltered(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{0.6f, 0.8f}))
+					.maxResults(5)
+					.build(), "pandebono", 10).matches();
+			assertThat(prefiltrados).extracting(m -> m.embedded().text()).containsExactly("El CEO es Pandebono");
+		}
+	}
+
+	@Test
+	void busquedaCuantizadaRepuntuaConLosFloatTrasReiniciar() {
+		QuantizedIndex.Config binario = new QuantizedIndex.Config(QuantizedIndex.Tipo.BINARY, 2);
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, null, null, binario)) {
+			store.add(Embedding.from(new float[]{1, 0.2f, 0.1f}), TextSegment.from("cerca"));
+			store.add(Embedding.from(new float[]{1, 0.9f, 0.1f}), TextSegment.from("medio"));
+			store.add(Embedding.from(new float[]{-1, -1, -1}), TextSegment.from("lejos"));
+		}
+
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, null, null, binario)) {
+			assertThat(store.quantizedBytesPerVector()).isEqualTo(8);
+			// "cerca" y "medio" tienen los mismos signos: el orden lo decide el coseno exacto
+			List<EmbeddingMatch<TextSegment>> matches = store.search(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(new float[]{1, 0.1f, 0.1f}))
+					.maxResults(2)
+					.build()).matches();
+			assertThat(matches).extracting(m -> m.embedded().text()).containsExactly("cerca", "medio");
+		}
+	}
+
+	@Test
+	void hnswRecuperaCasiLoMismoQueElEscaneoExacto() {
+		Random random = new Random(11);
+		List<float[]> centros = centros(random, 20);
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, HnswIndex.Config.defaults())) {
+			List<Embedding> vectores = new ArrayList<>();
+			for (int i = 0; i < 2_000; i++) {
+				vectores.add(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)));
+			}
+			store.addAll(vectores);
+
+			int aciertos = 0;
+			int consultas = 50;
+			for (int q = 0; q < consultas; q++) {
+				EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+						.queryEmbedding(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)))
+						.maxResults(10)
+						.build();
+				Set<String> exactos = ids(store.searchExact(request).matches());
+				List<EmbeddingMatch<TextSegment>> aproximados = store.search(request).matches();
+				assertThat(aproximados).hasSize(10);
+				aciertos += (int) aproximados.stream().filter(m -> exactos.contains(m.embeddingId())).count();
+			}
+			assertThat(aciertos / (double) (consultas * 10)).isGreaterThanOrEqualTo(0.9);
+		}
+	}
+
+	@Test
+	void losNodosBorradosDelGrafoNoRecortanLosResultados() {
+		Random random = new Random(13);
+		float[] centro = centros(random, 1).get(0);
+		// efSearch chico: sin pedir candidatos extra, los muertos se comerian la lista entera
+		HnswIndex.Config hnsw = new HnswIndex.Config(8, 64, 10);
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir, hnsw)) {
+			List<String> ids = new ArrayList<>();
+			List<Embedding> vectores = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				ids.add("id-" + i);
+				vectores.add(Embedding.from(cerca(centro, random)));
+			}
+			store.addAll(ids, vectores, null);
+			EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(centro))
+					.maxResults(10)
+					.build();
+
+			// Se borran los 60 mas cercanos a la consulta: quedan en el grafo por debajo del umbral de rebuild
+			List<String> cercanos = store.searchExact(EmbeddingSearchRequest.builder()
+					.queryEmbedding(Embedding.from(centro))
+					.maxResults(60)
+					.build()).matches().stream().map(EmbeddingMatch::embeddingId).toList();
+			store.removeAll(cercanos);
+			assertThat(store.search(request).matches()).hasSize(10)
+					.extracting(EmbeddingMatch::embeddingId).doesNotContainAnyElementsOf(cercanos);
+
+			// Re-agregar casi todos los ids con otro vector deja la mayoria del grafo muerto
+			List<Embedding> nuevos = new ArrayList<>();
+			for (int i = 0; i < 300; i++) {
+				nuevos.add(Embedding.from(cerca(centro, random)));
+			}
+			store.addAll(ids.subList(100, 400), nuevos, null);
+			List<EmbeddingMatch<TextSegment>> matches = store.search(request).matches();
+			assertThat(matches).hasSize(10);
+			Set<String> exactos = ids(store.searchExact(request).matches());
+			assertThat(matches).filteredOn(m -> exactos.contains(m.embeddingId())).hasSizeGreaterThanOrEqualTo(8);
+		}
+	}
+
+	private static Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+		Set<String> ids = new HashSet<>();
+		matches.forEach(m -> ids.add(m.embeddingId()));
+		return ids;
+	}
+
+	private static List<float[]> centros(Random random, int cantidad) {
+		List<float[]> centros = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			centros.add(ruido(random, 1f));
+		}
+		return centros;
+	}
+
+	private static float[] ruido(Random random, float escala) {
+		float[] v = new float[32];
+		for (int i = 0; i < v.length; i++) {
+			v[i] = (float) random.nextGaussian() * escala;
+		}
+		return v;
+	}
+
+	private static float[] cerca(float[] centro, Random random) {
+		float[] v = ruido(random, 0.6f);
+		for (int i = 0; i < v.length; i++) {
+			v[i] += centro[i];
+		}
+		return v;
+	}
+}
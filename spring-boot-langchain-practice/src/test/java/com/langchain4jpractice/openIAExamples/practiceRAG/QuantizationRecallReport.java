@@ -0,0 +1,149 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.loader.FileSystemDocumentLoader;
+import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.allminilml6v2.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Reporte recall vs memoria de la cuantizacion (int8 / binary) contra el escaneo exacto float32.
+ *
+ * No corre en el build normal. Para ejecutarlo:
+ * mvn test -Dtest=QuantizationRecallReport -Drag.report=true [-Drag.report.vectors=20000]
+ *
+ * Con -Drag.report.corpus=/ruta/docs usa NUESTRO corpus: cada archivo se corta como en la ingesta
+ * (300 caracteres), se embeddea con MiniLM y las consultas son la primera mitad de segmentos al azar.
+ * Sin esa propiedad usa vectores sinteticos agrupados en clusters (384 dims, como HnswRecallReport).
+ */
+@EnabledIfSystemProperty(named = "rag.report", matches = "true")
+class QuantizationRecallReport {
+
+	private static final int DIMENSIONES = 384;
+	private static final int CONSULTAS = 200;
+	private static final int K = 10;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void recallVsMemoria() {
+		List<Embedding> vectores = new ArrayList<>();
+		List<TextSegment> segmentos = new ArrayList<>();
+		List<Embedding> consultas = new ArrayList<>();
+		String corpus = System.getProperty("rag.report.corpus");
+		if (corpus != null) {
+			corpusReal(Paths.get(corpus), vectores, segmentos, consultas);
+		} else {
+			corpusSintetico(Integer.getInteger("rag.report.vectors", 10_000), vectores, segmentos, consultas);
+		}
+
+		System.out.printf("%nCuantizacion vs escaneo exacto: %d vectores (%s), %d consultas, top-%d%n",
+				vectores.size(), corpus != null ? corpus : "sinteticos", consultas.size(), K);
+		System.out.printf("%-7s %-11s %-10s %-10s %-10s %-12s %-12s%n",
+				"tipo", "oversample", "bytes/vec", "heap(MB)", "recall@" + K, "exacto(us)", "cuant.(us)");
+
+		for (QuantizedIndex.Tipo tipo : QuantizedIndex.Tipo.values()) {
+			try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve(tipo.name()), null, null,
+					new QuantizedIndex.Config(tipo, 1))) {
+				store.addAll(vectores, segmentos);
+				int bytes = store.quantizedBytesPerVector();
+
+				for (int oversample : new int[]{1, 2, 4, 8, 16, 32}) {
+					store.setOversample(oversample);
+					long exacto = 0;
+					long cuantizado = 0;
+					double recall = 0;
+					for (Embedding consulta : consultas) {
+						EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+								.queryEmbedding(consulta)
+								.maxResults(K)
+								.build();
+						long t0 = System.nanoTime();
+						Set<String> verdad = ids(store.searchExact(request).matches());
+						long t1 = System.nanoTime();
+						Set<String> aproximado = ids(store.search(request).matches());
+						long t2 = System.nanoTime();
+						exacto += t1 - t0;
+						cuantizado += t2 - t1;
+						aproximado.retainAll(verdad);
+						recall += verdad.isEmpty() ? 1 : (double) aproximado.size() / verdad.size();
+					}
+					System.out.printf("%-7s %-11d %-10s %-10.1f %-10.3f %-12d %-12d%n", tipo, oversample,
+							bytes + " (" + DIMENSIONES * Float.BYTES + ")", (double) bytes * vectores.size() / (1 << 20),
+							recall / consultas.size(), exacto / consultas.size() / 1000, cuantizado / consultas.size() / 1000);
+				}
+			}
+		}
+	}
+
+	private static void corpusReal(Path directorio, List<Embedding> vectores, List<TextSegment> segmentos,
+								   List<Embedding> consultas) {
+		EmbeddingModel modelo = new AllMiniLmL6V2EmbeddingModel();
+		for (Document documento : FileSystemDocumentLoader.loadDocumentsRecursively(directorio, new TextDocumentParser())) {
+			segmentos.addAll(DocumentSplitters.recursive(300, 0).split(documento));
+		}
+		for (int i = 0; i < segmentos.size(); i += 256) {
+			vectores.addAll(modelo.embedAll(segmentos.subList(i, Math.min(segmentos.size(), i + 256))).content());
+		}
+		Random random = new Random(7);
+		for (int i = 0; i < Math.min(CONSULTAS, segmentos.size()); i++) {
+			String texto = segmentos.get(random.nextInt(segmentos.size())).text();
+			consultas.add(modelo.embed(texto.substring(0, Math.max(1, texto.length() / 2))).content());
+		}
+	}
+
+	private static void corpusSintetico(int n, List<Embedding> vectores, List<TextSegment> segmentos,
+										List<Embedding> consultas) {
+		Random random = new Random(7);
+		List<float[]> centros = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			centros.add(ruido(random, 1f));
+		}
+		for (int i = 0; i < n; i++) {
+			vectores.add(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)));
+			segmentos.add(TextSegment.from("segmento " + i));
+		}
+		for (int i = 0; i < CONSULTAS; i++) {
+			consultas.add(Embedding.from(cerca(centros.get(random.nextInt(centros.size())), random)));
+		}
+	}
+
+	private static Set<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+		Set<String> ids = new HashSet<>();
+		matches.forEach(m -> ids.add(m.embeddingId()));
+		return ids;
+	}
+
+	private static float[] ruido(Random random, float escala) {
+		float[] v = new float[DIMENSIONES];
+		for (int i = 0; i < DIMENSIONES; i++) {
+			v[i] = (float) random.nextGaussian() * escala;
+		}
+		return v;
+	}
+
+	private static float[] cerca(float[] centro, Random random) {
+		float[] v = ruido(random, 0.6f);
+		for (int i = 0; i < DIMENSIONES; i++) {
+			v[i] += centro[i];
+		}
+		return v;
+	}
+}
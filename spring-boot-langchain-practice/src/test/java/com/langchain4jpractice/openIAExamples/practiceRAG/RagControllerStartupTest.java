@@ -0,0 +1,79 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.service.TokenStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RagControllerStartupTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void respondeServiceUnavailableHastaQueElIndiceEstaListo() throws Exception {
+		RagAssistantService assistant = new RagAssistantService() {
+			@Override
+			public String chatear(String sessionId, String userMessage) {
+				return "respuesta";
+			}
+
+			@Override
+			public TokenStream chatearStream(String sessionId, String userMessage) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public ChatMemory getChatMemory(Object memoryId) {
+				return null;
+			}
+
+			@Override
+			public boolean evictChatMemory(Object memoryId) {
+				return false;
+			}
+		};
+		CountDownLatch ingesta = new CountDownLatch(1);
+		try (RagStartup startup = new RagStartup(Duration.ofSeconds(7));
+			 SessionChatMemoryStore sesiones = new SessionChatMemoryStore(
+					 new SessionChatMemoryStore.Config(1, Duration.ofMinutes(1), 100, null))) {
+			LazyEmbeddingModel modelo = new LazyEmbeddingModel(() -> {
+				throw new AssertionError("El modelo no se usa mientras no haya preguntas");
+			}, carga -> { });
+			MockMvc mvc = MockMvcBuilders.standaloneSetup(new RagController(assistant,
+					new CachingEmbeddingModel(modelo, 10), sesiones, startup,
+					new TokenBudgetContentAggregator(new OpenAiTokenCountEstimator("gpt-4o-mini"),
+							new TokenBudgetContentAggregator.Config(150, 0.8)))).build();
+
+			startup.iniciar(() -> startup.fase("classpath", ingesta::await));
+
+			mvc.perform(get("/api/rag/ask").param("query", "hola"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string("Retry-After", "7"))
+					.andExpect(content().string(containsString("CALENTANDO")));
+
+			ingesta.countDown();
+			for (int i = 0; i < 100 && !startup.isReady(); i++) {
+				TimeUnit.MILLISECONDS.sleep(20);
+			}
+			mvc.perform(get("/api/rag/ask").param("query", "hola"))
+					.andExpect(status().isOk())
+					.andExpect(content().string("respuesta"));
+			assertThat(modelo.isLoaded()).isFalse();
+			assertThat(startup.reporte()).containsEntry("estado", RagStartup.Estado.LISTO);
+			assertThat((Map<String, Long>) startup.reporte().get("fasesMs")).containsKeys("spring", "classpath", "calentamiento");
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.service.TokenStream;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SemanticAnswerCacheTest {
+
+	private final InMemoryChatMemoryStore historial = new InMemoryChatMemoryStore();
+	private final AtomicInteger llamadas = new AtomicInteger();
+
+	// Responde con la sesion y el numero de llamada: se ve de donde salio cada respuesta
+	private final RagAssistantService asistente = new RagAssistantService() {
+		@Override
+		public String chatear(String sessionId, String userMessage) {
+			return sessionId + "#" + llamadas.incrementAndGet();
+		}
+
+		@Override
+		public TokenStream chatearStream(String sessionId, String userMessage) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public ChatMemory getChatMemory(Object memoryId) {
+			return null;
+		}
+
+		@Override
+		public boolean evictChatMemory(Object memoryId) {
+			return false;
+		}
+	};
+
+	// Vectores a mano: el coseno entre preguntas queda fijado por el test
+	private final EmbeddingModel modelo = new EmbeddingModel() {
+		private final Map<String, float[]> vectores = Map.of(
+				"¿Quién es el CEO?", new float[]{1, 0, 0},
+				"quien es el jefe", new float[]{0.95f, 0.31f, 0},        // coseno ~0.95
+				"¿Cuántas vacaciones hay?", new float[]{0.8f, 0.6f, 0}); // coseno 0.8
+
+		@Override
+		public Response<List<Embedding>> embedAll(List<TextSegment> segmentos) {
+			return Response.from(segmentos.stream().map(s -> Embedding.from(vectores.get(s.text()))).toList());
+		}
+	};
+
+	@Test
+	void unaPreguntaParecidaPorEncimaDelUmbralReusaLaRespuesta() {
+		SemanticAnswerCache cache = new SemanticAnswerCache(asistente, historial, modelo,
+				() -> 0, 0.92, Duration.ofHours(1), 100);
+
+		assertThat(cache.chatear("s1", "¿Quién es el CEO?")).isEqualTo("s1#1");
+		assertThat(cache.chatear("s2", "quien es el jefe")).isEqualTo("s1#1");
+		// Por debajo del umbral: va al modelo aunque se parezca algo
+		assertThat(cache.chatear("s3", "¿Cuántas vacaciones hay?")).isEqualTo("s3#2");
+
+		SemanticAnswerCache.Stats stats = cache.stats();
+		assertThat(stats.hits()).isEqualTo(1);
+		assertThat(stats.misses()).isEqualTo(2);
+		assertThat(stats.size()).isEqualTo(2);
+	}
+
+	@Test
+	void unaRespuestaVencidaNoSeSirve() throws InterruptedException {
+		SemanticAnswerCache cache = new SemanticAnswerCache(asistente, historial, modelo,
+				() -> 0, 0.92, Duration.ofMillis(200), 100);
+
+		assertThat(cache.chatear("s1", "¿Quién es el CEO?")).isEqualTo("s1#1");
+		assertThat(cache.chatear("s2", "¿Quién es el CEO?")).isEqualTo("s1#1");
+		Thread.sleep(300);
+		assertThat(cache.chatear("s3", "¿Quién es el CEO?")).isEqualTo("s3#2");
+		assertThat(cache.stats().invalidations()).isEqualTo(1);
+	}
+
+	@Test
+	void cambiarElCorpusInvalidaLasRespuestas() {
+		AtomicLong version = new AtomicLong();
+		SemanticAnswerCache cache = new SemanticAnswerCache(asistente, historial, modelo,
+				version::get, 0.92, Duration.ofHours(1), 100);
+
+		assertThat(cache.chatear("s1", "¿Quién es el CEO?")).isEqualTo("s1#1");
+		assertThat(cache.chatear("s2", "quien es el jefe")).isEqualTo("s1#1");
+
+		// Re-ingesta con cambios: la respuesta vieja pudo quedar desactualizada
+		version.incrementAndGet();
+		assertThat(cache.chatear("s3", "quien es el jefe")).isEqualTo("s3#2");
+		assertThat(cache.chatear("s4", "¿Quién es el CEO?")).isEqualTo("s3#2");
+
+		SemanticAnswerCache.Stats stats = cache.stats();
+		assertThat(stats.invalidations()).isEqualTo(1);
+		assertThat(stats.size()).isEqualTo(1);
+	}
+
+	@Test
+	void unaSesionConHistoriaNoUsaNiAlimentaLaCache() {
+		SemanticAnswerCache cache = new SemanticAnswerCache(asistente, historial, new ContadorEmbeddingModel(),
+				() -> 0, 0.92, Duration.ofHours(1), 100);
+		historial.updateMessages("ana", List.of(UserMessage.from("Me llamo Ana"), AiMessage.from("Hola Ana")));
+
+		// "ana" tiene historia: su respuesta no se guarda
+		assertThat(cache.chatear("ana", "¿Cómo me llamo?")).isEqualTo("ana#1");
+		// "luis" es nuevo: no recibe la respuesta de "ana"
+		assertThat(cache.chatear("luis", "¿Cómo me llamo?")).isEqualTo("luis#2");
+		// Y "ana" tampoco recibe la de "luis", que si quedo en la cache
+		assertThat(cache.chatear("ana", "¿Cómo me llamo?")).isEqualTo("ana#3");
+
+		SemanticAnswerCache.Stats stats = cache.stats();
+		assertThat(stats.bypassed()).isEqualTo(2);
+		assertThat(stats.misses()).isEqualTo(1);
+		assertThat(stats.hits()).isZero();
+	}
+}
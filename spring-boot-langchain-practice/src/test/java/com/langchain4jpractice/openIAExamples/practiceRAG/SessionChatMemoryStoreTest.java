@@ -0,0 +1,114 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionChatMemoryStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void elTopeDesalojaLaSesionMenosUsadaYSeRecargaDelDisco() throws Exception {
+		List<Object> desalojadas = new CopyOnWriteArrayList<>();
+		try (SessionChatMemoryStore store = new SessionChatMemoryStore(
+				new SessionChatMemoryStore.Config(4, Duration.ofHours(1), 4, dir))) {
+			store.setEvictionListener(desalojadas::add);
+			store.updateMessages("ana", mensajes(3));
+			Thread.sleep(5);
+			store.updateMessages("luis", mensajes(3));
+
+			// 6 > 4: se desaloja "ana" (la menos usada); "luis" es la que escribe y se queda
+			assertThat(desalojadas).containsExactly("ana");
+			assertThat(store.sessionCount()).isEqualTo(1);
+			assertThat(store.totalMessages()).isEqualTo(3);
+
+			// Su siguiente pregunta la recarga del disco, con la cuenta al dia
+			assertThat(store.getMessages("ana")).hasSize(3);
+			assertThat(store.totalMessages()).isEqualTo(6);
+		}
+	}
+
+	@Test
+	void laInactividadExpiraLaSesionYSoloPurgaSusArchivos() throws Exception {
+		List<Object> desalojadas = new CopyOnWriteArrayList<>();
+		Path ajeno = Files.writeString(dir.resolve("notas.txt"), "no es una sesion");
+		Path temporal = Files.writeString(dir.resolve("luis.json.tmp"), "[]");
+		Path huerfana = Files.writeString(dir.resolve("vieja.json"), "[]");
+		FileTime antiguo = FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(1).toMillis());
+		for (Path archivo : List.of(ajeno, temporal, huerfana)) {
+			Files.setLastModifiedTime(archivo, antiguo);
+		}
+
+		try (SessionChatMemoryStore store = new SessionChatMemoryStore(
+				new SessionChatMemoryStore.Config(4, Duration.ofMillis(20), 100, dir))) {
+			store.setEvictionListener(desalojadas::add);
+			store.updateMessages("ana", mensajes(2));
+			Thread.sleep(50);
+			store.evictIdle();
+
+			assertThat(desalojadas).containsExactly("ana");
+			assertThat(store.totalMessages()).isZero();
+			assertThat(store.getMessages("ana")).isEmpty();
+		}
+		assertThat(dir.resolve("ana.json")).doesNotExist();
+		assertThat(huerfana).doesNotExist();
+		assertThat(ajeno).exists();
+		assertThat(temporal).exists();
+	}
+
+	@Test
+	void totalMessagesCuadraConEscriturasConcurrentes() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try (SessionChatMemoryStore store = new SessionChatMemoryStore(
+				new SessionChatMemoryStore.Config(2, Duration.ofHours(1), 1_000_000, null))) {
+			List<Future<?>> tareas = new ArrayList<>();
+			for (int hilo = 0; hilo < 8; hilo++) {
+				int h = hilo;
+				tareas.add(executor.submit(() -> {
+					for (int i = 1; i <= 200; i++) {
+						// Dos hilos por sesion: se pisan, pero el total debe seguir cuadrando
+						store.updateMessages("s" + (h % 4), mensajes(i % 7));
+						if (i % 50 == 0) {
+							store.deleteMessages("s" + (h % 4));
+						}
+					}
+				}));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+
+			int suma = 0;
+			for (int s = 0; s < 4; s++) {
+				suma += store.getMessages("s" + s).size();
+			}
+			assertThat(store.totalMessages()).isEqualTo(suma);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static List<ChatMessage> mensajes(int cantidad) {
+		List<ChatMessage> mensajes = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			mensajes.add(UserMessage.from("mensaje " + i));
+		}
+		return mensajes;
+	}
+}
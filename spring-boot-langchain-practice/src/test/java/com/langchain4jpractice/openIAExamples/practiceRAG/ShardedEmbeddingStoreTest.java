@@ -0,0 +1,77 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static dev.langchain4j.store.embedding.filter.MetadataFilterBuilder.metadataKey;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedEmbeddingStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void scatterGatherDevuelveElMismoTopKQueUnSoloStoreYFiltraPorColeccion() {
+		Random random = new Random(3);
+		List<String> ids = new ArrayList<>();
+		List<Embedding> vectores = new ArrayList<>();
+		List<TextSegment> segmentos = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			float[] v = new float[16];
+			for (int d = 0; d < v.length; d++) {
+				v[d] = (float) random.nextGaussian();
+			}
+			ids.add("id-" + i);
+			vectores.add(Embedding.from(v));
+			segmentos.add(TextSegment.from("segmento " + i, Metadata.from("tenant", "t" + (i % 5))));
+		}
+		Embedding consulta = vectores.get(42);
+
+		ShardedEmbeddingStore.Config config = new ShardedEmbeddingStore.Config(4,
+				ShardedEmbeddingStore.Particion.COLLECTION, "tenant", 2);
+		try (MappedEmbeddingStore unico = new MappedEmbeddingStore(dir.resolve("unico"));
+			 ShardedEmbeddingStore sharded = new ShardedEmbeddingStore(dir.resolve("sharded"), config,
+					 MappedEmbeddingStore::new)) {
+			unico.addAll(ids, vectores, segmentos);
+			sharded.addAll(ids, vectores, segmentos);
+
+			EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
+					.queryEmbedding(consulta).maxResults(10).build();
+			assertThat(ids(sharded.search(request).matches())).containsExactlyElementsOf(ids(unico.search(request).matches()));
+			assertThat(sharded.shardSizes()).hasSize(4).allSatisfy(size -> assertThat(size).isLessThan(300));
+
+			// Un filtro por la coleccion solo toca el shard de esa coleccion
+			Filter filtro = metadataKey("tenant").isEqualTo("t2");
+			assertThat(sharded.shardsFor(filtro).cardinality()).isEqualTo(1);
+			EmbeddingSearchRequest filtrada = EmbeddingSearchRequest.builder()
+					.queryEmbedding(consulta).maxResults(10).filter(filtro).build();
+			assertThat(ids(sharded.search(filtrada).matches())).containsExactlyElementsOf(ids(unico.search(filtrada).matches()));
+
+			sharded.removeAll(List.of("id-42"));
+			assertThat(sharded.size()).isEqualTo(299);
+		}
+
+		// Reabrir con otro numero de shards moveria los ids: se rechaza
+		assertThatThrownBy(() -> new ShardedEmbeddingStore(dir.resolve("sharded"),
+				new ShardedEmbeddingStore.Config(8, ShardedEmbeddingStore.Particion.COLLECTION, "tenant", 2),
+				MappedEmbeddingStore::new))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static List<String> ids(List<EmbeddingMatch<TextSegment>> matches) {
+		return matches.stream().map(EmbeddingMatch::embeddingId).toList();
+	}
+}
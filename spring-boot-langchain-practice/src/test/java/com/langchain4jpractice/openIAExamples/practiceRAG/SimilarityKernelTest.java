@@ -0,0 +1,46 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SimilarityKernelTest {
+
+	@Test
+	void elNucleoSimdCoincideConElEscalar() {
+		SimilarityKernel simd = SimilarityKernels.actual();
+		SimilarityKernel escalar = SimilarityKernels.scalar();
+		// Surefire arranca con --add-modules jdk.incubator.vector
+		assertThat(simd.name()).startsWith("vector-api");
+
+		Random random = new Random(7);
+		int dimension = 384 + 5; // con cola que no llena un registro
+		int vectores = 50;
+		float[] query = new float[dimension];
+		byte[] codes = new byte[dimension];
+		ByteBuffer buffer = ByteBuffer.allocate(8 + vectores * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < dimension; i++) {
+			query[i] = (float) random.nextGaussian();
+			codes[i] = (byte) (random.nextInt(255) - 127);
+		}
+		for (int i = 0; i < vectores * dimension; i++) {
+			buffer.putFloat(8 + i * Float.BYTES, (float) random.nextGaussian());
+		}
+
+		float[] lote = new float[vectores];
+		float[] referencia = new float[vectores];
+		simd.dotBatch(query, buffer, 8, vectores, lote);
+		escalar.dotBatch(query, buffer, 8, vectores, referencia);
+		for (int v = 0; v < vectores; v++) {
+			// El orden de las sumas cambia: iguales salvo redondeo
+			assertThat(lote[v]).isCloseTo(referencia[v], within(1e-3f));
+		}
+		assertThat(simd.dot(query, query)).isCloseTo(escalar.dot(query, query), within(1e-2f));
+		assertThat(simd.dotInt8(query, codes, 0)).isCloseTo(escalar.dotInt8(query, codes, 0), within(1e-2f));
+	}
+}
@@ -0,0 +1,115 @@
+package com.langchain4jpractice.openIAExamples.practiceRAG;
+
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.openai.OpenAiTokenCountEstimator;
+import dev.langchain4j.rag.content.Content;
+import dev.langchain4j.rag.content.ContentMetadata;
+import dev.langchain4j.rag.query.Query;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBudgetContentAggregatorTest {
+
+	@Test
+	void quitaCasiRepetidosUneConsecutivosYRespetaElPresupuesto() {
+		OpenAiTokenCountEstimator tokenizer = new OpenAiTokenCountEstimator("gpt-4o-mini");
+		String ceo = "El CEO de la empresa es Pandebono y fundo la compania en 2020 junto a dos socios.";
+		String largo = "Politica de viajes: ".repeat(60);
+		List<Content> candidatos = List.of(
+				contenido("a", ceo, 0, 0.95),
+				// Mismo texto con otra puntuacion y mayusculas: casi identico
+				contenido("b", "el ceo de la empresa es Pandebono, y fundo la compania en 2020 junto a dos socios", 5, 0.90),
+				contenido("c", "La oficina central esta en Bogota.", 1, 0.80),
+				contenido("d", largo, 7, 0.70),
+				contenido("e", "Hay vacaciones ilimitadas.", 3, 0.60));
+
+		TokenBudgetContentAggregator aggregator = new TokenBudgetContentAggregator(tokenizer,
+				new TokenBudgetContentAggregator.Config(60, 0.8));
+		List<Content> contexto = aggregator.aggregate(Map.of(Query.from("quien es el ceo"), List.of(candidatos)));
+
+		// "b" es un duplicado, "a" y "c" (index 0 y 1) se unen, "d" no cabe en 60 tokens
+		assertThat(contexto).extracting(c -> c.textSegment().text())
+				.containsExactly(ceo + "\nLa oficina central esta en Bogota.", "Hay vacaciones ilimitadas.");
+		assertThat(contexto.get(0).metadata()).containsEntry(ContentMetadata.SCORE, 0.95);
+		TokenBudgetContentAggregator.Stats stats = aggregator.stats();
+		assertThat(stats.duplicates()).isEqualTo(1);
+		assertThat(stats.merged()).isEqualTo(1);
+		assertThat(stats.tokensSent()).isLessThanOrEqualTo(60);
+		assertThat(stats.tokensDropped()).isEqualTo(tokenizer.estimateTokenCountInText(largo));
+	}
+
+	@Test
+	void siElTrozoUnidoNoCabeEntraSuMejorParte() {
+		OpenAiTokenCountEstimator tokenizer = new OpenAiTokenCountEstimator("gpt-4o-mini");
+		String ceo = "El CEO de la empresa es Pandebono y fundo la compania en 2020 junto a dos socios.";
+		String vecino = "Antes de Pandebono la empresa tuvo tres directores interinos durante la pandemia.";
+		String otro = "Hay vacaciones ilimitadas.";
+		// Cada trozo cabe solo, pero los dos vecinos unidos no
+		int presupuesto = tokenizer.estimateTokenCountInText(ceo) + tokenizer.estimateTokenCountInText(otro) + 2;
+
+		TokenBudgetContentAggregator aggregator = new TokenBudgetContentAggregator(tokenizer,
+				new TokenBudgetContentAggregator.Config(presupuesto, 0.8));
+		List<Content> contexto = aggregator.aggregate(Map.of(Query.from("quien es el ceo"), List.of(List.of(
+				contenido("a", vecino, 0, 0.60),
+				contenido("b", ceo, 1, 0.95),
+				contenido("c", otro, 9, 0.70)))));
+
+		// Sin la vuelta a las partes, el unido (score 0.95) se saltaba y solo entraba "otro"
+		assertThat(contexto).extracting(c -> c.textSegment().text()).containsExactly(ceo, otro);
+		assertThat(contexto.get(0).metadata()).containsEntry(ContentMetadata.EMBEDDING_ID, "b");
+		assertThat(aggregator.stats().tokensSent()).isLessThanOrEqualTo(presupuesto);
+	}
+
+	@Test
+	void soloUneTrozosQueSiguenSiendoVecinosTrasEditarElDocumento(@TempDir Path dir) throws Exception {
+		String a = "El CEO de la empresa es Pandebono.";
+		String b = "La oficina central queda en Bogota.";
+		String c = "Hay vacaciones ilimitadas para todos.";
+		String d = "El almuerzo de los viernes es gratis.";
+		Metadata archivo = Metadata.from(Map.of("file_name", "datos_empresa.txt", "absolute_directory_path", "/docs"));
+		ContadorEmbeddingModel modelo = new ContadorEmbeddingModel();
+		try (MappedEmbeddingStore store = new MappedEmbeddingStore(dir.resolve("store"));
+			 IncrementalIngestor ingestor = new IncrementalIngestor(
+					 new EmbeddingPipeline(modelo, store, new EmbeddingPipeline.Config(1, 4, 4)),
+					 store, DocumentSplitters.recursive(60, 0), dir.resolve("manifest.json"))) {
+			ingestor.ingest("doc", Document.from(String.join("\n\n", a, b, c), archivo));
+			// D entra entre A y B: A y B dejan de ser vecinos aunque ninguno se re-embeddee
+			ingestor.ingest("doc", Document.from(String.join("\n\n", a, d, b, c), archivo));
+
+			Map<String, Content> porTexto = new HashMap<>();
+			store.searchExact(EmbeddingSearchRequest.builder()
+							.queryEmbedding(ContadorEmbeddingModel.vector("consulta"))
+							.maxResults(10)
+							.minScore(0.0)
+							.build()).matches()
+					.forEach(m -> porTexto.put(m.embedded().text(), Content.from(m.embedded(),
+							Map.of(ContentMetadata.SCORE, 0.5, ContentMetadata.EMBEDDING_ID, m.embeddingId()))));
+
+			TokenBudgetContentAggregator aggregator = new TokenBudgetContentAggregator(
+					new OpenAiTokenCountEstimator("gpt-4o-mini"), new TokenBudgetContentAggregator.Config(400, 0.8));
+			List<Content> contexto = aggregator.aggregate(Map.of(Query.from("q"),
+					List.of(List.of(porTexto.get(a), porTexto.get(b), porTexto.get(c)))));
+
+			assertThat(contexto).extracting(x -> x.textSegment().text())
+					.containsExactlyInAnyOrder(a, b + "\n" + c);
+		}
+	}
+
+	private static Content contenido(String id, String texto, int index, double score) {
+		Metadata metadata = Metadata.from(Map.of("file_name", "datos_empresa.txt", "absolute_directory_path", "/docs",
+				"index", String.valueOf(index)));
+		return Content.from(TextSegment.from(texto, metadata),
+				Map.of(ContentMetadata.SCORE, score, ContentMetadata.EMBEDDING_ID, id));
+	}
+}